@@ -8,6 +8,7 @@
 -- IMPORTANT: Comment out in production!
 -- Note: Drop in reverse order due to foreign keys
 -- ========================================
+DROP TABLE order_revenue_rollup CASCADE CONSTRAINTS;
 DROP TABLE order_items CASCADE CONSTRAINTS;
 DROP TABLE orders CASCADE CONSTRAINTS;
 DROP TABLE products CASCADE CONSTRAINTS;
@@ -84,7 +85,7 @@ CREATE TABLE users (
 COMMENT ON TABLE users IS 'User accounts table - stores customer and admin accounts';
 COMMENT ON COLUMN users.user_id IS 'Unique user identifier';
 COMMENT ON COLUMN users.username IS 'Login username (3-20 chars)';
-COMMENT ON COLUMN users.password IS 'BCrypt hashed password';
+COMMENT ON COLUMN users.password IS 'Salted PBKDF2 password hash (pbkdf2-sha256$iterations$salt$hash)';
 COMMENT ON COLUMN users.email IS 'User email address';
 COMMENT ON COLUMN users.full_name IS 'User full name';
 COMMENT ON COLUMN users.phone IS 'Contact phone number (optional)';
@@ -213,6 +214,9 @@ CREATE INDEX idx_orders_user_id ON orders(user_id);
 CREATE INDEX idx_orders_status ON orders(status);
 CREATE INDEX idx_orders_order_date ON orders(order_date);
 CREATE INDEX idx_orders_payment_status ON orders(payment_status);
+-- Keyset pagination (newest first): seek on (order_date, order_id), overall and per user
+CREATE INDEX idx_orders_date_id ON orders(order_date DESC, order_id DESC);
+CREATE INDEX idx_orders_user_date_id ON orders(user_id, order_date DESC, order_id DESC);
 
 -- ========================================
 -- Table 4: Order Items
@@ -259,6 +263,39 @@ COMMENT ON COLUMN order_items.created_at IS 'Item creation time';
 CREATE INDEX idx_order_items_order_id ON order_items(order_id);
 CREATE INDEX idx_order_items_product_id ON order_items(product_id);
 
+-- ========================================
+-- Table 5: Order Revenue Rollup
+-- Purpose: Order counts and revenue per time bucket
+-- Maintained by the application: order changes are queued after they
+-- commit and MERGEd by a background writer about once a second, so rows
+-- lag the orders briefly and miss what was queued if the JVM dies before
+-- a flush; rebuilt from orders when empty (or on demand)
+-- ========================================
+CREATE TABLE order_revenue_rollup (
+    -- Bucket Key
+    granularity VARCHAR2(6) NOT NULL
+        CHECK (granularity IN ('MINUTE', 'HOUR', 'DAY')),
+    bucket_start TIMESTAMP NOT NULL,
+    status VARCHAR2(20) NOT NULL,
+    payment_method VARCHAR2(10) NOT NULL,
+    
+    -- Totals
+    order_count NUMBER(10) DEFAULT 0 NOT NULL,
+    revenue NUMBER(14, 2) DEFAULT 0 NOT NULL,
+    
+    CONSTRAINT pk_order_revenue_rollup
+        PRIMARY KEY (granularity, bucket_start, status, payment_method)
+);
+
+-- Add comments to order_revenue_rollup table
+COMMENT ON TABLE order_revenue_rollup IS 'Order revenue rollup - order counts and revenue per time bucket';
+COMMENT ON COLUMN order_revenue_rollup.granularity IS 'Bucket width (MINUTE, HOUR or DAY)';
+COMMENT ON COLUMN order_revenue_rollup.bucket_start IS 'Start of the bucket (order_date truncated)';
+COMMENT ON COLUMN order_revenue_rollup.status IS 'Order status';
+COMMENT ON COLUMN order_revenue_rollup.payment_method IS 'Payment method';
+COMMENT ON COLUMN order_revenue_rollup.order_count IS 'Orders in the bucket';
+COMMENT ON COLUMN order_revenue_rollup.revenue IS 'Sum of total_amount in the bucket';
+
 -- ========================================
 -- Create Triggers for Auto-increment
 -- Oracle requires triggers for auto-increment behavior
@@ -390,6 +427,7 @@ DESCRIBE users;
 DESCRIBE products;
 DESCRIBE orders;
 DESCRIBE order_items;
+DESCRIBE order_revenue_rollup;
 
 -- Show constraints
 SELECT constraint_name, constraint_type, table_name 
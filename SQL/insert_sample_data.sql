@@ -8,6 +8,8 @@
 -- ========================================
 -- Clear Existing Data (Development Only)
 -- ========================================
+-- Emptied so the application rebuilds it from the sample orders on startup
+DELETE FROM order_revenue_rollup;
 DELETE FROM order_items;
 DELETE FROM orders;
 DELETE FROM products;
@@ -1,7 +1,11 @@
 package dao;
 
 import model.Order;
+import model.OrderItem;
 import util.DBConnection;
+import util.FetchSizePolicy;
+import util.PageCursor;
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -12,6 +16,27 @@ import java.util.List;
  */
 public class OrderDAO {
 
+    // Rows strictly after (order_date, order_id) in descending order;
+    // the leading order_date <= ? gives Oracle an index range start
+    private static final String KEYSET_PREDICATE =
+            "o.order_date <= ? AND (o.order_date < ? OR o.order_id < ?)";
+
+    // Columns read by lockOrder / lockOrdersByUserId
+    private static final String LOCKED_COLUMNS = "order_id, order_date, total_amount, status, payment_method";
+
+    // Rows per round trip when streaming (bounds the driver's row buffer)
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    /**
+     * Receives orders one at a time from a streaming query
+     */
+    public interface OrderHandler {
+        /**
+         * @param order Order with its items attached; not retained by the DAO
+         */
+        void handle(Order order) throws IOException;
+    }
+
     // ================================
     // INSERT Operations
     // ================================
@@ -22,16 +47,34 @@ public class OrderDAO {
      * @return Generated order ID, or -1 if failed
      */
     public int insertOrder(Order order) throws SQLException {
+        Connection conn = null;
+
+        try {
+            conn = DBConnection.getConnection();
+            return insertOrder(conn, order);
+
+        } finally {
+            DBConnection.closeConnection(conn);
+        }
+    }
+
+    /**
+     * Insert a new order using the caller's connection (no commit)
+     * Used when the order is part of a larger transaction
+     * @param conn Connection with an open transaction
+     * @param order Order object to insert
+     * @return Generated order ID, or -1 if failed
+     */
+    public int insertOrder(Connection conn, Order order) throws SQLException {
         String sql = "INSERT INTO orders (user_id, total_amount, status, delivery_address, " +
                 "payment_method, payment_status, notes) VALUES (?, ?, ?, ?, ?, ?, ?)";
 
-        Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
 
         try {
-            conn = DBConnection.getConnection();
-            pstmt = conn.prepareStatement(sql, new String[]{"order_id"});
+            // The database sets order_date; read it back for the revenue rollup
+            pstmt = conn.prepareStatement(sql, new String[]{"order_id", "order_date"});
 
             pstmt.setInt(1, order.getUserId());
             pstmt.setDouble(2, order.getTotalAmount());
@@ -46,6 +89,7 @@ public class OrderDAO {
             if (affectedRows > 0) {
                 rs = pstmt.getGeneratedKeys();
                 if (rs.next()) {
+                    order.setOrderDate(rs.getTimestamp(2));
                     return rs.getInt(1);
                 }
             }
@@ -53,7 +97,7 @@ public class OrderDAO {
             return -1;
 
         } finally {
-            DBConnection.closeResources(conn, pstmt, rs);
+            DBConnection.closeResources(null, pstmt, rs);
         }
     }
 
@@ -61,6 +105,62 @@ public class OrderDAO {
     // SELECT Operations
     // ================================
 
+    /**
+     * Lock an order row and read the fields that place it in the revenue rollup
+     * Used when the order is about to change inside a larger transaction
+     * @return Order with ID, date, amount, status and payment method, or null if not found
+     */
+    public Order lockOrder(Connection conn, int orderId) throws SQLException {
+        String sql = "SELECT " + LOCKED_COLUMNS + " FROM orders WHERE order_id = ? FOR UPDATE";
+
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setInt(1, orderId);
+
+            rs = pstmt.executeQuery();
+
+            if (rs.next()) {
+                return extractLockedOrder(rs);
+            }
+
+            return null;
+
+        } finally {
+            DBConnection.closeResources(null, pstmt, rs);
+        }
+    }
+
+    /**
+     * Lock all orders of a user (see lockOrder)
+     * Used before deleting the user, which cascades to these orders
+     */
+    public List<Order> lockOrdersByUserId(Connection conn, int userId) throws SQLException {
+        String sql = "SELECT " + LOCKED_COLUMNS + " FROM orders WHERE user_id = ? FOR UPDATE";
+
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        List<Order> orders = new ArrayList<>();
+
+        try {
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setInt(1, userId);
+
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                orders.add(extractLockedOrder(rs));
+            }
+
+            return orders;
+
+        } finally {
+            DBConnection.closeResources(null, pstmt, rs);
+        }
+    }
+
     /**
      * Get order by ID (without items)
      */
@@ -107,6 +207,7 @@ public class OrderDAO {
         try {
             conn = DBConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
+            FetchSizePolicy.apply(pstmt, "OrderDAO.getOrdersByUserId");
             pstmt.setInt(1, userId);
 
             rs = pstmt.executeQuery();
@@ -115,6 +216,8 @@ public class OrderDAO {
                 orders.add(extractOrderFromResultSet(rs));
             }
 
+            FetchSizePolicy.record("OrderDAO.getOrdersByUserId", pstmt, orders.size());
+
             return orders;
 
         } finally {
@@ -138,6 +241,7 @@ public class OrderDAO {
         try {
             conn = DBConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
+            FetchSizePolicy.apply(pstmt, "OrderDAO.getOrdersByStatus");
             pstmt.setString(1, status);
 
             rs = pstmt.executeQuery();
@@ -146,6 +250,8 @@ public class OrderDAO {
                 orders.add(extractOrderFromResultSet(rs));
             }
 
+            FetchSizePolicy.record("OrderDAO.getOrdersByStatus", pstmt, orders.size());
+
             return orders;
 
         } finally {
@@ -169,6 +275,144 @@ public class OrderDAO {
         try {
             conn = DBConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
+            FetchSizePolicy.apply(pstmt, "OrderDAO.getAllOrders");
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                orders.add(extractOrderFromResultSet(rs));
+            }
+
+            FetchSizePolicy.record("OrderDAO.getAllOrders", pstmt, orders.size());
+
+            return orders;
+
+        } finally {
+            DBConnection.closeResources(conn, pstmt, rs);
+        }
+    }
+
+    /**
+     * Stream all orders with their items (for admin export), newest first
+     * Orders and items come from one joined query read with a bounded fetch
+     * size; each order is handed over as soon as its last item row has been
+     * read, so memory use does not grow with the order history.
+     * The connection stays leased until the handler has seen every order.
+     * @param handler Receives each order in turn
+     */
+    public void streamAllOrders(OrderHandler handler) throws SQLException, IOException {
+        String sql = "SELECT o.*, u.username, oi.order_item_id, oi.product_id, oi.quantity, " +
+                "oi.unit_price, oi.subtotal, p.product_name, p.category, p.image_url " +
+                "FROM orders o " +
+                "JOIN users u ON o.user_id = u.user_id " +
+                "LEFT JOIN order_items oi ON oi.order_id = o.order_id " +
+                "LEFT JOIN products p ON oi.product_id = p.product_id " +
+                "ORDER BY o.order_date DESC, o.order_id DESC, oi.order_item_id";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
+
+            rs = pstmt.executeQuery();
+
+            Order current = null;
+
+            while (rs.next()) {
+                int orderId = rs.getInt("order_id");
+
+                if (current == null || current.getOrderId() != orderId) {
+                    if (current != null) {
+                        handler.handle(current);
+                    }
+                    current = extractOrderFromResultSet(rs);
+                }
+
+                // Orders without items come back as one row with NULL item columns
+                rs.getInt("order_item_id");
+                if (!rs.wasNull()) {
+                    current.getOrderItems().add(extractStreamedItem(rs, orderId));
+                }
+            }
+
+            if (current != null) {
+                handler.handle(current);
+            }
+
+        } finally {
+            DBConnection.closeResources(conn, pstmt, rs);
+        }
+    }
+
+    /**
+     * Get the next page of all orders by keyset (newest first, for admin)
+     * Seeks past the cursor on (order_date, order_id), so deep pages cost
+     * the same index range scan as the first one
+     * @param after Last order of the previous page, or null for the first page
+     * @param limit Maximum number of orders to return
+     */
+    public List<Order> getOrdersAfter(PageCursor after, int limit) throws SQLException {
+        String sql = "SELECT o.*, u.username FROM orders o " +
+                "JOIN users u ON o.user_id = u.user_id " +
+                (after == null ? "" : "WHERE " + KEYSET_PREDICATE + " ") +
+                "ORDER BY o.order_date DESC, o.order_id DESC FETCH FIRST ? ROWS ONLY";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        List<Order> orders = new ArrayList<>();
+
+        try {
+            conn = DBConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setFetchSize(limit + 1); // FETCH FIRST bounds the rows: one round trip
+
+            int index = setKeysetParameters(pstmt, 1, after);
+            pstmt.setInt(index, limit);
+
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                orders.add(extractOrderFromResultSet(rs));
+            }
+
+            return orders;
+
+        } finally {
+            DBConnection.closeResources(conn, pstmt, rs);
+        }
+    }
+
+    /**
+     * Get the next page of a user's orders by keyset (newest first)
+     * @param userId User ID
+     * @param after Last order of the previous page, or null for the first page
+     * @param limit Maximum number of orders to return
+     */
+    public List<Order> getOrdersByUserIdAfter(int userId, PageCursor after, int limit) throws SQLException {
+        String sql = "SELECT o.*, u.username FROM orders o " +
+                "JOIN users u ON o.user_id = u.user_id " +
+                "WHERE o.user_id = ? " +
+                (after == null ? "" : "AND " + KEYSET_PREDICATE + " ") +
+                "ORDER BY o.order_date DESC, o.order_id DESC FETCH FIRST ? ROWS ONLY";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        List<Order> orders = new ArrayList<>();
+
+        try {
+            conn = DBConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setFetchSize(limit + 1); // FETCH FIRST bounds the rows: one round trip
+
+            pstmt.setInt(1, userId);
+            int index = setKeysetParameters(pstmt, 2, after);
+            pstmt.setInt(index, limit);
+
             rs = pstmt.executeQuery();
 
             while (rs.next()) {
@@ -231,6 +475,7 @@ public class OrderDAO {
         try {
             conn = DBConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
+            FetchSizePolicy.apply(pstmt, "OrderDAO.getOrdersByDateRange");
             pstmt.setTimestamp(1, startDate);
             pstmt.setTimestamp(2, endDate);
 
@@ -240,6 +485,8 @@ public class OrderDAO {
                 orders.add(extractOrderFromResultSet(rs));
             }
 
+            FetchSizePolicy.record("OrderDAO.getOrdersByDateRange", pstmt, orders.size());
+
             return orders;
 
         } finally {
@@ -251,6 +498,29 @@ public class OrderDAO {
     // UPDATE Operations
     // ================================
 
+    /**
+     * Update order status
+     * Used when the update is part of a larger transaction
+     */
+    public boolean updateOrderStatus(Connection conn, int orderId, String newStatus) throws SQLException {
+        String sql = "UPDATE orders SET status = ? WHERE order_id = ?";
+
+        PreparedStatement pstmt = null;
+
+        try {
+            pstmt = conn.prepareStatement(sql);
+
+            pstmt.setString(1, newStatus);
+            pstmt.setInt(2, orderId);
+
+            int affectedRows = pstmt.executeUpdate();
+            return affectedRows > 0;
+
+        } finally {
+            DBConnection.closeResources(null, pstmt, null);
+        }
+    }
+
     /**
      * Update order status
      */
@@ -351,6 +621,28 @@ public class OrderDAO {
     // DELETE Operations
     // ================================
 
+    /**
+     * Delete order by ID
+     * Used when the delete is part of a larger transaction
+     * Note: Will cascade delete all order items due to FK constraint
+     */
+    public boolean deleteOrder(Connection conn, int orderId) throws SQLException {
+        String sql = "DELETE FROM orders WHERE order_id = ?";
+
+        PreparedStatement pstmt = null;
+
+        try {
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setInt(1, orderId);
+
+            int affectedRows = pstmt.executeUpdate();
+            return affectedRows > 0;
+
+        } finally {
+            DBConnection.closeResources(null, pstmt, null);
+        }
+    }
+
     /**
      * Delete order by ID
      * Note: Will cascade delete all order items due to FK constraint
@@ -549,6 +841,50 @@ public class OrderDAO {
     // Helper Methods
     // ================================
 
+    /**
+     * Extract the LOCKED_COLUMNS of an order
+     */
+    private Order extractLockedOrder(ResultSet rs) throws SQLException {
+        Order order = new Order();
+        order.setOrderId(rs.getInt("order_id"));
+        order.setOrderDate(rs.getTimestamp("order_date"));
+        order.setTotalAmount(rs.getDouble("total_amount"));
+        order.setStatus(rs.getString("status"));
+        order.setPaymentMethod(rs.getString("payment_method"));
+        return order;
+    }
+
+    /**
+     * Bind the keyset predicate parameters, if paging past a cursor
+     * @return Index of the next parameter to bind
+     */
+    private int setKeysetParameters(PreparedStatement pstmt, int index, PageCursor after) throws SQLException {
+        if (after != null) {
+            Timestamp afterTimestamp = after.getTimestamp();
+            pstmt.setTimestamp(index++, afterTimestamp);
+            pstmt.setTimestamp(index++, afterTimestamp);
+            pstmt.setInt(index++, after.getId());
+        }
+        return index;
+    }
+
+    /**
+     * Item columns of a streamAllOrders row
+     */
+    private OrderItem extractStreamedItem(ResultSet rs, int orderId) throws SQLException {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setOrderItemId(rs.getInt("order_item_id"));
+        orderItem.setOrderId(orderId);
+        orderItem.setProductId(rs.getInt("product_id"));
+        orderItem.setQuantity(rs.getInt("quantity"));
+        orderItem.setUnitPrice(rs.getDouble("unit_price"));
+        orderItem.setSubtotal(rs.getDouble("subtotal"));
+        orderItem.setProductName(rs.getString("product_name"));
+        orderItem.setCategory(rs.getString("category"));
+        orderItem.setImageUrl(rs.getString("image_url"));
+        return orderItem;
+    }
+
     /**
      * Extract Order object from ResultSet
      */
@@ -2,9 +2,14 @@ package dao;
 
 import model.OrderItem;
 import util.DBConnection;
+import util.FetchSizePolicy;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 /**
  * OrderItem Data Access Object
@@ -12,6 +17,9 @@ import java.util.List;
  */
 public class OrderItemDAO {
 
+    // Largest IN-list sent in one query (Oracle allows at most 1000 expressions)
+    private static final int MAX_IN_LIST_SIZE = 512;
+
     // ================================
     // INSERT Operations
     // ================================
@@ -59,50 +67,119 @@ public class OrderItemDAO {
      * Insert multiple order items in batch
      */
     public boolean insertOrderItemsBatch(List<OrderItem> orderItems) throws SQLException {
-        String sql = "INSERT INTO order_items (order_id, product_id, quantity, unit_price, subtotal) " +
-                "VALUES (?, ?, ?, ?, ?)";
-
         Connection conn = null;
-        PreparedStatement pstmt = null;
 
         try {
             conn = DBConnection.getConnection();
-            conn.setAutoCommit(false); // Start transaction
 
+            boolean success = insertOrderItemsBatch(conn, orderItems);
+
+            if (success) {
+                conn.commit(); // Commit transaction
+            } else {
+                conn.rollback();
+            }
+
+            return success;
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback(); // Rollback on error
+            }
+            throw e;
+
+        } finally {
+            DBConnection.closeConnection(conn);
+        }
+    }
+
+    /**
+     * Insert multiple order items in one JDBC batch using the caller's connection
+     * Does not commit - the caller owns the transaction
+     * IDs are taken from order_items_seq in one query first (Oracle does not
+     * return generated keys for a batch) and set on the items.
+     * @param conn Connection with an open transaction
+     * @param orderItems Items to insert (orderId must already be set)
+     * @return true if every row was inserted
+     */
+    public boolean insertOrderItemsBatch(Connection conn, List<OrderItem> orderItems) throws SQLException {
+        String sql = "INSERT INTO order_items (order_item_id, order_id, product_id, quantity, unit_price, subtotal) " +
+                "VALUES (?, ?, ?, ?, ?, ?)";
+
+        if (orderItems.isEmpty()) {
+            return true;
+        }
+
+        List<Integer> itemIds = nextOrderItemIds(conn, orderItems.size());
+        PreparedStatement pstmt = null;
+
+        try {
             pstmt = conn.prepareStatement(sql);
 
-            for (OrderItem item : orderItems) {
-                pstmt.setInt(1, item.getOrderId());
-                pstmt.setInt(2, item.getProductId());
-                pstmt.setInt(3, item.getQuantity());
-                pstmt.setDouble(4, item.getUnitPrice());
-                pstmt.setDouble(5, item.getSubtotal());
+            for (int i = 0; i < orderItems.size(); i++) {
+                OrderItem item = orderItems.get(i);
+                pstmt.setInt(1, itemIds.get(i));
+                pstmt.setInt(2, item.getOrderId());
+                pstmt.setInt(3, item.getProductId());
+                pstmt.setInt(4, item.getQuantity());
+                pstmt.setDouble(5, item.getUnitPrice());
+                pstmt.setDouble(6, item.getSubtotal());
                 pstmt.addBatch();
             }
 
             int[] results = pstmt.executeBatch();
-            conn.commit(); // Commit transaction
 
             // Check if all inserts were successful
             for (int result : results) {
-                if (result <= 0) {
+                if (result <= 0 && result != Statement.SUCCESS_NO_INFO) {
                     return false;
                 }
             }
 
-            return true;
+            if (results.length != orderItems.size()) {
+                return false;
+            }
 
-        } catch (SQLException e) {
-            if (conn != null) {
-                conn.rollback(); // Rollback on error
+            for (int i = 0; i < orderItems.size(); i++) {
+                orderItems.get(i).setOrderItemId(itemIds.get(i));
             }
-            throw e;
+
+            return true;
 
         } finally {
-            if (conn != null) {
-                conn.setAutoCommit(true); // Restore auto-commit
+            DBConnection.closeResources(null, pstmt, null);
+        }
+    }
+
+    /**
+     * Reserve order item IDs from order_items_seq (one round trip)
+     */
+    private List<Integer> nextOrderItemIds(Connection conn, int count) throws SQLException {
+        String sql = "SELECT order_items_seq.NEXTVAL FROM dual CONNECT BY LEVEL <= ?";
+
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        List<Integer> itemIds = new ArrayList<>(count);
+
+        try {
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setFetchSize(count);
+            pstmt.setInt(1, count);
+
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                itemIds.add(rs.getInt(1));
             }
-            DBConnection.closeResources(conn, pstmt, null);
+
+            if (itemIds.size() != count) {
+                throw new SQLException("Expected " + count + " order item IDs, got " + itemIds.size());
+            }
+
+            return itemIds;
+
+        } finally {
+            DBConnection.closeResources(null, pstmt, rs);
         }
     }
 
@@ -174,6 +251,81 @@ public class OrderItemDAO {
         }
     }
 
+    /**
+     * Get order items for many orders at once
+     * Replaces one getOrderItemsByOrderId query per order with one query per
+     * chunk of up to 512 order IDs. IN-lists are padded to a power of two so
+     * only a handful of distinct SQL texts reach the statement cache.
+     * @param orderIds Order IDs to load
+     * @return Map of order ID to its items (orders without items map to an empty list)
+     */
+    public Map<Integer, List<OrderItem>> getOrderItemsByOrderIds(Collection<Integer> orderIds) throws SQLException {
+        Map<Integer, List<OrderItem>> itemsByOrder = new HashMap<>();
+
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(orderIds));
+        for (Integer orderId : ids) {
+            itemsByOrder.put(orderId, new ArrayList<>());
+        }
+
+        if (ids.isEmpty()) {
+            return itemsByOrder;
+        }
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBConnection.getConnection();
+
+            for (int start = 0; start < ids.size(); start += MAX_IN_LIST_SIZE) {
+                List<Integer> chunk = ids.subList(start, Math.min(start + MAX_IN_LIST_SIZE, ids.size()));
+                int paddedSize = Integer.highestOneBit(chunk.size());
+                if (paddedSize < chunk.size()) {
+                    paddedSize <<= 1;
+                }
+
+                StringBuilder sql = new StringBuilder("SELECT oi.*, p.product_name, p.category, p.image_url " +
+                        "FROM order_items oi " +
+                        "JOIN products p ON oi.product_id = p.product_id " +
+                        "WHERE oi.order_id IN (");
+                for (int i = 0; i < paddedSize; i++) {
+                    sql.append(i == 0 ? "?" : ", ?");
+                }
+                sql.append(") ORDER BY oi.order_id, oi.order_item_id");
+
+                pstmt = conn.prepareStatement(sql.toString());
+                FetchSizePolicy.apply(pstmt, "OrderItemDAO.getOrderItemsByOrderIds");
+
+                // Repeat the last ID to fill the padding slots
+                for (int i = 0; i < paddedSize; i++) {
+                    pstmt.setInt(i + 1, chunk.get(Math.min(i, chunk.size() - 1)));
+                }
+
+                rs = pstmt.executeQuery();
+
+                int rowCount = 0;
+                while (rs.next()) {
+                    OrderItem item = extractOrderItemFromResultSet(rs);
+                    itemsByOrder.get(item.getOrderId()).add(item);
+                    rowCount++;
+                }
+
+                FetchSizePolicy.record("OrderItemDAO.getOrderItemsByOrderIds", pstmt, rowCount);
+
+                rs.close();
+                rs = null;
+                pstmt.close();
+                pstmt = null;
+            }
+
+            return itemsByOrder;
+
+        } finally {
+            DBConnection.closeResources(conn, pstmt, rs);
+        }
+    }
+
     /**
      * Get all order items for a specific product
      */
@@ -192,6 +344,7 @@ public class OrderItemDAO {
         try {
             conn = DBConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
+            FetchSizePolicy.apply(pstmt, "OrderItemDAO.getOrderItemsByProductId");
             pstmt.setInt(1, productId);
 
             rs = pstmt.executeQuery();
@@ -200,6 +353,8 @@ public class OrderItemDAO {
                 orderItems.add(extractOrderItemFromResultSet(rs));
             }
 
+            FetchSizePolicy.record("OrderItemDAO.getOrderItemsByProductId", pstmt, orderItems.size());
+
             return orderItems;
 
         } finally {
@@ -224,12 +379,15 @@ public class OrderItemDAO {
         try {
             conn = DBConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
+            FetchSizePolicy.apply(pstmt, "OrderItemDAO.getAllOrderItems");
             rs = pstmt.executeQuery();
 
             while (rs.next()) {
                 orderItems.add(extractOrderItemFromResultSet(rs));
             }
 
+            FetchSizePolicy.record("OrderItemDAO.getAllOrderItems", pstmt, orderItems.size());
+
             return orderItems;
 
         } finally {
@@ -431,6 +589,8 @@ public class OrderItemDAO {
 
     /**
      * Get most popular products (by quantity sold)
+     * Scans every order item; only used to seed the all-time popularity
+     * tracker, which serves the popular product reads
      */
     public List<OrderItem> getMostPopularProducts(int limit) throws SQLException {
         String sql = "SELECT oi.product_id, p.product_name, p.category, p.image_url, " +
@@ -471,6 +631,50 @@ public class OrderItemDAO {
         }
     }
 
+    /**
+     * Get quantity sold per product and hour for orders placed since a time
+     * (used to seed the windowed popularity trackers at startup)
+     * @return One item per product and hour: product ID, quantity, and the
+     *         start of the hour as createdAt
+     */
+    public List<OrderItem> getHourlyQuantitiesSince(Timestamp since) throws SQLException {
+        String sql = "SELECT oi.product_id, TRUNC(o.order_date, 'HH24') as hour_start, " +
+                "SUM(oi.quantity) as total_quantity " +
+                "FROM order_items oi " +
+                "JOIN orders o ON oi.order_id = o.order_id " +
+                "WHERE o.order_date >= ? " +
+                "GROUP BY oi.product_id, TRUNC(o.order_date, 'HH24')";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        List<OrderItem> quantities = new ArrayList<>();
+
+        try {
+            conn = DBConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+            FetchSizePolicy.apply(pstmt, "OrderItemDAO.getHourlyQuantitiesSince");
+            pstmt.setTimestamp(1, since);
+
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                OrderItem item = new OrderItem();
+                item.setProductId(rs.getInt("product_id"));
+                item.setQuantity(rs.getInt("total_quantity"));
+                item.setCreatedAt(rs.getTimestamp("hour_start"));
+                quantities.add(item);
+            }
+
+            FetchSizePolicy.record("OrderItemDAO.getHourlyQuantitiesSince", pstmt, quantities.size());
+
+            return quantities;
+
+        } finally {
+            DBConnection.closeResources(conn, pstmt, rs);
+        }
+    }
+
     // ================================
     // Helper Methods
     // ================================
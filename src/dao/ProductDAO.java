@@ -1,9 +1,15 @@
 package dao;
 
+import model.OrderItem;
 import model.Product;
+import util.AppLogger;
 import util.DBConnection;
+import util.FetchSizePolicy;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 /**
@@ -12,6 +18,8 @@ import java.util.List;
  */
 public class ProductDAO {
 
+    private static final AppLogger LOG = AppLogger.getLogger(ProductDAO.class);
+
     // ================================
     // INSERT Operations
     // ================================
@@ -90,19 +98,36 @@ public class ProductDAO {
     }
 
     /**
-     * Get all products
+     * Get several products by ID in one query
+     * @param productIds Product IDs (at most 1000)
+     * @return Products found (IDs that no longer exist are simply missing)
      */
-    public List<Product> getAllProducts() throws SQLException {
-        String sql = "SELECT * FROM products ORDER BY created_at DESC";
+    public List<Product> getProductsByIds(Collection<Integer> productIds) throws SQLException {
+        List<Integer> ids = new ArrayList<>(new LinkedHashSet<>(productIds));
+        List<Product> products = new ArrayList<>();
+
+        if (ids.isEmpty()) {
+            return products;
+        }
+
+        StringBuilder sql = new StringBuilder("SELECT * FROM products WHERE product_id IN (");
+        for (int i = 0; i < ids.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
 
         Connection conn = null;
         PreparedStatement pstmt = null;
         ResultSet rs = null;
-        List<Product> products = new ArrayList<>();
 
         try {
             conn = DBConnection.getConnection();
-            pstmt = conn.prepareStatement(sql);
+            pstmt = conn.prepareStatement(sql.toString());
+
+            for (int i = 0; i < ids.size(); i++) {
+                pstmt.setInt(i + 1, ids.get(i));
+            }
+
             rs = pstmt.executeQuery();
 
             while (rs.next()) {
@@ -117,10 +142,10 @@ public class ProductDAO {
     }
 
     /**
-     * Get products by category
+     * Get all products
      */
-    public List<Product> getProductsByCategory(String category) throws SQLException {
-        String sql = "SELECT * FROM products WHERE category = ? ORDER BY product_name";
+    public List<Product> getAllProducts() throws SQLException {
+        String sql = "SELECT * FROM products ORDER BY created_at DESC";
 
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -130,14 +155,15 @@ public class ProductDAO {
         try {
             conn = DBConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
-            pstmt.setString(1, category);
-
+            FetchSizePolicy.apply(pstmt, "ProductDAO.getAllProducts");
             rs = pstmt.executeQuery();
 
             while (rs.next()) {
                 products.add(extractProductFromResultSet(rs));
             }
 
+            FetchSizePolicy.record("ProductDAO.getAllProducts", pstmt, products.size());
+
             return products;
 
         } finally {
@@ -146,10 +172,10 @@ public class ProductDAO {
     }
 
     /**
-     * Get products by status
+     * Get products by category
      */
-    public List<Product> getProductsByStatus(String status) throws SQLException {
-        String sql = "SELECT * FROM products WHERE status = ? ORDER BY product_name";
+    public List<Product> getProductsByCategory(String category) throws SQLException {
+        String sql = "SELECT * FROM products WHERE category = ? ORDER BY product_name";
 
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -159,7 +185,8 @@ public class ProductDAO {
         try {
             conn = DBConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
-            pstmt.setString(1, status);
+            FetchSizePolicy.apply(pstmt, "ProductDAO.getProductsByCategory");
+            pstmt.setString(1, category);
 
             rs = pstmt.executeQuery();
 
@@ -167,6 +194,8 @@ public class ProductDAO {
                 products.add(extractProductFromResultSet(rs));
             }
 
+            FetchSizePolicy.record("ProductDAO.getProductsByCategory", pstmt, products.size());
+
             return products;
 
         } finally {
@@ -175,11 +204,10 @@ public class ProductDAO {
     }
 
     /**
-     * Search products by name (case-insensitive)
+     * Get products by status
      */
-    public List<Product> searchProducts(String keyword) throws SQLException {
-        String sql = "SELECT * FROM products WHERE LOWER(product_name) LIKE LOWER(?) " +
-                "OR LOWER(description) LIKE LOWER(?) ORDER BY product_name";
+    public List<Product> getProductsByStatus(String status) throws SQLException {
+        String sql = "SELECT * FROM products WHERE status = ? ORDER BY product_name";
 
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -189,10 +217,8 @@ public class ProductDAO {
         try {
             conn = DBConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
-
-            String searchPattern = "%" + keyword + "%";
-            pstmt.setString(1, searchPattern);
-            pstmt.setString(2, searchPattern);
+            FetchSizePolicy.apply(pstmt, "ProductDAO.getProductsByStatus");
+            pstmt.setString(1, status);
 
             rs = pstmt.executeQuery();
 
@@ -200,6 +226,8 @@ public class ProductDAO {
                 products.add(extractProductFromResultSet(rs));
             }
 
+            FetchSizePolicy.record("ProductDAO.getProductsByStatus", pstmt, products.size());
+
             return products;
 
         } finally {
@@ -208,11 +236,11 @@ public class ProductDAO {
     }
 
     /**
-     * Get products with pagination
+     * Search products by name (case-insensitive)
      */
-    public List<Product> getProductsWithPagination(int offset, int limit) throws SQLException {
-        String sql = "SELECT * FROM products ORDER BY created_at DESC " +
-                "OFFSET ? ROWS FETCH NEXT ? ROWS ONLY";
+    public List<Product> searchProducts(String keyword) throws SQLException {
+        String sql = "SELECT * FROM products WHERE LOWER(product_name) LIKE LOWER(?) " +
+                "OR LOWER(description) LIKE LOWER(?) ORDER BY product_name";
 
         Connection conn = null;
         PreparedStatement pstmt = null;
@@ -222,8 +250,10 @@ public class ProductDAO {
         try {
             conn = DBConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
-            pstmt.setInt(1, offset);
-            pstmt.setInt(2, limit);
+
+            String searchPattern = "%" + keyword + "%";
+            pstmt.setString(1, searchPattern);
+            pstmt.setString(2, searchPattern);
 
             rs = pstmt.executeQuery();
 
@@ -376,6 +406,203 @@ public class ProductDAO {
         }
     }
 
+    // ================================
+    // Stock Operations
+    // ================================
+
+    /**
+     * Decrease stock only if enough is left (single conditional UPDATE)
+     * Safe under concurrent checkouts: the check and the decrement happen
+     * in one statement, so two buyers cannot both take the last item.
+     * @return true if the stock was decreased
+     */
+    public boolean decreaseStockIfAvailable(int productId, int quantity) throws SQLException {
+        String sql = "UPDATE products SET stock = stock - ? WHERE product_id = ? AND stock >= ?";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            conn = DBConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+
+            pstmt.setInt(1, quantity);
+            pstmt.setInt(2, productId);
+            pstmt.setInt(3, quantity);
+
+            int affectedRows = pstmt.executeUpdate();
+            return affectedRows > 0;
+
+        } finally {
+            DBConnection.closeResources(conn, pstmt, null);
+        }
+    }
+
+    /**
+     * Increase stock in place (no read-modify-write)
+     */
+    public boolean increaseStock(int productId, int quantity) throws SQLException {
+        String sql = "UPDATE products SET stock = stock + ? WHERE product_id = ?";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            conn = DBConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+
+            pstmt.setInt(1, quantity);
+            pstmt.setInt(2, productId);
+
+            int affectedRows = pstmt.executeUpdate();
+            return affectedRows > 0;
+
+        } finally {
+            DBConnection.closeResources(conn, pstmt, null);
+        }
+    }
+
+    /**
+     * Reserve stock for a whole cart in one batch and one transaction
+     * Either every line is reserved and committed, or nothing is.
+     * @param items Order lines (productId and quantity are used)
+     * @return Lines that could not be reserved; empty if the reservation was committed
+     */
+    public List<OrderItem> reserveStock(List<OrderItem> items) throws SQLException {
+        Connection conn = null;
+
+        try {
+            conn = DBConnection.getConnection();
+            List<OrderItem> failedItems = reserveStock(conn, items);
+
+            if (failedItems.isEmpty()) {
+                conn.commit();
+            } else {
+                conn.rollback();
+            }
+
+            return failedItems;
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw e;
+
+        } finally {
+            DBConnection.closeConnection(conn);
+        }
+    }
+
+    /**
+     * Reserve stock for a whole cart on the caller's connection (no commit)
+     * Lines are applied in product ID order so concurrent checkouts lock
+     * rows in the same order and cannot deadlock each other.
+     * The caller must roll back if the returned list is not empty.
+     * Drivers that do not report per-row counts make this fall back to one
+     * UPDATE per line after rolling the transaction back, so call it before
+     * any other statement in the transaction.
+     * @param conn Connection with an open transaction
+     * @param items Order lines (productId and quantity are used)
+     * @return Lines that could not be reserved
+     */
+    public List<OrderItem> reserveStock(Connection conn, List<OrderItem> items) throws SQLException {
+        String sql = "UPDATE products SET stock = stock - ? WHERE product_id = ? AND stock >= ?";
+
+        List<OrderItem> sortedItems = new ArrayList<>(items);
+        sortedItems.sort(Comparator.comparingInt(OrderItem::getProductId));
+
+        List<OrderItem> failedItems = new ArrayList<>();
+        PreparedStatement pstmt = null;
+
+        try {
+            pstmt = conn.prepareStatement(sql);
+
+            for (OrderItem item : sortedItems) {
+                pstmt.setInt(1, item.getQuantity());
+                pstmt.setInt(2, item.getProductId());
+                pstmt.setInt(3, item.getQuantity());
+                pstmt.addBatch();
+            }
+
+            int[] results = pstmt.executeBatch();
+
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] == Statement.SUCCESS_NO_INFO || results[i] == Statement.EXECUTE_FAILED) {
+                    // Driver did not report per-row counts - check line by line instead
+                    return reserveStockLineByLine(conn, pstmt, sortedItems);
+                }
+                if (results[i] <= 0) {
+                    failedItems.add(sortedItems.get(i));
+                }
+            }
+
+            return failedItems;
+
+        } finally {
+            if (pstmt != null) {
+                pstmt.close();
+            }
+        }
+    }
+
+    /**
+     * Fallback for drivers that return SUCCESS_NO_INFO or EXECUTE_FAILED from executeBatch
+     */
+    private List<OrderItem> reserveStockLineByLine(Connection conn, PreparedStatement pstmt,
+                                                   List<OrderItem> sortedItems) throws SQLException {
+        conn.rollback();
+
+        List<OrderItem> failedItems = new ArrayList<>();
+        for (OrderItem item : sortedItems) {
+            pstmt.setInt(1, item.getQuantity());
+            pstmt.setInt(2, item.getProductId());
+            pstmt.setInt(3, item.getQuantity());
+            if (pstmt.executeUpdate() <= 0) {
+                failedItems.add(item);
+            }
+        }
+
+        return failedItems;
+    }
+
+    /**
+     * Put stock back for a list of order lines in one batch (order cancelled)
+     */
+    public boolean releaseStock(List<OrderItem> items) throws SQLException {
+        String sql = "UPDATE products SET stock = stock + ? WHERE product_id = ?";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+
+        try {
+            conn = DBConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+
+            List<OrderItem> sortedItems = new ArrayList<>(items);
+            sortedItems.sort(Comparator.comparingInt(OrderItem::getProductId));
+
+            for (OrderItem item : sortedItems) {
+                pstmt.setInt(1, item.getQuantity());
+                pstmt.setInt(2, item.getProductId());
+                pstmt.addBatch();
+            }
+
+            pstmt.executeBatch();
+            conn.commit();
+            return true;
+
+        } catch (SQLException e) {
+            if (conn != null) {
+                conn.rollback();
+            }
+            throw e;
+
+        } finally {
+            DBConnection.closeResources(conn, pstmt, null);
+        }
+    }
+
     // ================================
     // DELETE Operations
     // ================================
@@ -401,7 +628,7 @@ public class ProductDAO {
         } catch (SQLException e) {
             // Check if error is due to foreign key constraint
             if (e.getErrorCode() == 2292) { // Oracle FK constraint violation
-                System.out.println("Cannot delete product: referenced in orders");
+                LOG.info("Cannot delete product: referenced in orders", "productId", productId);
                 return false;
             }
             throw e;
@@ -0,0 +1,296 @@
+package dao;
+
+import model.RevenueBucket;
+import model.RevenueBucket.Granularity;
+import util.DBConnection;
+import util.FetchSizePolicy;
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Revenue Rollup Data Access Object
+ * Handles all database operations for order_revenue_rollup table
+ *
+ * Rows are keyed by (granularity, bucket_start, status, payment_method)
+ * and only ever adjusted by deltas. The deltas are written after the order
+ * transactions they describe have committed, in short transactions of
+ * their own, so a checkout never waits on a hot DAY or HOUR row lock.
+ *
+ * Two writers (e.g. two application nodes) can still reach the same new
+ * bucket at once: both take the MERGE's insert branch and one fails with
+ * ORA-00001 (DUP_VAL_ON_INDEX). That batch is rolled back and run again,
+ * and the retried MERGE finds the row and updates it.
+ */
+public class RevenueRollupDAO {
+
+    private static final String MERGE_SQL =
+            "MERGE INTO order_revenue_rollup r " +
+            "USING (SELECT ? AS granularity, ? AS bucket_start, ? AS status, ? AS payment_method, " +
+            "? AS order_count, ? AS revenue FROM dual) d " +
+            "ON (r.granularity = d.granularity AND r.bucket_start = d.bucket_start " +
+            "AND r.status = d.status AND r.payment_method = d.payment_method) " +
+            "WHEN MATCHED THEN UPDATE SET r.order_count = r.order_count + d.order_count, " +
+            "r.revenue = r.revenue + d.revenue " +
+            "WHEN NOT MATCHED THEN INSERT (granularity, bucket_start, status, payment_method, order_count, revenue) " +
+            "VALUES (d.granularity, d.bucket_start, d.status, d.payment_method, d.order_count, d.revenue)";
+
+    // Oracle error code for DUP_VAL_ON_INDEX (ORA-00001)
+    private static final int UNIQUE_VIOLATION = 1;
+
+    // Attempts per batch when racing another writer on new buckets
+    private static final int MERGE_ATTEMPTS = 3;
+
+    // Oracle TRUNC format per granularity, used when rebuilding from orders
+    private static final String[][] TRUNC_FORMATS = {
+            {Granularity.MINUTE.name(), "MI"},
+            {Granularity.HOUR.name(), "HH24"},
+            {Granularity.DAY.name(), "DD"}
+    };
+
+    // ================================
+    // Write Operations
+    // ================================
+
+    /**
+     * Add deltas to their buckets (one MERGE batch in its own transaction)
+     * Retried when another writer inserted one of the buckets first
+     * @param deltas Count and revenue changes per bucket
+     */
+    public void mergeBuckets(List<RevenueBucket> deltas) throws SQLException {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                mergeBucketsOnce(deltas);
+                return;
+            } catch (SQLException e) {
+                if (e.getErrorCode() != UNIQUE_VIOLATION || attempt == MERGE_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Recompute every bucket from the orders table in one transaction
+     * (initial backfill, or repair after direct database edits)
+     */
+    public void rebuild() throws SQLException {
+        Connection conn = DBConnection.getConnection();
+
+        if (conn == null) {
+            throw new SQLException("No database connection");
+        }
+
+        boolean committed = false;
+        Statement stmt = null;
+
+        try {
+            stmt = conn.createStatement();
+            stmt.executeUpdate("DELETE FROM order_revenue_rollup");
+
+            for (String[] format : TRUNC_FORMATS) {
+                stmt.executeUpdate(
+                        "INSERT INTO order_revenue_rollup " +
+                        "(granularity, bucket_start, status, payment_method, order_count, revenue) " +
+                        "SELECT '" + format[0] + "', TRUNC(order_date, '" + format[1] + "'), status, payment_method, " +
+                        "COUNT(*), SUM(total_amount) FROM orders " +
+                        "GROUP BY TRUNC(order_date, '" + format[1] + "'), status, payment_method");
+            }
+
+            conn.commit();
+            committed = true;
+
+        } finally {
+            if (stmt != null) {
+                stmt.close();
+            }
+            if (committed) {
+                DBConnection.closeConnection(conn);
+            } else {
+                DBConnection.rollbackAndClose(conn);
+            }
+        }
+    }
+
+    // ================================
+    // SELECT Operations
+    // ================================
+
+    /**
+     * Get all buckets of one granularity in a time range
+     * @param from First bucket start (inclusive)
+     * @param to End of range (exclusive), or null for no upper bound
+     */
+    public List<RevenueBucket> getBuckets(Granularity granularity, LocalDateTime from, LocalDateTime to)
+            throws SQLException {
+        String sql = "SELECT * FROM order_revenue_rollup " +
+                "WHERE granularity = ? AND bucket_start >= ?" +
+                (to != null ? " AND bucket_start < ?" : "") +
+                " ORDER BY bucket_start";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        List<RevenueBucket> buckets = new ArrayList<>();
+
+        try {
+            conn = DBConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+            FetchSizePolicy.apply(pstmt, "RevenueRollupDAO.getBuckets");
+            pstmt.setString(1, granularity.name());
+            pstmt.setTimestamp(2, Timestamp.valueOf(from));
+            if (to != null) {
+                pstmt.setTimestamp(3, Timestamp.valueOf(to));
+            }
+
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                buckets.add(extractBucketFromResultSet(rs));
+            }
+
+            FetchSizePolicy.record("RevenueRollupDAO.getBuckets", pstmt, buckets.size());
+
+            return buckets;
+
+        } finally {
+            DBConnection.closeResources(conn, pstmt, rs);
+        }
+    }
+
+    /**
+     * Sum the buckets of one granularity in a time range
+     * @param status Only this status, or null for every status except cancelled
+     * @param paymentMethod Only this payment method, or null for all
+     * @return Totals (order count and revenue)
+     */
+    public RevenueBucket sumBuckets(Granularity granularity, LocalDateTime from, LocalDateTime to,
+                                    String status, String paymentMethod) throws SQLException {
+        String sql = "SELECT NVL(SUM(order_count), 0), NVL(SUM(revenue), 0) FROM order_revenue_rollup " +
+                "WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ? " +
+                (status != null ? "AND status = ? " : "AND status != 'cancelled' ") +
+                (paymentMethod != null ? "AND payment_method = ?" : "");
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+
+            int index = 1;
+            pstmt.setString(index++, granularity.name());
+            pstmt.setTimestamp(index++, Timestamp.valueOf(from));
+            pstmt.setTimestamp(index++, Timestamp.valueOf(to));
+            if (status != null) {
+                pstmt.setString(index++, status);
+            }
+            if (paymentMethod != null) {
+                pstmt.setString(index, paymentMethod);
+            }
+
+            rs = pstmt.executeQuery();
+
+            RevenueBucket totals = new RevenueBucket(granularity, from, status, paymentMethod, 0, 0.0);
+            if (rs.next()) {
+                totals.setOrderCount(rs.getLong(1));
+                totals.setRevenue(rs.getDouble(2));
+            }
+
+            return totals;
+
+        } finally {
+            DBConnection.closeResources(conn, pstmt, rs);
+        }
+    }
+
+    /**
+     * Get total number of rollup rows
+     */
+    public int getRowCount() throws SQLException {
+        String sql = "SELECT COUNT(*) FROM order_revenue_rollup";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+
+        try {
+            conn = DBConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+            rs = pstmt.executeQuery();
+
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+
+            return 0;
+
+        } finally {
+            DBConnection.closeResources(conn, pstmt, rs);
+        }
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    /**
+     * Run one MERGE batch and commit it, rolling back on any failure
+     */
+    private void mergeBucketsOnce(List<RevenueBucket> deltas) throws SQLException {
+        Connection conn = DBConnection.getConnection();
+
+        if (conn == null) {
+            throw new SQLException("No database connection");
+        }
+
+        boolean committed = false;
+        PreparedStatement pstmt = null;
+
+        try {
+            pstmt = conn.prepareStatement(MERGE_SQL);
+
+            for (RevenueBucket delta : deltas) {
+                pstmt.setString(1, delta.getGranularity().name());
+                pstmt.setTimestamp(2, Timestamp.valueOf(delta.getBucketStart()));
+                pstmt.setString(3, delta.getStatus());
+                pstmt.setString(4, delta.getPaymentMethod());
+                pstmt.setLong(5, delta.getOrderCount());
+                pstmt.setDouble(6, delta.getRevenue());
+                pstmt.addBatch();
+            }
+
+            pstmt.executeBatch();
+            conn.commit();
+            committed = true;
+
+        } finally {
+            DBConnection.closeResources(null, pstmt, null);
+            if (committed) {
+                DBConnection.closeConnection(conn);
+            } else {
+                DBConnection.rollbackAndClose(conn);
+            }
+        }
+    }
+
+    /**
+     * Extract RevenueBucket object from ResultSet
+     */
+    private RevenueBucket extractBucketFromResultSet(ResultSet rs) throws SQLException {
+        RevenueBucket bucket = new RevenueBucket();
+        bucket.setGranularity(Granularity.valueOf(rs.getString("granularity")));
+        bucket.setBucketStart(rs.getTimestamp("bucket_start").toLocalDateTime());
+        bucket.setStatus(rs.getString("status"));
+        bucket.setPaymentMethod(rs.getString("payment_method"));
+        bucket.setOrderCount(rs.getLong("order_count"));
+        bucket.setRevenue(rs.getDouble("revenue"));
+        return bucket;
+    }
+}
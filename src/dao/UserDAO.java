@@ -2,6 +2,7 @@ package dao;
 
 import model.User;
 import util.DBConnection;
+import util.FetchSizePolicy;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -12,6 +13,16 @@ import java.util.List;
  */
 public class UserDAO {
 
+    // Rows per round trip when streaming (bounds the driver's row buffer)
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    /**
+     * Receives (username, email) pairs from a streaming query
+     */
+    public interface IdentityHandler {
+        void handle(String username, String email);
+    }
+
     // ================================
     // INSERT Operations
     // ================================
@@ -159,12 +170,15 @@ public class UserDAO {
         try {
             conn = DBConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
+            FetchSizePolicy.apply(pstmt, "UserDAO.getAllUsers");
             rs = pstmt.executeQuery();
 
             while (rs.next()) {
                 users.add(extractUserFromResultSet(rs));
             }
 
+            FetchSizePolicy.record("UserDAO.getAllUsers", pstmt, users.size());
+
             return users;
 
         } finally {
@@ -186,6 +200,7 @@ public class UserDAO {
         try {
             conn = DBConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
+            FetchSizePolicy.apply(pstmt, "UserDAO.getUsersByRole");
             pstmt.setString(1, role);
 
             rs = pstmt.executeQuery();
@@ -194,6 +209,8 @@ public class UserDAO {
                 users.add(extractUserFromResultSet(rs));
             }
 
+            FetchSizePolicy.record("UserDAO.getUsersByRole", pstmt, users.size());
+
             return users;
 
         } finally {
@@ -215,6 +232,7 @@ public class UserDAO {
         try {
             conn = DBConnection.getConnection();
             pstmt = conn.prepareStatement(sql);
+            FetchSizePolicy.apply(pstmt, "UserDAO.getUsersByStatus");
             pstmt.setString(1, status);
 
             rs = pstmt.executeQuery();
@@ -223,6 +241,8 @@ public class UserDAO {
                 users.add(extractUserFromResultSet(rs));
             }
 
+            FetchSizePolicy.record("UserDAO.getUsersByStatus", pstmt, users.size());
+
             return users;
 
         } finally {
@@ -315,6 +335,28 @@ public class UserDAO {
     // DELETE Operations
     // ================================
 
+    /**
+     * Delete user by ID
+     * Used when the delete is part of a larger transaction
+     * Note: Will cascade delete all orders and order items due to FK constraint
+     */
+    public boolean deleteUser(Connection conn, int userId) throws SQLException {
+        String sql = "DELETE FROM users WHERE user_id = ?";
+
+        PreparedStatement pstmt = null;
+
+        try {
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setInt(1, userId);
+
+            int affectedRows = pstmt.executeUpdate();
+            return affectedRows > 0;
+
+        } finally {
+            DBConnection.closeResources(null, pstmt, null);
+        }
+    }
+
     /**
      * Delete user by ID
      * Note: Will cascade delete all orders and order items due to FK constraint
@@ -398,6 +440,37 @@ public class UserDAO {
         }
     }
 
+    /**
+     * Stream every username and email without materializing the users
+     * (used to warm the registration Bloom filters)
+     * @return Number of users streamed
+     */
+    public int streamIdentities(IdentityHandler handler) throws SQLException {
+        String sql = "SELECT username, email FROM users";
+
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        int count = 0;
+
+        try {
+            conn = DBConnection.getConnection();
+            pstmt = conn.prepareStatement(sql);
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
+            rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                handler.handle(rs.getString("username"), rs.getString("email"));
+                count++;
+            }
+
+            return count;
+
+        } finally {
+            DBConnection.closeResources(conn, pstmt, rs);
+        }
+    }
+
     // ================================
     // Statistics Operations
     // ================================
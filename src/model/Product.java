@@ -73,6 +73,15 @@ public class Product {
         this.updatedAt = updatedAt;
     }
     
+    /**
+     * Copy constructor
+     */
+    public Product(Product other) {
+        this(other.productId, other.productName, other.description, other.price,
+             other.stock, other.category, other.imageUrl, other.status,
+             other.createdAt, other.updatedAt);
+    }
+    
     // Getters and Setters
     
     public int getProductId() {
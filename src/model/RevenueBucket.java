@@ -0,0 +1,154 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Revenue Bucket Model Class
+ * Order count and revenue for one time bucket, order status and payment
+ * method; corresponds to ORDER_REVENUE_ROLLUP table in database
+ *
+ * Also used as a delta (count +1/-1, revenue +/- the order total) when an
+ * order is created, changes status or is deleted.
+ */
+public class RevenueBucket {
+
+    /**
+     * Bucket width
+     */
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES),
+        HOUR(ChronoUnit.HOURS),
+        DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        /**
+         * Start of the bucket containing a time
+         */
+        public LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+
+        /**
+         * Start of the following bucket
+         */
+        public LocalDateTime next(LocalDateTime bucketStart) {
+            return bucketStart.plus(1, unit);
+        }
+
+        /**
+         * Number of buckets from the one containing from up to to
+         */
+        public long bucketsBetween(LocalDateTime from, LocalDateTime to) {
+            return unit.between(truncate(from), to);
+        }
+
+        /**
+         * Parse a granularity name (case-insensitive)
+         * @return Granularity, or null if unknown
+         */
+        public static Granularity parse(String name) {
+            for (Granularity granularity : values()) {
+                if (granularity.name().equalsIgnoreCase(name)) {
+                    return granularity;
+                }
+            }
+            return null;
+        }
+    }
+
+    private Granularity granularity;
+    private LocalDateTime bucketStart;
+    private String status;
+    private String paymentMethod;
+    private long orderCount;
+    private double revenue;
+
+    /**
+     * Default constructor
+     */
+    public RevenueBucket() {
+    }
+
+    /**
+     * Full constructor
+     */
+    public RevenueBucket(Granularity granularity, LocalDateTime bucketStart, String status,
+                         String paymentMethod, long orderCount, double revenue) {
+        this.granularity = granularity;
+        this.bucketStart = bucketStart;
+        this.status = status;
+        this.paymentMethod = paymentMethod;
+        this.orderCount = orderCount;
+        this.revenue = revenue;
+    }
+
+    // ================================
+    // Getters and Setters
+    // ================================
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public void setGranularity(Granularity granularity) {
+        this.granularity = granularity;
+    }
+
+    public LocalDateTime getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(LocalDateTime bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getPaymentMethod() {
+        return paymentMethod;
+    }
+
+    public void setPaymentMethod(String paymentMethod) {
+        this.paymentMethod = paymentMethod;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public double getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(double revenue) {
+        this.revenue = revenue;
+    }
+
+    @Override
+    public String toString() {
+        return "RevenueBucket{" +
+                "granularity=" + granularity +
+                ", bucketStart=" + bucketStart +
+                ", status='" + status + '\'' +
+                ", paymentMethod='" + paymentMethod + '\'' +
+                ", orderCount=" + orderCount +
+                ", revenue=" + revenue +
+                '}';
+    }
+}
@@ -0,0 +1,38 @@
+package model;
+
+import java.io.Serializable;
+
+/**
+ * Session Principal
+ * The only thing stored in HttpSession for a logged-in user
+ *
+ * Immutable and deliberately small: just the user ID and login time.
+ * Everything that can change while the session is alive (role, status,
+ * name) is looked up through the server-side user cache, so an admin
+ * demoting or suspending a user takes effect on that user's next request.
+ */
+public final class SessionPrincipal implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int userId;
+    private final long loginTimeMillis;
+
+    public SessionPrincipal(int userId, long loginTimeMillis) {
+        this.userId = userId;
+        this.loginTimeMillis = loginTimeMillis;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public long getLoginTimeMillis() {
+        return loginTimeMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "SessionPrincipal{userId=" + userId + ", loginTimeMillis=" + loginTimeMillis + '}';
+    }
+}
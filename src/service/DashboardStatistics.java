@@ -0,0 +1,278 @@
+package service;
+
+import dao.OrderDAO;
+import dao.UserDAO;
+import util.AppLogger;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dashboard Statistics
+ * Running totals for the admin dashboard (orders, orders per status,
+ * revenue, users), so a dashboard refresh costs no queries
+ *
+ * Seeded once from the database (at startup, and again on demand), then
+ * kept current by the write paths in OrderService and UserService, which
+ * report each change as a delta. The product count comes from the
+ * catalog cache, which product writes already keep current.
+ *
+ * Revenue excludes cancelled orders, like OrderDAO.getTotalRevenue, and
+ * is held in cents so concurrent deltas add up exactly. Changes made
+ * directly in the database are not seen as deltas; resync() reseeds
+ * everything.
+ *
+ * Shared by every service instance (one set of totals per web application).
+ */
+public class DashboardStatistics {
+
+    private static final AppLogger LOG = AppLogger.getLogger(DashboardStatistics.class);
+
+    private static final String CANCELLED = "cancelled";
+
+    // Seeded per status so the map is complete even when a status has no orders
+    private static final String[] ORDER_STATUSES =
+            {"pending", "confirmed", "preparing", "ready", "delivered", CANCELLED};
+
+    private static final DashboardStatistics INSTANCE = new DashboardStatistics();
+
+    private final OrderDAO orderDAO;
+    private final UserDAO userDAO;
+
+    private final LongAdder orders = new LongAdder();
+    private final LongAdder revenueCents = new LongAdder();
+    private final LongAdder users = new LongAdder();
+    private final ConcurrentHashMap<String, LongAdder> ordersByStatus = new ConcurrentHashMap<>();
+
+    private volatile boolean ordersSeeded;
+    private volatile boolean usersSeeded;
+    private volatile long seededAtMillis;
+
+    private DashboardStatistics() {
+        this.orderDAO = new OrderDAO();
+        this.userDAO = new UserDAO();
+    }
+
+    /**
+     * Get the shared statistics
+     */
+    public static DashboardStatistics getInstance() {
+        return INSTANCE;
+    }
+
+    // ================================
+    // Seeding
+    // ================================
+
+    /**
+     * Reseed every total from the database
+     * @return true if all totals were loaded
+     */
+    public synchronized boolean resync() {
+        ordersSeeded = false;
+        usersSeeded = false;
+        return ensureSeeded();
+    }
+
+    /**
+     * Load whichever totals are not seeded yet
+     *
+     * Deltas reported while a seed query runs may be counted twice or not
+     * at all; that window is only open at startup and on resync.
+     */
+    private synchronized boolean ensureSeeded() {
+        try {
+            if (!ordersSeeded) {
+                long start = System.currentTimeMillis();
+
+                ordersByStatus.clear();
+                long total = 0;
+                for (String status : ORDER_STATUSES) {
+                    int count = orderDAO.getOrderCountByStatus(status);
+                    statusCounter(status).add(count);
+                    total += count;
+                }
+
+                reset(orders, total);
+                reset(revenueCents, toCents(orderDAO.getTotalRevenue()));
+                ordersSeeded = true;
+                seededAtMillis = System.currentTimeMillis();
+
+                LOG.info("Dashboard order statistics seeded", "orders", total,
+                        "ms", seededAtMillis - start);
+            }
+
+            if (!usersSeeded) {
+                reset(users, userDAO.getTotalUserCount());
+                usersSeeded = true;
+            }
+
+            return true;
+
+        } catch (SQLException e) {
+            LOG.error("Error seeding dashboard statistics", "error", e.getMessage());
+            return false;
+        }
+    }
+
+    // ================================
+    // Deltas (called after a successful write)
+    // ================================
+
+    /**
+     * A new order was committed
+     */
+    public void orderCreated(String status, double totalAmount) {
+        orders.increment();
+        statusCounter(status).increment();
+        if (!CANCELLED.equals(status)) {
+            revenueCents.add(toCents(totalAmount));
+        }
+    }
+
+    /**
+     * An order moved from one status to another
+     */
+    public void orderStatusChanged(String oldStatus, String newStatus, double totalAmount) {
+        if (oldStatus == null || oldStatus.equals(newStatus)) {
+            return;
+        }
+
+        statusCounter(oldStatus).decrement();
+        statusCounter(newStatus).increment();
+
+        if (CANCELLED.equals(newStatus)) {
+            revenueCents.add(-toCents(totalAmount));
+        } else if (CANCELLED.equals(oldStatus)) {
+            revenueCents.add(toCents(totalAmount));
+        }
+    }
+
+    /**
+     * An order was deleted
+     */
+    public void orderDeleted(String status, double totalAmount) {
+        orders.decrement();
+        statusCounter(status).decrement();
+        if (!CANCELLED.equals(status)) {
+            revenueCents.add(-toCents(totalAmount));
+        }
+    }
+
+    /**
+     * A user registered
+     */
+    public void userCreated() {
+        users.increment();
+    }
+
+    /**
+     * A user was deleted (their orders are reported separately via orderDeleted)
+     */
+    public void userDeleted() {
+        users.decrement();
+    }
+
+    // ================================
+    // Reading
+    // ================================
+
+    /**
+     * Current totals
+     * @return Summary, or null if the totals could not be seeded
+     */
+    public Summary getSummary() {
+        if ((!ordersSeeded || !usersSeeded) && !ensureSeeded()) {
+            return null;
+        }
+
+        int products;
+        try {
+            products = ProductCatalogCache.getInstance().getSnapshot().getAllProducts().size();
+        } catch (SQLException e) {
+            LOG.error("Error counting products for dashboard", "error", e.getMessage());
+            return null;
+        }
+
+        Map<String, Long> byStatus = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : ordersByStatus.entrySet()) {
+            byStatus.put(entry.getKey(), entry.getValue().sum());
+        }
+
+        return new Summary(products, orders.sum(), revenueCents.sum() / 100.0, users.sum(),
+                byStatus, seededAtMillis);
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    private LongAdder statusCounter(String status) {
+        return ordersByStatus.computeIfAbsent(status != null ? status : "pending", key -> new LongAdder());
+    }
+
+    private static void reset(LongAdder adder, long value) {
+        adder.reset();
+        adder.add(value);
+    }
+
+    private static long toCents(double amount) {
+        return Math.round(amount * 100.0);
+    }
+
+    // ================================
+    // Summary
+    // ================================
+
+    /**
+     * Point-in-time dashboard totals
+     */
+    public static class Summary {
+        private final int totalProducts;
+        private final long totalOrders;
+        private final double totalRevenue;
+        private final long totalUsers;
+        private final Map<String, Long> ordersByStatus;
+        private final long seededAt;
+
+        Summary(int totalProducts, long totalOrders, double totalRevenue, long totalUsers,
+                Map<String, Long> ordersByStatus, long seededAt) {
+            this.totalProducts = totalProducts;
+            this.totalOrders = totalOrders;
+            this.totalRevenue = totalRevenue;
+            this.totalUsers = totalUsers;
+            this.ordersByStatus = Collections.unmodifiableMap(ordersByStatus);
+            this.seededAt = seededAt;
+        }
+
+        public int getTotalProducts() {
+            return totalProducts;
+        }
+
+        public long getTotalOrders() {
+            return totalOrders;
+        }
+
+        public double getTotalRevenue() {
+            return totalRevenue;
+        }
+
+        public long getTotalUsers() {
+            return totalUsers;
+        }
+
+        public Map<String, Long> getOrdersByStatus() {
+            return ordersByStatus;
+        }
+
+        /**
+         * When the order totals were last loaded from the database (epoch millis)
+         */
+        public long getSeededAt() {
+            return seededAt;
+        }
+    }
+}
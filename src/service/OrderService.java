@@ -2,11 +2,23 @@ package service;
 
 import dao.OrderDAO;
 import dao.OrderItemDAO;
+import dao.ProductDAO;
 import model.Order;
 import model.OrderItem;
+import model.RevenueBucket;
+import util.AppLogger;
+import util.DBConnection;
+import util.MetricsRegistry;
+import util.OrderPlacementEvent;
+import util.Page;
+import util.PageCursor;
+import java.io.IOException;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Order Service Class
@@ -15,9 +27,20 @@ import java.util.List;
  */
 public class OrderService {
     
+    private static final AppLogger LOG = AppLogger.getLogger(OrderService.class);
+    
+    private static final MetricsRegistry.Timer CREATE_ORDER_TIMER =
+            MetricsRegistry.getInstance().timer(MetricsRegistry.Family.SERVICE, "OrderService.createOrder");
+    private static final MetricsRegistry.Timer CHANGE_STATUS_TIMER =
+            MetricsRegistry.getInstance().timer(MetricsRegistry.Family.SERVICE, "OrderService.changeOrderStatus");
+    
     private OrderDAO orderDAO;
     private OrderItemDAO orderItemDAO;
+    private ProductDAO productDAO;
     private ProductService productService;
+    private DashboardStatistics statistics;
+    private RevenueRollup revenueRollup;
+    private PopularProducts popularProducts;
     
     /**
      * Constructor
@@ -25,7 +48,11 @@ public class OrderService {
     public OrderService() {
         this.orderDAO = new OrderDAO();
         this.orderItemDAO = new OrderItemDAO();
+        this.productDAO = new ProductDAO();
         this.productService = new ProductService();
+        this.statistics = DashboardStatistics.getInstance();
+        this.revenueRollup = RevenueRollup.getInstance();
+        this.popularProducts = PopularProducts.getInstance();
     }
     
     // ================================
@@ -35,72 +62,132 @@ public class OrderService {
     /**
      * Create a new order with items
      * This is a transaction operation - all or nothing
+     *
+     * Runs on one connection and commits once:
+     * 1. reserve stock for every line (one UPDATE batch)
+     * 2. insert the order header
+     * 3. insert all order lines (one sequence query for their IDs, one INSERT batch)
+     * Any failure rolls the whole transaction back, so no compensating
+     * cancel is needed and the round trips do not grow with the cart size.
+     * The revenue rollup is updated after commit, outside the transaction.
      * @param order Order object (without items)
      * @param orderItems List of order items
      * @return Created order with ID and items, or null if failed
      */
     public Order createOrder(Order order, List<OrderItem> orderItems) {
+        // Validate order data
+        if (!validateOrder(order, orderItems)) {
+            return null;
+        }
+        
+        long startNanos = System.nanoTime();
+        OrderPlacementEvent event = new OrderPlacementEvent();
+        event.begin();
+        
+        Connection conn = DBConnection.getConnection();
+        
+        if (conn == null) {
+            LOG.error("Failed to create order: no database connection");
+            CREATE_ORDER_TIMER.record(System.nanoTime() - startNanos, true);
+            commitEvent(event, order, orderItems, "error");
+            return null;
+        }
+        
+        boolean committed = false;
+        boolean failed = false;
+        String outcome = "failed";
+        
         try {
-            // Validate order data
-            if (!validateOrder(order, orderItems)) {
-                return null;
-            }
-            
-            // Check stock availability for all items
-            for (OrderItem item : orderItems) {
-                if (!productService.hasStock(item.getProductId(), item.getQuantity())) {
-                    System.out.println("Insufficient stock for product ID: " + item.getProductId());
-                    return null;
+            // Reserve stock for all items (conditional decrements, one batch)
+            long phaseStart = System.nanoTime();
+            List<OrderItem> failedItems = productDAO.reserveStock(conn, orderItems);
+            event.stockReservationTime = System.nanoTime() - phaseStart;
+            
+            if (!failedItems.isEmpty()) {
+                for (OrderItem item : failedItems) {
+                    LOG.info("Insufficient stock", "productId", item.getProductId(), "requested", item.getQuantity());
                 }
+                outcome = "outOfStock";
+                return null;
             }
             
             // Insert order
-            int orderId = orderDAO.insertOrder(order);
+            phaseStart = System.nanoTime();
+            int orderId = orderDAO.insertOrder(conn, order);
             
             if (orderId <= 0) {
-                System.out.println("Failed to create order");
+                LOG.warn("Failed to create order");
                 return null;
             }
             
-            order.setOrderId(orderId);
-            
-            // Insert order items
-            boolean allItemsInserted = true;
+            // Insert order items in one batch
             for (OrderItem item : orderItems) {
                 item.setOrderId(orderId);
-                int itemId = orderItemDAO.insertOrderItem(item);
-                
-                if (itemId <= 0) {
-                    allItemsInserted = false;
-                    System.out.println("Failed to insert order item for product ID: " + item.getProductId());
-                    break;
-                }
-                
-                item.setOrderItemId(itemId);
-                
-                // Decrease product stock
-                if (!productService.decreaseStock(item.getProductId(), item.getQuantity())) {
-                    allItemsInserted = false;
-                    System.out.println("Failed to decrease stock for product ID: " + item.getProductId());
-                    break;
-                }
             }
             
-            // If any item failed, rollback by cancelling the order
-            if (!allItemsInserted) {
-                cancelOrder(orderId);
+            if (!orderItemDAO.insertOrderItemsBatch(conn, orderItems)) {
+                LOG.warn("Failed to insert order items", "orderId", orderId);
                 return null;
             }
+            event.insertTime = System.nanoTime() - phaseStart;
+            
+            // Commit everything at once
+            phaseStart = System.nanoTime();
+            conn.commit();
+            committed = true;
+            event.commitTime = System.nanoTime() - phaseStart;
             
+            // Catalog cache shows the new stock levels
+            productService.onStockChanged(orderItems);
+            String status = order.getStatus() != null ? order.getStatus() : "pending";
+            revenueRollup.record(revenueRollup.deltas(order, status, 1));
+            statistics.orderCreated(status, order.getTotalAmount());
+            popularProducts.orderPlaced(orderItems);
+            
+            order.setOrderId(orderId);
             order.setOrderItems(orderItems);
-            System.out.println("Order created successfully: ID " + orderId);
+            outcome = "created";
+            LOG.info("Order created", "orderId", orderId, "userId", order.getUserId(), "items", orderItems.size());
             return order;
             
         } catch (SQLException e) {
-            System.err.println("Error creating order: " + e.getMessage());
-            e.printStackTrace();
+            failed = true;
+            outcome = "error";
+            LOG.error("Error creating order", e);
             return null;
+            
+        } finally {
+            if (committed) {
+                DBConnection.closeConnection(conn);
+            } else {
+                DBConnection.rollbackAndClose(conn);
+            }
+            CREATE_ORDER_TIMER.record(System.nanoTime() - startNanos, failed);
+            commitEvent(event, order, orderItems, outcome);
+        }
+    }
+    
+    /**
+     * Fill in and commit the flight recorder event of a createOrder call
+     * (skipped unless a recording has the event enabled)
+     */
+    private void commitEvent(OrderPlacementEvent event, Order order, List<OrderItem> orderItems, String outcome) {
+        if (!event.shouldCommit()) {
+            return;
+        }
+        
+        int quantity = 0;
+        for (OrderItem item : orderItems) {
+            quantity += item.getQuantity();
         }
+        
+        event.orderId = order.getOrderId();
+        event.userId = order.getUserId();
+        event.items = orderItems.size();
+        event.quantity = quantity;
+        event.amount = order.getTotalAmount();
+        event.outcome = outcome;
+        event.commit();
     }
     
     /**
@@ -109,13 +196,13 @@ public class OrderService {
     private boolean validateOrder(Order order, List<OrderItem> orderItems) {
         // Check user ID
         if (order.getUserId() <= 0) {
-            System.out.println("Invalid user ID");
+            LOG.debug("Invalid user ID");
             return false;
         }
         
         // Check delivery address
         if (order.getDeliveryAddress() == null || order.getDeliveryAddress().trim().isEmpty()) {
-            System.out.println("Delivery address cannot be empty");
+            LOG.debug("Delivery address cannot be empty");
             return false;
         }
         
@@ -123,34 +210,34 @@ public class OrderService {
         String paymentMethod = order.getPaymentMethod();
         if (paymentMethod == null || (!paymentMethod.equals("cash") && 
             !paymentMethod.equals("card") && !paymentMethod.equals("online"))) {
-            System.out.println("Invalid payment method: " + paymentMethod);
+            LOG.debug("Invalid payment method", "paymentMethod", paymentMethod);
             return false;
         }
         
         // Check total amount
         if (order.getTotalAmount() <= 0) {
-            System.out.println("Total amount must be greater than 0");
+            LOG.debug("Total amount must be greater than 0");
             return false;
         }
         
         // Check order items
         if (orderItems == null || orderItems.isEmpty()) {
-            System.out.println("Order must contain at least one item");
+            LOG.debug("Order must contain at least one item");
             return false;
         }
         
         // Validate each order item
         for (OrderItem item : orderItems) {
             if (item.getProductId() <= 0) {
-                System.out.println("Invalid product ID in order item");
+                LOG.debug("Invalid product ID in order item");
                 return false;
             }
             if (item.getQuantity() <= 0) {
-                System.out.println("Item quantity must be greater than 0");
+                LOG.debug("Item quantity must be greater than 0");
                 return false;
             }
             if (item.getUnitPrice() < 0) {
-                System.out.println("Item unit price cannot be negative");
+                LOG.debug("Item unit price cannot be negative");
                 return false;
             }
         }
@@ -178,7 +265,7 @@ public class OrderService {
             return order;
             
         } catch (SQLException e) {
-            System.err.println("Error getting order by ID: " + e.getMessage());
+            LOG.error("Error getting order by ID", "error", e.getMessage());
             return null;
         }
     }
@@ -190,16 +277,13 @@ public class OrderService {
         try {
             List<Order> orders = orderDAO.getOrdersByUserId(userId);
             
-            // Load items for each order
-            for (Order order : orders) {
-                List<OrderItem> items = orderItemDAO.getOrderItemsByOrderId(order.getOrderId());
-                order.setOrderItems(items);
-            }
+            // Load items for all orders in one batch
+            loadOrderItems(orders);
             
             return orders;
             
         } catch (SQLException e) {
-            System.err.println("Error getting orders by user ID: " + e.getMessage());
+            LOG.error("Error getting orders by user ID", "error", e.getMessage());
             return null;
         }
     }
@@ -211,7 +295,7 @@ public class OrderService {
         try {
             return orderItemDAO.getOrderItemsByOrderId(orderId);
         } catch (SQLException e) {
-            e.printStackTrace();
+            LOG.error("Error getting order items", e, "orderId", orderId);
             return new ArrayList<>();
         }
     }
@@ -223,16 +307,13 @@ public class OrderService {
         try {
             List<Order> orders = orderDAO.getOrdersByStatus(status);
             
-            // Load items for each order
-            for (Order order : orders) {
-                List<OrderItem> items = orderItemDAO.getOrderItemsByOrderId(order.getOrderId());
-                order.setOrderItems(items);
-            }
+            // Load items for all orders in one batch
+            loadOrderItems(orders);
             
             return orders;
             
         } catch (SQLException e) {
-            System.err.println("Error getting orders by status: " + e.getMessage());
+            LOG.error("Error getting orders by status", "error", e.getMessage());
             return null;
         }
     }
@@ -244,16 +325,65 @@ public class OrderService {
         try {
             List<Order> orders = orderDAO.getAllOrders();
             
-            // Load items for each order
-            for (Order order : orders) {
-                List<OrderItem> items = orderItemDAO.getOrderItemsByOrderId(order.getOrderId());
-                order.setOrderItems(items);
-            }
+            // Load items for all orders in one batch
+            loadOrderItems(orders);
             
             return orders;
             
         } catch (SQLException e) {
-            System.err.println("Error getting all orders: " + e.getMessage());
+            LOG.error("Error getting all orders", "error", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Stream all orders with items to a handler (for admin export), newest first
+     * @param handler Receives each order in turn
+     * @return true if every order was delivered, false on a database error
+     */
+    public boolean streamAllOrders(OrderDAO.OrderHandler handler) throws IOException {
+        try {
+            orderDAO.streamAllOrders(handler);
+            return true;
+            
+        } catch (SQLException e) {
+            LOG.error("Error streaming all orders", "error", e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Get one page of all orders (for admin), newest first
+     * @param after Cursor from the previous page, or null for the first page
+     * @param limit Page size
+     * @return Page with items attached, or null on error
+     */
+    public Page<Order> getAllOrdersPage(PageCursor after, int limit) {
+        try {
+            // One extra row tells us whether another page exists
+            List<Order> orders = orderDAO.getOrdersAfter(after, limit + 1);
+            return toOrderPage(orders, limit);
+            
+        } catch (SQLException e) {
+            LOG.error("Error getting orders page", "error", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Get one page of a user's orders, newest first
+     * @param userId User ID
+     * @param after Cursor from the previous page, or null for the first page
+     * @param limit Page size
+     * @return Page with items attached, or null on error
+     */
+    public Page<Order> getOrdersByUserIdPage(int userId, PageCursor after, int limit) {
+        try {
+            List<Order> orders = orderDAO.getOrdersByUserIdAfter(userId, after, limit + 1);
+            return toOrderPage(orders, limit);
+            
+        } catch (SQLException e) {
+            LOG.error("Error getting orders page by user ID", "error", e.getMessage());
             return null;
         }
     }
@@ -265,20 +395,53 @@ public class OrderService {
         try {
             List<Order> orders = orderDAO.getRecentOrders(userId, limit);
             
-            // Load items for each order
-            for (Order order : orders) {
-                List<OrderItem> items = orderItemDAO.getOrderItemsByOrderId(order.getOrderId());
-                order.setOrderItems(items);
-            }
+            // Load items for all orders in one batch
+            loadOrderItems(orders);
             
             return orders;
             
         } catch (SQLException e) {
-            System.err.println("Error getting recent orders: " + e.getMessage());
+            LOG.error("Error getting recent orders", "error", e.getMessage());
             return null;
         }
     }
     
+    /**
+     * Trim a limit + 1 result to one page, attach items and build the next cursor
+     */
+    private Page<Order> toOrderPage(List<Order> orders, int limit) throws SQLException {
+        String nextCursor = null;
+        
+        if (orders.size() > limit) {
+            orders = new ArrayList<>(orders.subList(0, limit));
+            Order last = orders.get(orders.size() - 1);
+            nextCursor = new PageCursor(last.getOrderDate(), last.getOrderId()).encode();
+        }
+        
+        loadOrderItems(orders);
+        return new Page<>(orders, nextCursor);
+    }
+    
+    /**
+     * Attach items to a list of orders using one batched query
+     * instead of one query per order
+     */
+    private void loadOrderItems(List<Order> orders) throws SQLException {
+        if (orders.isEmpty()) {
+            return;
+        }
+        
+        List<Integer> orderIds = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            orderIds.add(order.getOrderId());
+        }
+        
+        Map<Integer, List<OrderItem>> itemsByOrder = orderItemDAO.getOrderItemsByOrderIds(orderIds);
+        for (Order order : orders) {
+            order.setOrderItems(itemsByOrder.get(order.getOrderId()));
+        }
+    }
+    
     // ================================
     // Order Update
     // ================================
@@ -290,20 +453,20 @@ public class OrderService {
         try {
             // Validate status
             if (!isValidOrderStatus(newStatus)) {
-                System.out.println("Invalid order status: " + newStatus);
+                LOG.debug("Invalid order status", "status", newStatus);
                 return false;
             }
             
-            boolean success = orderDAO.updateOrderStatus(orderId, newStatus);
+            boolean success = changeOrderStatus(orderId, newStatus);
             
             if (success) {
-                System.out.println("Order status updated: ID " + orderId + " -> " + newStatus);
+                LOG.info("Order status updated", "orderId", orderId, "status", newStatus);
             }
             
             return success;
             
         } catch (SQLException e) {
-            System.err.println("Error updating order status: " + e.getMessage());
+            LOG.error("Error updating order status", "error", e.getMessage());
             return false;
         }
     }
@@ -316,14 +479,14 @@ public class OrderService {
             // Validate payment status
             if (!paymentStatus.equals("pending") && !paymentStatus.equals("paid") && 
                 !paymentStatus.equals("failed")) {
-                System.out.println("Invalid payment status: " + paymentStatus);
+                LOG.debug("Invalid payment status", "paymentStatus", paymentStatus);
                 return false;
             }
             
             return orderDAO.updatePaymentStatus(orderId, paymentStatus);
             
         } catch (SQLException e) {
-            System.err.println("Error updating payment status: " + e.getMessage());
+            LOG.error("Error updating payment status", "error", e.getMessage());
             return false;
         }
     }
@@ -334,14 +497,14 @@ public class OrderService {
     public boolean updateDeliveryAddress(int orderId, String newAddress) {
         try {
             if (newAddress == null || newAddress.trim().isEmpty()) {
-                System.out.println("Delivery address cannot be empty");
+                LOG.debug("Delivery address cannot be empty");
                 return false;
             }
             
             return orderDAO.updateDeliveryAddress(orderId, newAddress);
             
         } catch (SQLException e) {
-            System.err.println("Error updating delivery address: " + e.getMessage());
+            LOG.error("Error updating delivery address", "error", e.getMessage());
             return false;
         }
     }
@@ -359,32 +522,30 @@ public class OrderService {
             Order order = getOrderById(orderId);
             
             if (order == null) {
-                System.out.println("Order not found: ID " + orderId);
+                LOG.info("Order not found", "orderId", orderId);
                 return false;
             }
             
             // Check if order can be cancelled
             if (order.isCompleted() || order.isCancelled()) {
-                System.out.println("Cannot cancel order in status: " + order.getStatus());
+                LOG.info("Cannot cancel order in this status", "orderId", orderId, "status", order.getStatus());
                 return false;
             }
             
-            // Restore stock for all items
-            for (OrderItem item : order.getOrderItems()) {
-                productService.increaseStock(item.getProductId(), item.getQuantity());
-            }
+            // Restore stock for all items in one batch
+            productService.releaseStock(order.getOrderItems());
             
             // Update order status to cancelled
-            boolean success = orderDAO.updateOrderStatus(orderId, "cancelled");
+            boolean success = changeOrderStatus(orderId, "cancelled");
             
             if (success) {
-                System.out.println("Order cancelled successfully: ID " + orderId);
+                LOG.info("Order cancelled", "orderId", orderId);
             }
             
             return success;
             
         } catch (SQLException e) {
-            System.err.println("Error cancelling order: " + e.getMessage());
+            LOG.error("Error cancelling order", "error", e.getMessage());
             return false;
         }
     }
@@ -397,18 +558,91 @@ public class OrderService {
      * Delete order (admin only, cascades to order items)
      */
     public boolean deleteOrder(int orderId) {
+        Connection conn = DBConnection.getConnection();
+        
+        if (conn == null) {
+            LOG.error("Failed to delete order: no database connection", "orderId", orderId);
+            return false;
+        }
+        
+        boolean committed = false;
+        
         try {
-            boolean success = orderDAO.deleteOrder(orderId);
+            // Lock the order so its rollup buckets are adjusted with the values being deleted
+            Order current = orderDAO.lockOrder(conn, orderId);
             
-            if (success) {
-                System.out.println("Order deleted successfully: ID " + orderId);
+            if (current == null || !orderDAO.deleteOrder(conn, orderId)) {
+                return false;
             }
             
-            return success;
+            conn.commit();
+            committed = true;
+            
+            revenueRollup.record(revenueRollup.deltas(current, current.getStatus(), -1));
+            statistics.orderDeleted(current.getStatus(), current.getTotalAmount());
+            LOG.info("Order deleted", "orderId", orderId);
+            return true;
             
         } catch (SQLException e) {
-            System.err.println("Error deleting order: " + e.getMessage());
+            LOG.error("Error deleting order", "error", e.getMessage());
             return false;
+            
+        } finally {
+            if (committed) {
+                DBConnection.closeConnection(conn);
+            } else {
+                DBConnection.rollbackAndClose(conn);
+            }
+        }
+    }
+    
+    /**
+     * Set an order's status, then move it between revenue rollup buckets after commit
+     * @return true if the order exists and was updated
+     */
+    private boolean changeOrderStatus(int orderId, String newStatus) throws SQLException {
+        long startNanos = System.nanoTime();
+        Connection conn = DBConnection.getConnection();
+        
+        if (conn == null) {
+            CHANGE_STATUS_TIMER.record(System.nanoTime() - startNanos, true);
+            throw new SQLException("No database connection");
+        }
+        
+        boolean committed = false;
+        boolean failed = false;
+        
+        try {
+            // Lock the order so the status it leaves is the one it really had
+            Order current = orderDAO.lockOrder(conn, orderId);
+            
+            if (current == null || !orderDAO.updateOrderStatus(conn, orderId, newStatus)) {
+                return false;
+            }
+            
+            conn.commit();
+            committed = true;
+            
+            if (!newStatus.equals(current.getStatus())) {
+                List<RevenueBucket> rollupDeltas = new ArrayList<>();
+                rollupDeltas.addAll(revenueRollup.deltas(current, current.getStatus(), -1));
+                rollupDeltas.addAll(revenueRollup.deltas(current, newStatus, 1));
+                revenueRollup.record(rollupDeltas);
+            }
+            statistics.orderStatusChanged(current.getStatus(), newStatus, current.getTotalAmount());
+            return true;
+            
+        } catch (SQLException e) {
+            failed = true;
+            throw e;
+            
+        } finally {
+            if (committed) {
+                DBConnection.closeConnection(conn);
+            } else {
+                DBConnection.rollbackAndClose(conn);
+            }
+            CHANGE_STATUS_TIMER.record(System.nanoTime() - startNanos, failed);
         }
     }
     
@@ -416,6 +650,36 @@ public class OrderService {
     // Statistics
     // ================================
     
+    /**
+     * Get order count and revenue in a time range from the revenue rollup
+     * @param status Only this status, or null for every status except cancelled
+     * @param paymentMethod Only this payment method, or null for all
+     * @return Totals, or null if failed
+     */
+    public RevenueBucket getRevenueTotals(LocalDateTime from, LocalDateTime to,
+                                          String status, String paymentMethod) {
+        try {
+            return revenueRollup.getTotals(from, to, status, paymentMethod);
+        } catch (SQLException e) {
+            LOG.error("Error getting revenue totals", "error", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Get order count and revenue per time bucket from the revenue rollup
+     * @return Non-empty buckets in time order, or null if failed
+     */
+    public List<RevenueBucket> getRevenueSeries(RevenueBucket.Granularity granularity, LocalDateTime from,
+                                                LocalDateTime to, String status, String paymentMethod) {
+        try {
+            return revenueRollup.getSeries(granularity, from, to, status, paymentMethod);
+        } catch (SQLException e) {
+            LOG.error("Error getting revenue series", "error", e.getMessage());
+            return null;
+        }
+    }
+    
     /**
      * Get total order count
      */
@@ -423,7 +687,7 @@ public class OrderService {
         try {
             return orderDAO.getTotalOrderCount();
         } catch (SQLException e) {
-            System.err.println("Error getting order count: " + e.getMessage());
+            LOG.error("Error getting order count", "error", e.getMessage());
             return 0;
         }
     }
@@ -435,7 +699,7 @@ public class OrderService {
         try {
             return orderDAO.getOrderCountByUser(userId);
         } catch (SQLException e) {
-            System.err.println("Error getting order count by user: " + e.getMessage());
+            LOG.error("Error getting order count by user", "error", e.getMessage());
             return 0;
         }
     }
@@ -447,7 +711,7 @@ public class OrderService {
         try {
             return orderDAO.getOrderCountByStatus(status);
         } catch (SQLException e) {
-            System.err.println("Error getting order count by status: " + e.getMessage());
+            LOG.error("Error getting order count by status", "error", e.getMessage());
             return 0;
         }
     }
@@ -459,7 +723,7 @@ public class OrderService {
         try {
             return orderDAO.getTotalRevenue();
         } catch (SQLException e) {
-            System.err.println("Error getting total revenue: " + e.getMessage());
+            LOG.error("Error getting total revenue", "error", e.getMessage());
             return 0.0;
         }
     }
@@ -471,7 +735,7 @@ public class OrderService {
         try {
             return orderDAO.getRevenueByUser(userId);
         } catch (SQLException e) {
-            System.err.println("Error getting revenue by user: " + e.getMessage());
+            LOG.error("Error getting revenue by user", "error", e.getMessage());
             return 0.0;
         }
     }
@@ -0,0 +1,177 @@
+package service;
+
+import util.AppLogger;
+import util.LegacySha256PasswordHasher;
+import util.PasswordHasher;
+import util.Pbkdf2PasswordHasher;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Password Service
+ * Hashes and verifies passwords on a dedicated, bounded thread pool
+ *
+ * Password hashing is deliberately expensive. Running it on request
+ * threads would let a login burst occupy every CPU and starve order
+ * traffic, so all hashing goes through a small fixed pool with a bounded
+ * queue. When the queue is full, or the result does not arrive within
+ * the timeout, the call fails fast instead of piling up.
+ *
+ * Configuration (system properties):
+ *   foodhub.password.iterations - PBKDF2 cost (default 310000; see PasswordHashCalibrator)
+ *   foodhub.password.threads    - hashing threads (default: half the CPUs)
+ *   foodhub.password.queueSize  - waiting hash jobs before rejecting (default 64)
+ *   foodhub.password.timeoutMs  - longest a caller waits for a result (default 5000)
+ */
+public class PasswordService {
+
+    private static final AppLogger LOG = AppLogger.getLogger(PasswordService.class);
+
+    private static final int ITERATIONS = Integer.getInteger("foodhub.password.iterations", 310_000);
+    private static final int THREADS = Integer.getInteger("foodhub.password.threads",
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    private static final int QUEUE_SIZE = Integer.getInteger("foodhub.password.queueSize", 64);
+    private static final long TIMEOUT_MILLIS = Long.getLong("foodhub.password.timeoutMs", 5000L);
+
+    private static final PasswordService INSTANCE = new PasswordService();
+
+    // Current scheme for new hashes; older schemes are only verified
+    private final PasswordHasher currentHasher;
+    private final PasswordHasher[] legacyHashers;
+    private final ThreadPoolExecutor executor;
+
+    private PasswordService() {
+        this.currentHasher = new Pbkdf2PasswordHasher(ITERATIONS);
+        this.legacyHashers = new PasswordHasher[]{new LegacySha256PasswordHasher()};
+        this.executor = new ThreadPoolExecutor(THREADS, THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE), new HasherThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Get the shared password service
+     */
+    public static PasswordService getInstance() {
+        return INSTANCE;
+    }
+
+    // ================================
+    // Hashing and Verification
+    // ================================
+
+    /**
+     * Hash a password with the current scheme
+     * @return Encoded hash, or null if the hashing pool is overloaded
+     */
+    public String hash(String password) {
+        return run(() -> currentHasher.hash(password));
+    }
+
+    /**
+     * Verify a password against a stored hash of any supported scheme
+     * @return Outcome of the check (never null)
+     */
+    public Verification verify(String password, String storedHash) {
+        Verification result = run(() -> {
+            PasswordHasher hasher = hasherFor(storedHash);
+            if (hasher == null || !hasher.verify(password, storedHash)) {
+                return Verification.MISMATCH;
+            }
+            return hasher.needsRehash(storedHash) ? Verification.MATCH_NEEDS_REHASH : Verification.MATCH;
+        });
+        return result != null ? result : Verification.UNAVAILABLE;
+    }
+
+    /**
+     * Stop the hashing threads (called when the web application stops)
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    private PasswordHasher hasherFor(String storedHash) {
+        if (currentHasher.supports(storedHash)) {
+            return currentHasher;
+        }
+        for (PasswordHasher hasher : legacyHashers) {
+            if (hasher.supports(storedHash)) {
+                return hasher;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Run a hashing job on the pool and wait for it
+     * @return Job result, or null if rejected, timed out or failed
+     */
+    private <T> T run(Callable<T> job) {
+        Future<T> future;
+        try {
+            future = executor.submit(job);
+        } catch (RejectedExecutionException e) {
+            LOG.warn("Password hashing rejected - pool is saturated");
+            return null;
+        }
+
+        try {
+            return future.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            LOG.warn("Password hashing timed out", "timeoutMs", TIMEOUT_MILLIS);
+            return null;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            LOG.error("Password hashing failed", e.getCause());
+            return null;
+        }
+    }
+
+    // ================================
+    // Nested Types
+    // ================================
+
+    /**
+     * Outcome of a password check
+     */
+    public enum Verification {
+        MATCH,
+        MATCH_NEEDS_REHASH,
+        MISMATCH,
+        UNAVAILABLE; // Hashing pool overloaded - neither accepted nor rejected
+
+        public boolean matches() {
+            return this == MATCH || this == MATCH_NEEDS_REHASH;
+        }
+    }
+
+    /**
+     * Daemon threads named password-hasher-N
+     */
+    private static class HasherThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hasher-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
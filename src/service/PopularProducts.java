@@ -0,0 +1,333 @@
+package service;
+
+import dao.OrderItemDAO;
+import model.OrderItem;
+import model.Product;
+import util.AppLogger;
+import util.SpaceSaving;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Popular Products
+ * Best-selling products over the last hour, the last day and all time,
+ * tracked as orders are placed so "popular now" carousels and admin
+ * reports never scan order history
+ *
+ * Each window is a Space-Saving summary (see util.SpaceSaving) of
+ * quantity sold per product, holding a fixed number of products
+ * (foodhub.popular.capacity, 512 by default). Reading the top k costs
+ * O(k) whatever the order volume.
+ *
+ * The hour and day windows are exponentially decayed rather than cut off:
+ * a unit sold counts e^(-age / window), so an item's score is roughly what
+ * it sold in the last window and recent sales always rank first. Decay is
+ * applied forward (weights grow with time instead of old counts
+ * shrinking), which keeps updates O(log capacity).
+ *
+ * Seeded once from the database at startup, then fed by OrderService
+ * after each order commits. Cancelled and deleted orders are not
+ * subtracted: a popularity ranking is about demand, and Space-Saving
+ * counts cannot be decremented safely.
+ *
+ * Shared by every service instance (one tracker per web application).
+ */
+public class PopularProducts {
+
+    private static final AppLogger LOG = AppLogger.getLogger(PopularProducts.class);
+
+    /**
+     * Popularity window
+     */
+    public enum Window {
+        HOUR(Duration.ofHours(1)),
+        DAY(Duration.ofDays(1)),
+        ALL(null);
+
+        // Decay time constant, or null for no decay
+        private final Duration lifetime;
+
+        Window(Duration lifetime) {
+            this.lifetime = lifetime;
+        }
+
+        /**
+         * Parse a window name (case-insensitive)
+         * @return Window, or null if unknown
+         */
+        public static Window parse(String name) {
+            for (Window window : values()) {
+                if (window.name().equalsIgnoreCase(name)) {
+                    return window;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final int CAPACITY = Integer.getInteger("foodhub.popular.capacity", 512);
+
+    // Orders older than this barely register in the decayed windows (e^-3 < 5% of a day)
+    private static final Duration SEED_HISTORY = Duration.ofDays(3);
+
+    private static final PopularProducts INSTANCE = new PopularProducts();
+
+    private final OrderItemDAO orderItemDAO;
+    private final EnumMap<Window, Tracker> trackers = new EnumMap<>(Window.class);
+
+    private volatile boolean loaded;
+
+    private PopularProducts() {
+        this.orderItemDAO = new OrderItemDAO();
+
+        for (Window window : Window.values()) {
+            trackers.put(window, new Tracker(window.lifetime));
+        }
+    }
+
+    /**
+     * Get the shared popularity tracker
+     */
+    public static PopularProducts getInstance() {
+        return INSTANCE;
+    }
+
+    // ================================
+    // Seeding
+    // ================================
+
+    /**
+     * Reseed every window from the order history
+     *
+     * Orders placed while the seed queries run may be counted twice or not
+     * at all; that window is only open at startup.
+     * @return true if the windows were loaded
+     */
+    public synchronized boolean load() {
+        long start = System.currentTimeMillis();
+
+        try {
+            List<OrderItem> allTime = orderItemDAO.getMostPopularProducts(CAPACITY);
+            List<OrderItem> recent = orderItemDAO.getHourlyQuantitiesSince(
+                    new Timestamp(start - SEED_HISTORY.toMillis()));
+
+            for (Tracker tracker : trackers.values()) {
+                tracker.clear();
+            }
+
+            Tracker allTimeTracker = trackers.get(Window.ALL);
+            for (OrderItem item : allTime) {
+                allTimeTracker.offer(item.getProductId(), item.getQuantity(), start);
+            }
+
+            // Date each hour's sales at its midpoint (never in the future)
+            for (OrderItem item : recent) {
+                long soldAt = Math.min(item.getCreatedAt().getTime() + Duration.ofMinutes(30).toMillis(), start);
+                trackers.get(Window.HOUR).offer(item.getProductId(), item.getQuantity(), soldAt);
+                trackers.get(Window.DAY).offer(item.getProductId(), item.getQuantity(), soldAt);
+            }
+
+            loaded = true;
+
+            LOG.info("Popular products loaded", "allTimeProducts", allTime.size(),
+                    "recentHourlyRows", recent.size(), "ms", System.currentTimeMillis() - start);
+            return true;
+
+        } catch (SQLException e) {
+            LOG.error("Error loading popular products", "error", e.getMessage());
+            return false;
+        }
+    }
+
+    // ================================
+    // Updates (called after a successful write)
+    // ================================
+
+    /**
+     * An order with these items was committed
+     */
+    public void orderPlaced(List<OrderItem> items) {
+        long now = System.currentTimeMillis();
+
+        for (Tracker tracker : trackers.values()) {
+            for (OrderItem item : items) {
+                tracker.offer(item.getProductId(), item.getQuantity(), now);
+            }
+        }
+    }
+
+    // ================================
+    // Reading
+    // ================================
+
+    /**
+     * Get the most popular products in a window, most popular first
+     * @param limit Maximum number of products
+     * @param availableOnly Skip products that are not available or out of stock
+     * @return Ranked products (only those still in the catalog), or null if
+     *         the tracker could not be loaded
+     */
+    public List<Ranked> getTop(Window window, int limit, boolean availableOnly) {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        if (!loaded && !load()) {
+            return null;
+        }
+
+        ProductCatalogCache.Snapshot snapshot;
+        try {
+            snapshot = ProductCatalogCache.getInstance().getSnapshot();
+        } catch (SQLException e) {
+            LOG.error("Error reading catalog for popular products", "error", e.getMessage());
+            return null;
+        }
+
+        Tracker tracker = trackers.get(window);
+        List<Ranked> ranked = new ArrayList<>(limit);
+
+        // Read further down the ranking (doubling) when deleted or unavailable products are skipped
+        int want = limit;
+        while (true) {
+            List<SpaceSaving.Entry> entries = tracker.top(want);
+
+            ranked.clear();
+            for (SpaceSaving.Entry entry : entries) {
+                Product product = snapshot.getProductById(entry.getKey());
+                if (product == null || (availableOnly && !product.isAvailable())) {
+                    continue;
+                }
+                ranked.add(new Ranked(product, entry.getCount(), entry.getError()));
+                if (ranked.size() == limit) {
+                    return ranked;
+                }
+            }
+
+            if (entries.size() < want || want >= CAPACITY) {
+                return ranked;
+            }
+            want = Math.min(want * 2, CAPACITY);
+        }
+    }
+
+    /**
+     * Number of products tracked per window
+     */
+    public Map<Window, Integer> getTrackedCounts() {
+        Map<Window, Integer> counts = new EnumMap<>(Window.class);
+        for (Map.Entry<Window, Tracker> entry : trackers.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().size());
+        }
+        return counts;
+    }
+
+    // ================================
+    // Tracker
+    // ================================
+
+    /**
+     * One window: a Space-Saving summary with forward-decayed weights
+     *
+     * A unit sold at time t is stored as e^((t - landmark) / lifetime) and
+     * read back divided by e^((now - landmark) / lifetime). The landmark is
+     * moved forward (and the summary rescaled) before the exponent could
+     * overflow.
+     */
+    private static final class Tracker {
+
+        // e^500 is far from overflow; the hour window rescales about every 3 weeks
+        private static final double MAX_EXPONENT = 500.0;
+
+        private final SpaceSaving summary = new SpaceSaving(CAPACITY);
+        private final double lifetimeMillis;
+        private long landmarkMillis = System.currentTimeMillis();
+
+        Tracker(Duration lifetime) {
+            this.lifetimeMillis = lifetime != null ? lifetime.toMillis() : 0.0;
+        }
+
+        synchronized void offer(int productId, int quantity, long timeMillis) {
+            summary.offer(productId, quantity * growth(timeMillis));
+        }
+
+        synchronized List<SpaceSaving.Entry> top(int limit) {
+            if (lifetimeMillis == 0.0) {
+                return summary.top(limit);
+            }
+
+            // growth() may rescale the counters, so take the divisor before copying them
+            double decay = 1.0 / growth(System.currentTimeMillis());
+            List<SpaceSaving.Entry> entries = summary.top(limit);
+            List<SpaceSaving.Entry> decayed = new ArrayList<>(entries.size());
+            for (SpaceSaving.Entry entry : entries) {
+                decayed.add(entry.scaled(decay));
+            }
+            return decayed;
+        }
+
+        synchronized int size() {
+            return summary.size();
+        }
+
+        synchronized void clear() {
+            summary.clear();
+            landmarkMillis = System.currentTimeMillis();
+        }
+
+        /**
+         * Weight of one unit at a time, relative to the landmark
+         */
+        private double growth(long timeMillis) {
+            if (lifetimeMillis == 0.0) {
+                return 1.0;
+            }
+
+            if ((timeMillis - landmarkMillis) / lifetimeMillis > MAX_EXPONENT) {
+                summary.scale(Math.exp(-(timeMillis - landmarkMillis) / lifetimeMillis));
+                landmarkMillis = timeMillis;
+            }
+
+            return Math.exp((timeMillis - landmarkMillis) / lifetimeMillis);
+        }
+    }
+
+    // ================================
+    // Ranked
+    // ================================
+
+    /**
+     * A product and its popularity score in a window (units sold, decayed
+     * for the hour and day windows); the true score lies between
+     * score - error and score
+     */
+    public static class Ranked {
+        private final Product product;
+        private final double score;
+        private final double error;
+
+        Ranked(Product product, double score, double error) {
+            this.product = product;
+            this.score = score;
+            this.error = error;
+        }
+
+        public Product getProduct() {
+            return product;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        public double getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,403 @@
+package service;
+
+import dao.ProductDAO;
+import model.Product;
+import util.AppLogger;
+import util.Page;
+import util.PageCursor;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Product Catalog Cache
+ * Holds an immutable in-memory snapshot of the whole product catalog
+ *
+ * Catalog reads (list, get, filter by category/status, search, suggest) are served from the
+ * current snapshot and never touch the database. Product writes reload the
+ * affected rows after they commit and swap in a new snapshot atomically,
+ * so readers always see a complete, consistent catalog.
+ *
+ * Shared by every ProductService instance (one cache per web application).
+ */
+public class ProductCatalogCache {
+
+    private static final AppLogger LOG = AppLogger.getLogger(ProductCatalogCache.class);
+
+    // Full reload if the snapshot is older than this (catches edits made outside the app)
+    private static final long MAX_SNAPSHOT_AGE_MILLIS =
+            Long.getLong("foodhub.catalog.maxAgeMs", 5 * 60 * 1000L);
+
+    private static final ProductCatalogCache INSTANCE = new ProductCatalogCache();
+
+    private final ProductDAO productDAO;
+    private final AtomicLong versionCounter = new AtomicLong();
+
+    // Serializes reloads so the newest snapshot always reflects the newest commit
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    private ProductCatalogCache() {
+        this.productDAO = new ProductDAO();
+    }
+
+    /**
+     * Get the shared catalog cache
+     */
+    public static ProductCatalogCache getInstance() {
+        return INSTANCE;
+    }
+
+    // ================================
+    // Read Access
+    // ================================
+
+    /**
+     * Get the current catalog snapshot, loading it on first use
+     * @throws SQLException if the catalog has never been loaded and the load fails
+     */
+    public Snapshot getSnapshot() throws SQLException {
+        Snapshot current = snapshot;
+
+        if (current == null) {
+            reloadLock.lock();
+            try {
+                if (snapshot == null) {
+                    swap(loadAll());
+                }
+                return snapshot;
+            } finally {
+                reloadLock.unlock();
+            }
+        }
+
+        // Stale snapshot: one thread reloads, everyone else keeps reading the old one
+        if (current.getAgeMillis() > MAX_SNAPSHOT_AGE_MILLIS && reloadLock.tryLock()) {
+            try {
+                if (snapshot == current) {
+                    swap(loadAll());
+                }
+            } catch (SQLException e) {
+                LOG.error("Error refreshing product catalog", "error", e.getMessage());
+            } finally {
+                reloadLock.unlock();
+            }
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Current catalog version (0 if the catalog has not been loaded yet)
+     * Changes every time a new snapshot is swapped in
+     */
+    public long getVersion() {
+        Snapshot current = snapshot;
+        return current != null ? current.getVersion() : 0L;
+    }
+
+    // ================================
+    // Invalidation (called after writes commit)
+    // ================================
+
+    /**
+     * Reload the whole catalog from the database
+     */
+    public void refresh() {
+        reloadLock.lock();
+        try {
+            swap(loadAll());
+        } catch (SQLException e) {
+            LOG.error("Error refreshing product catalog", "error", e.getMessage());
+            snapshot = null; // Next read retries the load
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Reload specific products after they were inserted, updated or deleted
+     * Products that no longer exist are removed from the catalog
+     * @param productIds IDs of products changed by a committed write
+     */
+    public void reloadProducts(Collection<Integer> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+
+        reloadLock.lock();
+        try {
+            Snapshot current = snapshot;
+
+            if (current == null) {
+                return; // Nothing cached yet - first read loads everything
+            }
+
+            Map<Integer, Product> products = new HashMap<>(current.productsById);
+            for (Integer productId : productIds) {
+                products.remove(productId);
+            }
+            for (Product product : productDAO.getProductsByIds(productIds)) {
+                products.put(product.getProductId(), product);
+            }
+
+            swap(products.values());
+
+        } catch (SQLException e) {
+            LOG.error("Error reloading products", "productIds", productIds.toString(), "error", e.getMessage());
+            snapshot = null; // Next read retries the load
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Reload one product after a committed write
+     */
+    public void reloadProduct(int productId) {
+        reloadProducts(Collections.singletonList(productId));
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    private List<Product> loadAll() throws SQLException {
+        return productDAO.getAllProducts();
+    }
+
+    private void swap(Collection<Product> products) {
+        snapshot = new Snapshot(versionCounter.incrementAndGet(), products, snapshot);
+    }
+
+    // ================================
+    // Snapshot
+    // ================================
+
+    /**
+     * Immutable view of the catalog at one version
+     * Product objects inside a snapshot are shared and must be treated as read-only
+     *
+     * The search index only depends on product names and descriptions, and
+     * the suggest trie on names and statuses, so a reload that changed
+     * neither (e.g. the stock update after every order) takes them over
+     * from the previous snapshot instead of rebuilding them.
+     */
+    public static class Snapshot {
+
+        // Same order as ProductDAO.getAllProducts (newest first)
+        private static final Comparator<Product> NEWEST_FIRST = Comparator
+                .comparing(Product::getCreatedAt, Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(Comparator.comparingInt(Product::getProductId).reversed());
+
+        // Same order as the category/status queries (by name)
+        private static final Comparator<Product> BY_NAME = Comparator
+                .comparing(Product::getProductName, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparingInt(Product::getProductId);
+
+        private final long version;
+        private final long loadedAtMillis;
+        private final List<Product> allProducts;
+        private final Map<Integer, Product> productsById;
+        private final Map<String, List<Product>> productsByCategory;
+        private final Map<String, List<Product>> productsByStatus;
+        private final Map<String, List<Product>> newestByCategory;
+        private final Map<String, List<Product>> newestByStatus;
+        private final ProductSearchIndex searchIndex;
+        private final ProductSuggestTrie suggestTrie;
+
+        /**
+         * @param previous Snapshot being replaced (text indexes are reused from it when unchanged), or null
+         */
+        Snapshot(long version, Collection<Product> products, Snapshot previous) {
+            this.version = version;
+            this.loadedAtMillis = System.currentTimeMillis();
+
+            List<Product> all = new ArrayList<>(products);
+            all.sort(NEWEST_FIRST);
+            this.allProducts = Collections.unmodifiableList(all);
+
+            Map<Integer, Product> byId = new HashMap<>();
+            Map<String, List<Product>> byCategory = new HashMap<>();
+            Map<String, List<Product>> byStatus = new HashMap<>();
+
+            for (Product product : all) {
+                byId.put(product.getProductId(), product);
+                byCategory.computeIfAbsent(product.getCategory(), key -> new ArrayList<>()).add(product);
+                byStatus.computeIfAbsent(product.getStatus(), key -> new ArrayList<>()).add(product);
+            }
+
+            this.productsById = Collections.unmodifiableMap(byId);
+            this.newestByCategory = copyIndex(byCategory);
+            this.newestByStatus = copyIndex(byStatus);
+            this.productsByCategory = sortedIndex(byCategory);
+            this.productsByStatus = sortedIndex(byStatus);
+            this.searchIndex = previous != null && sameSearchText(previous, byId)
+                    ? previous.searchIndex
+                    : new ProductSearchIndex(all);
+            this.suggestTrie = previous != null && sameSuggestText(previous, byId)
+                    ? previous.suggestTrie
+                    : new ProductSuggestTrie(all);
+        }
+
+        /**
+         * True if the products are the previous snapshot's, with the same names and descriptions
+         */
+        private static boolean sameSearchText(Snapshot previous, Map<Integer, Product> byId) {
+            if (previous.productsById.size() != byId.size()) {
+                return false;
+            }
+            for (Product product : byId.values()) {
+                Product old = previous.productsById.get(product.getProductId());
+                if (old == null
+                        || !Objects.equals(old.getProductName(), product.getProductName())
+                        || !Objects.equals(old.getDescription(), product.getDescription())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * True if the products are the previous snapshot's, with the same names and discontinued flags
+         */
+        private static boolean sameSuggestText(Snapshot previous, Map<Integer, Product> byId) {
+            if (previous.productsById.size() != byId.size()) {
+                return false;
+            }
+            for (Product product : byId.values()) {
+                Product old = previous.productsById.get(product.getProductId());
+                if (old == null
+                        || !Objects.equals(old.getProductName(), product.getProductName())
+                        || ProductSuggestTrie.isExcluded(old) != ProductSuggestTrie.isExcluded(product)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Unmodifiable copy of an index, keeping each list's order
+         */
+        private static Map<String, List<Product>> copyIndex(Map<String, List<Product>> index) {
+            Map<String, List<Product>> copy = new HashMap<>();
+            for (Map.Entry<String, List<Product>> entry : index.entrySet()) {
+                copy.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+            }
+            return Collections.unmodifiableMap(copy);
+        }
+
+        private static Map<String, List<Product>> sortedIndex(Map<String, List<Product>> index) {
+            Map<String, List<Product>> sorted = new HashMap<>();
+            for (Map.Entry<String, List<Product>> entry : index.entrySet()) {
+                List<Product> products = entry.getValue();
+                products.sort(BY_NAME);
+                sorted.put(entry.getKey(), Collections.unmodifiableList(products));
+            }
+            return Collections.unmodifiableMap(sorted);
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        long getAgeMillis() {
+            return System.currentTimeMillis() - loadedAtMillis;
+        }
+
+        /**
+         * All products, newest first
+         */
+        public List<Product> getAllProducts() {
+            return allProducts;
+        }
+
+        /**
+         * Product by ID, or null if not found
+         */
+        public Product getProductById(int productId) {
+            return productsById.get(productId);
+        }
+
+        /**
+         * Products in a category, ordered by name
+         */
+        public List<Product> getProductsByCategory(String category) {
+            return productsByCategory.getOrDefault(category, Collections.emptyList());
+        }
+
+        /**
+         * Products with a status, ordered by name
+         */
+        public List<Product> getProductsByStatus(String status) {
+            return productsByStatus.getOrDefault(status, Collections.emptyList());
+        }
+
+        /**
+         * One page of products, newest first, by keyset over (createdAt, productId)
+         * Reads the newest-first list for the filter (all, one category or one
+         * status) and binary-searches it to the cursor, so a deep page costs the
+         * same as the first, with or without a filter
+         * @param after Cursor from the previous page, or null for the first page
+         * @param category Category filter ("all"/empty for none; takes precedence over status)
+         * @param status Status filter (empty for none)
+         * @param limit Page size (at least 1)
+         */
+        public Page<Product> getProductsPage(PageCursor after, String category, String status, int limit) {
+            List<Product> source;
+            if (category != null && !category.isEmpty() && !category.equals("all")) {
+                source = newestByCategory.getOrDefault(category, Collections.emptyList());
+            } else if (status != null && !status.isEmpty()) {
+                source = newestByStatus.getOrDefault(status, Collections.emptyList());
+            } else {
+                source = allProducts;
+            }
+
+            int start = 0;
+
+            if (after != null) {
+                Product probe = new Product();
+                probe.setCreatedAt(after.getTimestamp());
+                probe.setProductId(after.getId());
+
+                int index = Collections.binarySearch(source, probe, NEWEST_FIRST);
+                start = index >= 0 ? index + 1 : -index - 1;
+            }
+
+            int end = Math.min(start + limit, source.size());
+            List<Product> page = start < end ? source.subList(start, end) : Collections.emptyList();
+
+            String nextCursor = null;
+            if (end < source.size()) {
+                Product last = page.get(page.size() - 1);
+                nextCursor = new PageCursor(last.getCreatedAt(), last.getProductId()).encode();
+            }
+
+            return new Page<>(page, nextCursor);
+        }
+
+        /**
+         * Full-text search over name and description, most relevant first
+         */
+        public List<Product> search(String keyword) {
+            return searchIndex.search(keyword, productsById);
+        }
+
+        /**
+         * Typeahead suggestions (product names) for a prefix, best first
+         * The returned array is shared and must not be modified
+         */
+        public String[] suggest(String prefix) {
+            return suggestTrie.lookup(prefix);
+        }
+    }
+}
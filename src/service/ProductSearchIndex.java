@@ -0,0 +1,206 @@
+package service;
+
+import model.Product;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Product Search Index
+ * In-memory inverted index over product name and description
+ *
+ * Built from the catalog and never modified afterwards, so it needs no
+ * locking. It holds product IDs rather than Product objects: results are
+ * resolved through the current snapshot, which lets a new snapshot reuse
+ * the previous index when no name or description changed (the stock
+ * update after every order) and still return current stock and status. A query is tokenized the same way as the
+ * products; every query token must match (as a whole term or as a prefix
+ * of one) in the name or description. Results are ranked by relevance,
+ * then by name.
+ */
+class ProductSearchIndex {
+
+    // Relevance weights: a name hit counts more than a description hit,
+    // and a whole-term hit counts more than a prefix hit
+    private static final int NAME_WEIGHT = 4;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int EXACT_TERM_FACTOR = 2;
+
+    // Indexed products by position: ID, and name for tie-breaking
+    private final int[] productIds;
+    private final String[] names;
+
+    // Sorted vocabulary; postings[i] and weights[i] belong to terms[i]
+    private final String[] terms;
+    private final int[][] postings;
+    private final int[][] weights;
+
+    ProductSearchIndex(List<Product> products) {
+        this.productIds = new int[products.size()];
+        this.names = new String[products.size()];
+
+        // term -> (product position -> weight)
+        Map<String, Map<Integer, Integer>> index = new HashMap<>();
+
+        for (int position = 0; position < productIds.length; position++) {
+            Product product = products.get(position);
+            productIds[position] = product.getProductId();
+            names[position] = product.getProductName() != null ? product.getProductName() : "";
+            addTokens(index, product.getProductName(), position, NAME_WEIGHT);
+            addTokens(index, product.getDescription(), position, DESCRIPTION_WEIGHT);
+        }
+
+        this.terms = index.keySet().toArray(new String[0]);
+        Arrays.sort(this.terms);
+        this.postings = new int[terms.length][];
+        this.weights = new int[terms.length][];
+
+        for (int i = 0; i < terms.length; i++) {
+            Map<Integer, Integer> termPostings = index.get(terms[i]);
+            int[] positions = new int[termPostings.size()];
+            int j = 0;
+            for (Integer position : termPostings.keySet()) {
+                positions[j++] = position;
+            }
+            Arrays.sort(positions);
+
+            int[] termWeights = new int[positions.length];
+            for (j = 0; j < positions.length; j++) {
+                termWeights[j] = termPostings.get(positions[j]);
+            }
+
+            postings[i] = positions;
+            weights[i] = termWeights;
+        }
+    }
+
+    /**
+     * Search the index
+     * @param keyword Free-text query
+     * @param productsById Products of the snapshot being searched
+     * @return Matching products, most relevant first (empty if nothing matches)
+     */
+    List<Product> search(String keyword, Map<Integer, Product> productsById) {
+        List<String> queryTokens = tokenize(keyword);
+
+        if (queryTokens.isEmpty() || productIds.length == 0) {
+            return Collections.emptyList();
+        }
+
+        int[] scores = new int[productIds.length];
+        int[] tokenScores = new int[productIds.length];
+
+        for (int t = 0; t < queryTokens.size(); t++) {
+            String token = queryTokens.get(t);
+            Arrays.fill(tokenScores, 0);
+
+            // All terms starting with the token form one contiguous run in the sorted vocabulary
+            int first = lowerBound(token);
+            for (int i = first; i < terms.length && terms[i].startsWith(token); i++) {
+                int factor = terms[i].length() == token.length() ? EXACT_TERM_FACTOR : 1;
+                int[] positions = postings[i];
+                int[] termWeights = weights[i];
+                for (int j = 0; j < positions.length; j++) {
+                    // A token's score is its best term hit, not the sum of all prefix hits
+                    tokenScores[positions[j]] = Math.max(tokenScores[positions[j]], termWeights[j] * factor);
+                }
+            }
+
+            // AND semantics: a product drops out as soon as one token misses
+            boolean anyLeft = false;
+            for (int position = 0; position < scores.length; position++) {
+                if (tokenScores[position] == 0 || (t > 0 && scores[position] == 0)) {
+                    scores[position] = 0;
+                } else {
+                    scores[position] += tokenScores[position];
+                    anyLeft = true;
+                }
+            }
+
+            if (!anyLeft) {
+                return Collections.emptyList();
+            }
+        }
+
+        List<Integer> matches = new ArrayList<>();
+        for (int position = 0; position < scores.length; position++) {
+            if (scores[position] > 0) {
+                matches.add(position);
+            }
+        }
+
+        matches.sort((a, b) -> {
+            if (scores[a] != scores[b]) {
+                return Integer.compare(scores[b], scores[a]);
+            }
+            int result = names[a].compareTo(names[b]);
+            return result != 0 ? result : Integer.compare(productIds[a], productIds[b]);
+        });
+
+        List<Product> results = new ArrayList<>(matches.size());
+        for (Integer position : matches) {
+            Product product = productsById.get(productIds[position]);
+            if (product != null) {
+                results.add(product);
+            }
+        }
+        return results;
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    /**
+     * Split text into lower-case letter/digit runs
+     */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+
+        if (text == null) {
+            return tokens;
+        }
+
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean wordChar = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+
+        return tokens;
+    }
+
+    private static void addTokens(Map<String, Map<Integer, Integer>> index, String text, int position, int weight) {
+        for (String token : tokenize(text)) {
+            index.computeIfAbsent(token, key -> new HashMap<>()).merge(position, weight, Math::max);
+        }
+    }
+
+    /**
+     * Index of the first term that is >= key
+     */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = terms.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (terms[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -1,8 +1,12 @@
 package service;
 
 import dao.ProductDAO;
+import model.OrderItem;
 import model.Product;
+import util.AppLogger;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -10,16 +14,23 @@ import java.util.stream.Collectors;
  * Product Service Class
  * Handles business logic for product operations
  * Including CRUD operations, filtering, searching, stock management
+ *
+ * Catalog reads are answered from the shared {@link ProductCatalogCache};
+ * every successful write reloads the affected products into the cache.
  */
 public class ProductService {
     
+    private static final AppLogger LOG = AppLogger.getLogger(ProductService.class);
+    
     private ProductDAO productDAO;
+    private ProductCatalogCache catalogCache;
     
     /**
      * Constructor
      */
     public ProductService() {
         this.productDAO = new ProductDAO();
+        this.catalogCache = ProductCatalogCache.getInstance();
     }
     
     // ================================
@@ -43,15 +54,15 @@ public class ProductService {
             
             if (productId > 0) {
                 product.setProductId(productId);
-                System.out.println("Product added successfully: " + product.getProductName());
+                catalogCache.reloadProduct(productId);
+                LOG.info("Product added", "productId", productId, "name", product.getProductName());
                 return product;
             }
             
             return null;
             
         } catch (SQLException e) {
-            System.err.println("Error adding product: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Error adding product", e);
             return null;
         }
     }
@@ -71,19 +82,19 @@ public class ProductService {
     private boolean validateProduct(Product product) {
         // Name validation
         if (product.getProductName() == null || product.getProductName().trim().isEmpty()) {
-            System.out.println("Product name cannot be empty");
+            LOG.debug("Product name cannot be empty");
             return false;
         }
         
         // Price validation
         if (product.getPrice() < 0) {
-            System.out.println("Product price cannot be negative");
+            LOG.debug("Product price cannot be negative");
             return false;
         }
         
         // Stock validation
         if (product.getStock() < 0) {
-            System.out.println("Product stock cannot be negative");
+            LOG.debug("Product stock cannot be negative");
             return false;
         }
         
@@ -92,7 +103,7 @@ public class ProductService {
         if (category == null || (!category.equals("appetizer") && 
             !category.equals("main_course") && !category.equals("dessert") && 
             !category.equals("beverage") && !category.equals("other"))) {
-            System.out.println("Invalid product category: " + category);
+            LOG.debug("Invalid product category", "category", category);
             return false;
         }
         
@@ -100,7 +111,7 @@ public class ProductService {
         String status = product.getStatus();
         if (status == null || (!status.equals("available") && 
             !status.equals("unavailable") && !status.equals("discontinued"))) {
-            System.out.println("Invalid product status: " + status);
+            LOG.debug("Invalid product status", "status", status);
             return false;
         }
         
@@ -113,48 +124,64 @@ public class ProductService {
     
     /**
      * Get product by ID
+     * Returns a copy, so callers may modify it before passing it to updateProduct
      */
     public Product getProductById(int productId) {
         try {
-            return productDAO.getProductById(productId);
+            Product product = catalogCache.getSnapshot().getProductById(productId);
+            return product != null ? new Product(product) : null;
         } catch (SQLException e) {
-            System.err.println("Error getting product by ID: " + e.getMessage());
+            LOG.error("Error getting product by ID", "error", e.getMessage());
             return null;
         }
     }
     
     /**
-     * Get all products
+     * Get all products (read-only list, newest first)
      */
     public List<Product> getAllProducts() {
         try {
-            return productDAO.getAllProducts();
+            return catalogCache.getSnapshot().getAllProducts();
         } catch (SQLException e) {
-            System.err.println("Error getting all products: " + e.getMessage());
+            LOG.error("Error getting all products", "error", e.getMessage());
             return null;
         }
     }
     
     /**
-     * Get products by category
+     * Get products by category (read-only list)
      */
     public List<Product> getProductsByCategory(String category) {
         try {
-            return productDAO.getProductsByCategory(category);
+            return catalogCache.getSnapshot().getProductsByCategory(category);
         } catch (SQLException e) {
-            System.err.println("Error getting products by category: " + e.getMessage());
+            LOG.error("Error getting products by category", "error", e.getMessage());
             return null;
         }
     }
     
     /**
-     * Get products by status
+     * Get products by status (read-only list)
      */
     public List<Product> getProductsByStatus(String status) {
         try {
-            return productDAO.getProductsByStatus(status);
+            return catalogCache.getSnapshot().getProductsByStatus(status);
+        } catch (SQLException e) {
+            LOG.error("Error getting products by status", "error", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Get the current catalog snapshot (for callers that need a consistent
+     * view plus its version, e.g. response caching)
+     * @return Snapshot, or null if the catalog could not be loaded
+     */
+    public ProductCatalogCache.Snapshot getCatalogSnapshot() {
+        try {
+            return catalogCache.getSnapshot();
         } catch (SQLException e) {
-            System.err.println("Error getting products by status: " + e.getMessage());
+            LOG.error("Error loading product catalog", "error", e.getMessage());
             return null;
         }
     }
@@ -164,36 +191,50 @@ public class ProductService {
      */
     public List<Product> getAvailableProducts() {
         try {
-            List<Product> allProducts = productDAO.getAllProducts();
+            List<Product> allProducts = catalogCache.getSnapshot().getAllProducts();
             return allProducts.stream()
                     .filter(Product::isAvailable)
                     .collect(Collectors.toList());
         } catch (SQLException e) {
-            System.err.println("Error getting available products: " + e.getMessage());
+            LOG.error("Error getting available products", "error", e.getMessage());
             return null;
         }
     }
     
     /**
-     * Search products by name
+     * Search products by name and description (served from the catalog search index)
      */
     public List<Product> searchProducts(String keyword) {
         try {
-            return productDAO.searchProducts(keyword);
+            return catalogCache.getSnapshot().search(keyword);
         } catch (SQLException e) {
-            System.err.println("Error searching products: " + e.getMessage());
+            LOG.error("Error searching products", "error", e.getMessage());
             return null;
         }
     }
     
     /**
-     * Get products with pagination
+     * Get the best-selling products in a window (served from the popularity tracker)
+     * @param window Last hour, last day or all time
+     * @param limit Maximum number of products
+     * @return Available products, most popular first, or null on error
+     */
+    public List<PopularProducts.Ranked> getPopularProducts(PopularProducts.Window window, int limit) {
+        return PopularProducts.getInstance().getTop(window, limit, true);
+    }
+    
+    /**
+     * Get product name suggestions for a search prefix
+     * @param prefix Text typed so far
+     * @param limit Maximum number of suggestions
+     * @return Product names, best first, or null on error
      */
-    public List<Product> getProductsWithPagination(int offset, int limit) {
+    public List<String> getSuggestions(String prefix, int limit) {
         try {
-            return productDAO.getProductsWithPagination(offset, limit);
+            String[] suggestions = catalogCache.getSnapshot().suggest(prefix);
+            return Arrays.asList(suggestions).subList(0, Math.min(Math.max(limit, 0), suggestions.length));
         } catch (SQLException e) {
-            System.err.println("Error getting products with pagination: " + e.getMessage());
+            LOG.error("Error getting suggestions", "error", e.getMessage());
             return null;
         }
     }
@@ -215,13 +256,14 @@ public class ProductService {
             boolean success = productDAO.updateProduct(product);
             
             if (success) {
-                System.out.println("Product updated successfully: " + product.getProductName());
+                catalogCache.reloadProduct(product.getProductId());
+                LOG.info("Product updated", "productId", product.getProductId(), "name", product.getProductName());
             }
             
             return success;
             
         } catch (SQLException e) {
-            System.err.println("Error updating product: " + e.getMessage());
+            LOG.error("Error updating product", "error", e.getMessage());
             return false;
         }
     }
@@ -232,14 +274,20 @@ public class ProductService {
     public boolean updateProductStock(int productId, int newStock) {
         try {
             if (newStock < 0) {
-                System.out.println("Stock cannot be negative");
+                LOG.debug("Stock cannot be negative");
                 return false;
             }
             
-            return productDAO.updateProductStock(productId, newStock);
+            boolean success = productDAO.updateProductStock(productId, newStock);
+            
+            if (success) {
+                catalogCache.reloadProduct(productId);
+            }
+            
+            return success;
             
         } catch (SQLException e) {
-            System.err.println("Error updating product stock: " + e.getMessage());
+            LOG.error("Error updating product stock", "error", e.getMessage());
             return false;
         }
     }
@@ -252,14 +300,20 @@ public class ProductService {
             // Validate status
             if (!status.equals("available") && !status.equals("unavailable") && 
                 !status.equals("discontinued")) {
-                System.out.println("Invalid status: " + status);
+                LOG.debug("Invalid product status", "status", status);
                 return false;
             }
             
-            return productDAO.updateProductStatus(productId, status);
+            boolean success = productDAO.updateProductStatus(productId, status);
+            
+            if (success) {
+                catalogCache.reloadProduct(productId);
+            }
+            
+            return success;
             
         } catch (SQLException e) {
-            System.err.println("Error updating product status: " + e.getMessage());
+            LOG.error("Error updating product status", "error", e.getMessage());
             return false;
         }
     }
@@ -270,14 +324,20 @@ public class ProductService {
     public boolean updateProductPrice(int productId, double newPrice) {
         try {
             if (newPrice < 0) {
-                System.out.println("Price cannot be negative");
+                LOG.debug("Price cannot be negative");
                 return false;
             }
             
-            return productDAO.updateProductPrice(productId, newPrice);
+            boolean success = productDAO.updateProductPrice(productId, newPrice);
+            
+            if (success) {
+                catalogCache.reloadProduct(productId);
+            }
+            
+            return success;
             
         } catch (SQLException e) {
-            System.err.println("Error updating product price: " + e.getMessage());
+            LOG.error("Error updating product price", "error", e.getMessage());
             return false;
         }
     }
@@ -295,15 +355,16 @@ public class ProductService {
             boolean success = productDAO.deleteProduct(productId);
             
             if (success) {
-                System.out.println("Product deleted successfully: ID " + productId);
+                catalogCache.reloadProduct(productId);
+                LOG.info("Product deleted", "productId", productId);
             } else {
-                System.out.println("Cannot delete product (may be referenced in orders)");
+                LOG.info("Cannot delete product (may be referenced in orders)", "productId", productId);
             }
             
             return success;
             
         } catch (SQLException e) {
-            System.err.println("Error deleting product: " + e.getMessage());
+            LOG.error("Error deleting product", "error", e.getMessage());
             return false;
         }
     }
@@ -314,33 +375,25 @@ public class ProductService {
     
     /**
      * Decrease product stock (when order is placed)
+     * Uses a single conditional UPDATE, so concurrent orders cannot oversell
      * @param productId Product ID
      * @param quantity Quantity to decrease
      * @return true if stock decreased successfully
      */
     public boolean decreaseStock(int productId, int quantity) {
         try {
-            // Get current product
-            Product product = productDAO.getProductById(productId);
+            boolean success = productDAO.decreaseStockIfAvailable(productId, quantity);
             
-            if (product == null) {
-                System.out.println("Product not found: ID " + productId);
-                return false;
-            }
-            
-            // Check if enough stock
-            if (product.getStock() < quantity) {
-                System.out.println("Insufficient stock for product: " + product.getProductName() +
-                                 " (available: " + product.getStock() + ", requested: " + quantity + ")");
-                return false;
+            if (success) {
+                catalogCache.reloadProduct(productId);
+            } else {
+                LOG.info("Insufficient stock or product not found", "productId", productId, "requested", quantity);
             }
             
-            // Decrease stock
-            int newStock = product.getStock() - quantity;
-            return productDAO.updateProductStock(productId, newStock);
+            return success;
             
         } catch (SQLException e) {
-            System.err.println("Error decreasing stock: " + e.getMessage());
+            LOG.error("Error decreasing stock", "error", e.getMessage());
             return false;
         }
     }
@@ -350,24 +403,86 @@ public class ProductService {
      */
     public boolean increaseStock(int productId, int quantity) {
         try {
-            // Get current product
-            Product product = productDAO.getProductById(productId);
+            boolean success = productDAO.increaseStock(productId, quantity);
             
-            if (product == null) {
-                System.out.println("Product not found: ID " + productId);
-                return false;
+            if (success) {
+                catalogCache.reloadProduct(productId);
+            } else {
+                LOG.info("Product not found", "productId", productId);
             }
             
-            // Increase stock
-            int newStock = product.getStock() + quantity;
-            return productDAO.updateProductStock(productId, newStock);
+            return success;
             
         } catch (SQLException e) {
-            System.err.println("Error increasing stock: " + e.getMessage());
+            LOG.error("Error increasing stock", "error", e.getMessage());
             return false;
         }
     }
     
+    /**
+     * Reserve stock for every line of a cart atomically
+     * One statement batch in one transaction: either all lines are reserved or none
+     * @param items Order lines to reserve
+     * @return Lines with insufficient stock (empty list means reserved), or null on database error
+     */
+    public List<OrderItem> reserveStock(List<OrderItem> items) {
+        try {
+            List<OrderItem> failedItems = productDAO.reserveStock(items);
+            
+            if (failedItems.isEmpty()) {
+                catalogCache.reloadProducts(getProductIds(items));
+            }
+            
+            for (OrderItem item : failedItems) {
+                LOG.info("Insufficient stock", "productId", item.getProductId(), "requested", item.getQuantity());
+            }
+            
+            return failedItems;
+            
+        } catch (SQLException e) {
+            LOG.error("Error reserving stock", "error", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Give back stock reserved for a list of order lines
+     */
+    public boolean releaseStock(List<OrderItem> items) {
+        try {
+            boolean success = productDAO.releaseStock(items);
+            
+            if (success) {
+                catalogCache.reloadProducts(getProductIds(items));
+            }
+            
+            return success;
+            
+        } catch (SQLException e) {
+            LOG.error("Error releasing stock", "error", e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Notify the catalog cache that stock changed for these order lines
+     * (used by OrderService, which reserves stock inside its own transaction)
+     */
+    public void onStockChanged(List<OrderItem> items) {
+        catalogCache.reloadProducts(getProductIds(items));
+    }
+    
+    /**
+     * Collect product IDs from order lines
+     */
+    private List<Integer> getProductIds(List<OrderItem> items) {
+        List<Integer> productIds = new ArrayList<>(items.size());
+        for (OrderItem item : items) {
+            productIds.add(item.getProductId());
+        }
+        return productIds;
+    }
+    
     /**
      * Check if product has sufficient stock
      */
@@ -376,7 +491,7 @@ public class ProductService {
             Product product = productDAO.getProductById(productId);
             return product != null && product.getStock() >= quantity;
         } catch (SQLException e) {
-            System.err.println("Error checking stock: " + e.getMessage());
+            LOG.error("Error checking stock", "error", e.getMessage());
             return false;
         }
     }
@@ -392,7 +507,7 @@ public class ProductService {
         try {
             return productDAO.getTotalProductCount();
         } catch (SQLException e) {
-            System.err.println("Error getting product count: " + e.getMessage());
+            LOG.error("Error getting product count", "error", e.getMessage());
             return 0;
         }
     }
@@ -404,7 +519,7 @@ public class ProductService {
         try {
             return productDAO.getProductCountByCategory(category);
         } catch (SQLException e) {
-            System.err.println("Error getting product count by category: " + e.getMessage());
+            LOG.error("Error getting product count by category", "error", e.getMessage());
             return 0;
         }
     }
@@ -416,7 +531,7 @@ public class ProductService {
         try {
             return productDAO.getProductCountByStatus(status);
         } catch (SQLException e) {
-            System.err.println("Error getting product count by status: " + e.getMessage());
+            LOG.error("Error getting product count by status", "error", e.getMessage());
             return 0;
         }
     }
@@ -428,7 +543,7 @@ public class ProductService {
         try {
             return productDAO.getLowStockProducts(threshold);
         } catch (SQLException e) {
-            System.err.println("Error getting low stock products: " + e.getMessage());
+            LOG.error("Error getting low stock products", "error", e.getMessage());
             return null;
         }
     }
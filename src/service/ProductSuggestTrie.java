@@ -0,0 +1,184 @@
+package service;
+
+import model.Product;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Product Suggest Trie
+ * Prefix trie over product names for search-box typeahead
+ *
+ * Built from the catalog and then frozen into flat arrays; a new catalog
+ * snapshot reuses the previous trie unless a name or status changed. Every
+ * node stores its top suggestions precomputed, so a lookup walks one edge
+ * per typed character (binary search over a node's sorted edge labels)
+ * and returns the node's shared array - nothing is allocated per lookup.
+ *
+ * A name is reachable from its start and from the start of every later
+ * word ("bur" suggests "Cheese Burger"); whole-name matches rank first.
+ */
+class ProductSuggestTrie {
+
+    // Suggestions kept per node (upper bound for any lookup)
+    static final int MAX_SUGGESTIONS = 10;
+
+    private static final String[] NONE = new String[0];
+
+    // Node n owns edges firstEdge[n] .. firstEdge[n + 1] - 1, sorted by label
+    private final int[] firstEdge;
+    private final char[] edgeLabels;
+    private final int[] edgeTargets;
+    private final String[][] suggestions;
+
+    ProductSuggestTrie(List<Product> products) {
+        BuildNode root = new BuildNode();
+
+        for (Product product : products) {
+            if (isExcluded(product)) {
+                continue;
+            }
+            String name = product.getProductName();
+            String key = name.toLowerCase(Locale.ROOT);
+
+            // Whole name (rank 0) and every later word start (rank 1)
+            insert(root, key, 0, name, 0);
+            for (int i = 1; i < key.length(); i++) {
+                if (Character.isLetterOrDigit(key.charAt(i)) && !Character.isLetterOrDigit(key.charAt(i - 1))) {
+                    insert(root, key, i, name, 1);
+                }
+            }
+        }
+
+        // Freeze breadth-first so node numbers are dense
+        List<BuildNode> nodes = new ArrayList<>();
+        ArrayDeque<BuildNode> queue = new ArrayDeque<>();
+        root.id = 0;
+        nodes.add(root);
+        queue.add(root);
+        int edgeCount = 0;
+
+        while (!queue.isEmpty()) {
+            BuildNode node = queue.poll();
+            for (BuildNode child : node.children.values()) {
+                child.id = nodes.size();
+                nodes.add(child);
+                queue.add(child);
+                edgeCount++;
+            }
+        }
+
+        this.firstEdge = new int[nodes.size() + 1];
+        this.edgeLabels = new char[edgeCount];
+        this.edgeTargets = new int[edgeCount];
+        this.suggestions = new String[nodes.size()][];
+
+        int edge = 0;
+        for (int n = 0; n < nodes.size(); n++) {
+            BuildNode node = nodes.get(n);
+            firstEdge[n] = edge;
+            for (Map.Entry<Character, BuildNode> child : node.children.entrySet()) {
+                edgeLabels[edge] = child.getKey();
+                edgeTargets[edge] = child.getValue().id;
+                edge++;
+            }
+            suggestions[n] = node.topSuggestions();
+        }
+        firstEdge[nodes.size()] = edge;
+    }
+
+    /**
+     * Top suggestions for a prefix (case-insensitive)
+     * @return Shared array, best first; must not be modified (empty if nothing matches)
+     */
+    String[] lookup(String prefix) {
+        if (prefix == null || prefix.isEmpty()) {
+            return NONE;
+        }
+
+        int node = 0;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = child(node, Character.toLowerCase(prefix.charAt(i)));
+            if (node < 0) {
+                return NONE;
+            }
+        }
+        return suggestions[node];
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    /**
+     * Products never suggested: no name, or discontinued
+     */
+    static boolean isExcluded(Product product) {
+        String name = product.getProductName();
+        return name == null || name.trim().isEmpty() || "discontinued".equals(product.getStatus());
+    }
+
+    private int child(int node, char label) {
+        int low = firstEdge[node];
+        int high = firstEdge[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midLabel = edgeLabels[mid];
+            if (midLabel < label) {
+                low = mid + 1;
+            } else if (midLabel > label) {
+                high = mid - 1;
+            } else {
+                return edgeTargets[mid];
+            }
+        }
+        return -1;
+    }
+
+    private static void insert(BuildNode root, String key, int start, String name, int rank) {
+        BuildNode node = root;
+        for (int i = start; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), label -> new BuildNode());
+            node.offer(name, rank);
+        }
+    }
+
+    // ================================
+    // Build-time Node
+    // ================================
+
+    /**
+     * Mutable node used only while building
+     */
+    private static class BuildNode {
+
+        private static final Comparator<Map.Entry<String, Integer>> BEST_FIRST =
+                Map.Entry.<String, Integer>comparingByValue()
+                        .thenComparing(entry -> entry.getKey().length())
+                        .thenComparing(Map.Entry.comparingByKey());
+
+        final TreeMap<Character, BuildNode> children = new TreeMap<>();
+        final Map<String, Integer> candidates = new HashMap<>();
+        int id;
+
+        void offer(String name, int rank) {
+            candidates.merge(name, rank, Math::min);
+        }
+
+        String[] topSuggestions() {
+            List<Map.Entry<String, Integer>> ranked = new ArrayList<>(candidates.entrySet());
+            ranked.sort(BEST_FIRST);
+
+            String[] top = new String[Math.min(MAX_SUGGESTIONS, ranked.size())];
+            for (int i = 0; i < top.length; i++) {
+                top[i] = ranked.get(i).getKey();
+            }
+            return top;
+        }
+    }
+}
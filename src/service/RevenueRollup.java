@@ -0,0 +1,551 @@
+package service;
+
+import dao.OrderDAO;
+import dao.RevenueRollupDAO;
+import model.Order;
+import model.RevenueBucket;
+import model.RevenueBucket.Granularity;
+import util.AppLogger;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Revenue Rollup
+ * Per-minute, per-hour and per-day order counts and revenue by status and
+ * payment method, so revenue reports read buckets instead of orders
+ *
+ * Every order creation, status change and deletion is turned into bucket
+ * deltas (one per granularity). After the order's transaction commits,
+ * OrderService hands them to record(), which applies them to the
+ * in-memory buckets and queues them for a background writer. The writer
+ * adds the queued deltas to the order_revenue_rollup table about once a
+ * second, combined per bucket, in its own short transaction; the order
+ * transaction never touches the rollup table, so concurrent checkouts do
+ * not queue on the same DAY/HOUR row lock and a rollup failure cannot roll
+ * an order back. Deltas that fail to write stay queued and are retried.
+ * Deltas still queued when the JVM dies are lost from the table; rebuild()
+ * recomputes it from the orders.
+ *
+ * Recent buckets are held in memory (minutes for 2 days, hours for 90
+ * days, days for 3 years by default); older ranges are summed from the
+ * table. load() builds a new set of buckets from the table while the
+ * writer is paused, replays the deltas still queued for the table, and
+ * swaps the new set in, so orders committed during a reload are kept.
+ *
+ * A range query is split into whole days, then whole hours, then minutes
+ * at its edges, so it touches at most a few hundred buckets however many
+ * orders it covers. Ranges have minute resolution.
+ *
+ * Shared by every OrderService instance (one rollup per web application).
+ */
+public class RevenueRollup {
+
+    private static final AppLogger LOG = AppLogger.getLogger(RevenueRollup.class);
+
+    private static final String CANCELLED = "cancelled";
+
+    // Drop expired in-memory buckets at most this often
+    private static final long PRUNE_INTERVAL_MILLIS = 60_000L;
+
+    // Write queued deltas to the table this often
+    private static final long FLUSH_INTERVAL_MILLIS = Long.getLong("foodhub.rollup.flushIntervalMs", 1000L);
+
+    private static final RevenueRollup INSTANCE = new RevenueRollup();
+
+    private final RevenueRollupDAO rollupDAO;
+    private final OrderDAO orderDAO;
+    private final EnumMap<Granularity, Duration> retention = new EnumMap<>(Granularity.class);
+    private final AtomicLong lastPruneMillis = new AtomicLong();
+
+    // In-memory buckets, replaced as a whole by load(); null until the first load
+    private volatile EnumMap<Granularity, Series> series;
+
+    // Committed deltas not yet written to the table
+    private final ConcurrentLinkedQueue<RevenueBucket> unwritten = new ConcurrentLinkedQueue<>();
+
+    // Read: record() queues and applies a delta; write: load() replays the queue and swaps the buckets
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    // Held while the table is written or read back, so the queue matches what the table lacks
+    private final ReentrantLock writerLock = new ReentrantLock();
+
+    private final ScheduledExecutorService writer;
+
+    private RevenueRollup() {
+        this.rollupDAO = new RevenueRollupDAO();
+        this.orderDAO = new OrderDAO();
+
+        retention.put(Granularity.MINUTE, Duration.ofMillis(
+                Long.getLong("foodhub.rollup.minuteRetentionMs", Duration.ofDays(2).toMillis())));
+        retention.put(Granularity.HOUR, Duration.ofMillis(
+                Long.getLong("foodhub.rollup.hourRetentionMs", Duration.ofDays(90).toMillis())));
+        retention.put(Granularity.DAY, Duration.ofMillis(
+                Long.getLong("foodhub.rollup.dayRetentionMs", Duration.ofDays(3 * 365).toMillis())));
+
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "foodhub-rollup-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get the shared rollup
+     */
+    public static RevenueRollup getInstance() {
+        return INSTANCE;
+    }
+
+    // ================================
+    // Loading
+    // ================================
+
+    /**
+     * Load the retained buckets from the rollup table
+     * Backfills the table from the orders first if it is empty but orders exist
+     * @return true if loaded
+     */
+    public boolean load() {
+        long startTime = System.currentTimeMillis();
+        writerLock.lock();
+
+        try {
+            if (rollupDAO.getRowCount() == 0 && orderDAO.getTotalOrderCount() > 0) {
+                LOG.info("Revenue rollup table is empty - rebuilding from orders");
+                unwritten.clear();
+                rollupDAO.rebuild();
+            }
+
+            LocalDateTime now = LocalDateTime.now();
+            EnumMap<Granularity, Series> fresh = new EnumMap<>(Granularity.class);
+            int loaded = 0;
+
+            for (Map.Entry<Granularity, Duration> entry : retention.entrySet()) {
+                Granularity granularity = entry.getKey();
+                Series store = new Series(entry.getValue(), granularity.truncate(now.minus(entry.getValue())));
+
+                for (RevenueBucket bucket : rollupDAO.getBuckets(granularity, store.horizon, null)) {
+                    store.cell(bucket.getBucketStart(), bucket.getStatus(), bucket.getPaymentMethod())
+                            .add(bucket.getOrderCount(), bucket.getRevenue());
+                    loaded++;
+                }
+                fresh.put(granularity, store);
+            }
+
+            // The writer is paused, so the queue holds exactly the committed deltas the table lacks
+            swapLock.writeLock().lock();
+            try {
+                for (RevenueBucket delta : unwritten) {
+                    applyTo(fresh, delta);
+                }
+                series = fresh;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+
+            LOG.info("Revenue rollup loaded", "buckets", loaded, "queued", unwritten.size(),
+                    "ms", System.currentTimeMillis() - startTime);
+            return true;
+
+        } catch (SQLException e) {
+            LOG.error("Error loading revenue rollup", "error", e.getMessage());
+            return false;
+
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Rebuild the rollup table from the orders and reload
+     * (repair after direct database edits, or after queued deltas were lost)
+     * Orders committed while the rebuild runs may be counted twice or not at
+     * all, so run it when no orders are being placed.
+     */
+    public boolean rebuild() {
+        writerLock.lock();
+
+        try {
+            unwritten.clear();
+            rollupDAO.rebuild();
+            return load();
+
+        } catch (SQLException e) {
+            LOG.error("Error rebuilding revenue rollup", "error", e.getMessage());
+            return false;
+
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    /**
+     * Stop the background writer and write what is still queued
+     * (called when the web application stops, before the pool is closed)
+     */
+    public void shutdown() {
+        writer.shutdown();
+
+        try {
+            writer.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        flush();
+
+        if (!unwritten.isEmpty()) {
+            LOG.warn("Revenue rollup deltas not written at shutdown", "queued", unwritten.size());
+        }
+    }
+
+    // ================================
+    // Deltas
+    // ================================
+
+    /**
+     * Bucket deltas for adding (sign 1) or removing (sign -1) an order under a status
+     * @param order Order with date, amount and payment method
+     */
+    public List<RevenueBucket> deltas(Order order, String status, int sign) {
+        LocalDateTime orderDate = order.getOrderDate() != null
+                ? order.getOrderDate().toLocalDateTime()
+                : LocalDateTime.now();
+
+        List<RevenueBucket> deltas = new ArrayList<>(Granularity.values().length);
+        for (Granularity granularity : Granularity.values()) {
+            deltas.add(new RevenueBucket(granularity, granularity.truncate(orderDate), status,
+                    order.getPaymentMethod(), sign, sign * order.getTotalAmount()));
+        }
+        return deltas;
+    }
+
+    /**
+     * Record committed deltas: apply them to the in-memory buckets and queue
+     * them for the table (call after the order transaction has committed)
+     */
+    public void record(List<RevenueBucket> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        swapLock.readLock().lock();
+        try {
+            unwritten.addAll(deltas);
+            EnumMap<Granularity, Series> current = series;
+            if (current != null) {
+                for (RevenueBucket delta : deltas) {
+                    applyTo(current, delta);
+                }
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+
+        pruneIfDue();
+    }
+
+    /**
+     * Write the queued deltas to the table, combined per bucket
+     * Failed deltas go back on the queue for the next run
+     */
+    private void flush() {
+        writerLock.lock();
+
+        try {
+            List<RevenueBucket> batch = new ArrayList<>();
+            RevenueBucket delta;
+            while ((delta = unwritten.poll()) != null) {
+                batch.add(delta);
+            }
+
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            try {
+                rollupDAO.mergeBuckets(combine(batch));
+            } catch (SQLException | RuntimeException e) {
+                unwritten.addAll(batch);
+                LOG.error("Error writing revenue rollup", "error", e.getMessage(), "queued", unwritten.size());
+            }
+
+        } finally {
+            writerLock.unlock();
+        }
+    }
+
+    // ================================
+    // Queries
+    // ================================
+
+    /**
+     * Order count and revenue in a time range
+     * @param from Start (inclusive, truncated to the minute)
+     * @param to End (exclusive, truncated to the minute)
+     * @param status Only this status, or null for every status except cancelled
+     * @param paymentMethod Only this payment method, or null for all
+     * @return Totals (granularity and bucket start describe the range start)
+     */
+    public RevenueBucket getTotals(LocalDateTime from, LocalDateTime to, String status, String paymentMethod)
+            throws SQLException {
+        LocalDateTime cursor = Granularity.MINUTE.truncate(from);
+        LocalDateTime end = Granularity.MINUTE.truncate(to);
+        RevenueBucket totals = new RevenueBucket(Granularity.MINUTE, cursor, status, paymentMethod, 0, 0.0);
+
+        // Greedy split: the widest bucket that starts at the cursor and fits in the range
+        while (cursor.isBefore(end)) {
+            Granularity granularity = widestFit(cursor, end);
+            LocalDateTime segmentEnd = granularity.next(cursor);
+            while (widestFit(segmentEnd, end) == granularity && segmentEnd.isBefore(end)) {
+                segmentEnd = granularity.next(segmentEnd);
+            }
+
+            RevenueBucket segment = sum(granularity, cursor, segmentEnd, status, paymentMethod);
+            addTo(totals, segment.getOrderCount(), segment.getRevenue());
+            cursor = segmentEnd;
+        }
+
+        totals.setRevenue(roundCents(totals.getRevenue()));
+        return totals;
+    }
+
+    /**
+     * One total per bucket across a time range (empty buckets omitted)
+     * @param status Only this status, or null for every status except cancelled
+     * @param paymentMethod Only this payment method, or null for all
+     */
+    public List<RevenueBucket> getSeries(Granularity granularity, LocalDateTime from, LocalDateTime to,
+                                         String status, String paymentMethod) throws SQLException {
+        LocalDateTime start = granularity.truncate(from);
+        Series store = retained(granularity);
+        Map<LocalDateTime, RevenueBucket> points = new TreeMap<>();
+
+        if (store != null && !start.isBefore(store.horizon)) {
+            for (Map.Entry<LocalDateTime, ConcurrentHashMap<String, Cell>> bucket
+                    : store.buckets.subMap(start, to).entrySet()) {
+                for (Cell cell : bucket.getValue().values()) {
+                    if (cell.matches(status, paymentMethod)) {
+                        addTo(point(points, granularity, bucket.getKey(), status, paymentMethod),
+                                cell.count.sum(), cell.cents.sum() / 100.0);
+                    }
+                }
+            }
+        } else {
+            for (RevenueBucket row : rollupDAO.getBuckets(granularity, start, to)) {
+                if (matches(row.getStatus(), row.getPaymentMethod(), status, paymentMethod)) {
+                    addTo(point(points, granularity, row.getBucketStart(), status, paymentMethod),
+                            row.getOrderCount(), row.getRevenue());
+                }
+            }
+        }
+
+        List<RevenueBucket> result = new ArrayList<>(points.size());
+        for (RevenueBucket point : points.values()) {
+            if (point.getOrderCount() != 0) {
+                point.setRevenue(roundCents(point.getRevenue()));
+                result.add(point);
+            }
+        }
+        return result;
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    /**
+     * In-memory buckets of one granularity, or null before the first load
+     */
+    private Series retained(Granularity granularity) {
+        EnumMap<Granularity, Series> current = series;
+        return current != null ? current.get(granularity) : null;
+    }
+
+    /**
+     * Add one delta to a set of buckets if it falls within their retention
+     */
+    private static void applyTo(EnumMap<Granularity, Series> target, RevenueBucket delta) {
+        Series store = target.get(delta.getGranularity());
+        if (!delta.getBucketStart().isBefore(store.horizon)) {
+            store.cell(delta.getBucketStart(), delta.getStatus(), delta.getPaymentMethod())
+                    .add(delta.getOrderCount(), delta.getRevenue());
+        }
+    }
+
+    /**
+     * Sum deltas that land in the same bucket (one table row per bucket per write)
+     */
+    private static List<RevenueBucket> combine(List<RevenueBucket> deltas) {
+        Map<String, RevenueBucket> combined = new LinkedHashMap<>();
+        Map<String, Long> cents = new HashMap<>();
+
+        for (RevenueBucket delta : deltas) {
+            String key = delta.getGranularity() + "|" + delta.getBucketStart() + "|" +
+                    delta.getStatus() + "|" + delta.getPaymentMethod();
+            RevenueBucket bucket = combined.computeIfAbsent(key, k -> new RevenueBucket(delta.getGranularity(),
+                    delta.getBucketStart(), delta.getStatus(), delta.getPaymentMethod(), 0, 0.0));
+            bucket.setOrderCount(bucket.getOrderCount() + delta.getOrderCount());
+            cents.merge(key, Math.round(delta.getRevenue() * 100.0), Long::sum);
+        }
+
+        List<RevenueBucket> result = new ArrayList<>(combined.size());
+        for (Map.Entry<String, RevenueBucket> entry : combined.entrySet()) {
+            long total = cents.get(entry.getKey());
+            if (entry.getValue().getOrderCount() != 0 || total != 0) {
+                entry.getValue().setRevenue(total / 100.0);
+                result.add(entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    private static Granularity widestFit(LocalDateTime cursor, LocalDateTime end) {
+        for (Granularity granularity : new Granularity[]{Granularity.DAY, Granularity.HOUR}) {
+            if (granularity.truncate(cursor).equals(cursor) && !granularity.next(cursor).isAfter(end)) {
+                return granularity;
+            }
+        }
+        return Granularity.MINUTE;
+    }
+
+    /**
+     * Sum one granularity over [from, to), from memory when the range is retained
+     */
+    private RevenueBucket sum(Granularity granularity, LocalDateTime from, LocalDateTime to,
+                              String status, String paymentMethod) throws SQLException {
+        Series store = retained(granularity);
+
+        if (store == null || from.isBefore(store.horizon)) {
+            return rollupDAO.sumBuckets(granularity, from, to, status, paymentMethod);
+        }
+
+        long count = 0;
+        long cents = 0;
+        for (ConcurrentHashMap<String, Cell> cells : store.buckets.subMap(from, to).values()) {
+            for (Cell cell : cells.values()) {
+                if (cell.matches(status, paymentMethod)) {
+                    count += cell.count.sum();
+                    cents += cell.cents.sum();
+                }
+            }
+        }
+        return new RevenueBucket(granularity, from, status, paymentMethod, count, cents / 100.0);
+    }
+
+    private static RevenueBucket point(Map<LocalDateTime, RevenueBucket> points, Granularity granularity,
+                                       LocalDateTime bucketStart, String status, String paymentMethod) {
+        return points.computeIfAbsent(bucketStart,
+                key -> new RevenueBucket(granularity, key, status, paymentMethod, 0, 0.0));
+    }
+
+    private static void addTo(RevenueBucket bucket, long orderCount, double revenue) {
+        bucket.setOrderCount(bucket.getOrderCount() + orderCount);
+        bucket.setRevenue(bucket.getRevenue() + revenue);
+    }
+
+    private static boolean matches(String cellStatus, String cellPaymentMethod,
+                                   String status, String paymentMethod) {
+        boolean statusMatches = status != null ? status.equals(cellStatus) : !CANCELLED.equals(cellStatus);
+        return statusMatches && (paymentMethod == null || paymentMethod.equals(cellPaymentMethod));
+    }
+
+    private static double roundCents(double amount) {
+        return Math.round(amount * 100.0) / 100.0;
+    }
+
+    /**
+     * Move each horizon forward and drop the buckets that fell behind it
+     */
+    private void pruneIfDue() {
+        long now = System.currentTimeMillis();
+        long last = lastPruneMillis.get();
+
+        if (now - last < PRUNE_INTERVAL_MILLIS || !lastPruneMillis.compareAndSet(last, now)) {
+            return;
+        }
+
+        EnumMap<Granularity, Series> current = series;
+        if (current == null) {
+            return;
+        }
+
+        LocalDateTime wallClock = LocalDateTime.now();
+        for (Map.Entry<Granularity, Series> entry : current.entrySet()) {
+            Series store = entry.getValue();
+            store.horizon = entry.getKey().truncate(wallClock.minus(store.retention));
+            store.buckets.headMap(store.horizon).clear();
+        }
+    }
+
+    // ================================
+    // In-memory Storage
+    // ================================
+
+    /**
+     * Buckets of one granularity: bucket start -> (status|payment method -> cell)
+     */
+    private static class Series {
+        final Duration retention;
+        final ConcurrentSkipListMap<LocalDateTime, ConcurrentHashMap<String, Cell>> buckets =
+                new ConcurrentSkipListMap<>();
+
+        // Oldest bucket start held in memory; earlier ranges are read from the table
+        volatile LocalDateTime horizon;
+
+        Series(Duration retention, LocalDateTime horizon) {
+            this.retention = retention;
+            this.horizon = horizon;
+        }
+
+        Cell cell(LocalDateTime bucketStart, String status, String paymentMethod) {
+            return buckets.computeIfAbsent(bucketStart, key -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(status + '|' + paymentMethod, key -> new Cell(status, paymentMethod));
+        }
+    }
+
+    /**
+     * Counters for one status and payment method within a bucket
+     * (revenue in cents so concurrent deltas add up exactly)
+     */
+    private static class Cell {
+        final String status;
+        final String paymentMethod;
+        final LongAdder count = new LongAdder();
+        final LongAdder cents = new LongAdder();
+
+        Cell(String status, String paymentMethod) {
+            this.status = status;
+            this.paymentMethod = paymentMethod;
+        }
+
+        void add(long orderCount, double revenue) {
+            count.add(orderCount);
+            cents.add(Math.round(revenue * 100.0));
+        }
+
+        boolean matches(String status, String paymentMethod) {
+            return RevenueRollup.matches(this.status, this.paymentMethod, status, paymentMethod);
+        }
+    }
+}
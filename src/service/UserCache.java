@@ -0,0 +1,125 @@
+package service;
+
+import dao.UserDAO;
+import model.User;
+import util.AppLogger;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * User Cache
+ * Server-side cache of user accounts by user ID, used to resolve the
+ * session principal on every request without a database query
+ *
+ * Entries are password-free DTOs. UserService invalidates an entry as soon
+ * as it changes the user (role, status, profile, deletion), so changes made
+ * through the application are seen on the very next request; the TTL only
+ * bounds staleness for edits made directly in the database.
+ *
+ * Shared by every UserService instance (one cache per web application).
+ */
+public class UserCache {
+
+    private static final AppLogger LOG = AppLogger.getLogger(UserCache.class);
+
+    // Reload an entry after this long even without an invalidation
+    private static final long TTL_MILLIS = Long.getLong("foodhub.userCache.ttlMs", 60_000L);
+
+    // Upper bound on cached users (roughly the number of concurrently active users)
+    private static final int MAX_ENTRIES = Integer.getInteger("foodhub.userCache.maxEntries", 50_000);
+
+    private static final UserCache INSTANCE = new UserCache();
+
+    private final UserDAO userDAO;
+    private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    // Bumped by every invalidation (before the entry is removed); a load that raced with one is not kept
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private UserCache() {
+        this.userDAO = new UserDAO();
+    }
+
+    /**
+     * Get the shared user cache
+     */
+    public static UserCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get a user, loading it on a miss or after the TTL
+     * @return Shared DTO (treat as read-only), or null if the user does not exist or cannot be loaded
+     */
+    public User.UserDTO getUser(int userId) {
+        Entry entry = entries.get(userId);
+        long now = System.currentTimeMillis();
+
+        if (entry != null && now - entry.loadedAtMillis < TTL_MILLIS) {
+            return entry.user;
+        }
+
+        long invalidationsBefore = invalidations.get();
+
+        try {
+            User user = userDAO.getUserById(userId);
+
+            if (user == null) {
+                entries.remove(userId);
+                return null;
+            }
+
+            if (entries.size() >= MAX_ENTRIES) {
+                evictExpired(now);
+            }
+
+            // Put first, then re-check: an invalidation that landed at any point
+            // since the load started takes the (possibly stale) entry back out
+            User.UserDTO dto = user.toDTO();
+            Entry loaded = new Entry(dto, now);
+            entries.put(userId, loaded);
+            if (invalidations.get() != invalidationsBefore) {
+                entries.remove(userId, loaded);
+            }
+            return dto;
+
+        } catch (SQLException e) {
+            LOG.error("Error loading user into cache", "userId", userId, "error", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Drop a user after it was changed or deleted
+     */
+    public void invalidate(int userId) {
+        invalidations.incrementAndGet();
+        entries.remove(userId);
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    /**
+     * Make room: drop expired entries, or everything if none have expired
+     */
+    private void evictExpired(long now) {
+        entries.values().removeIf(entry -> now - entry.loadedAtMillis >= TTL_MILLIS);
+
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.clear();
+        }
+    }
+
+    private static class Entry {
+        final User.UserDTO user;
+        final long loadedAtMillis;
+
+        Entry(User.UserDTO user, long loadedAtMillis) {
+            this.user = user;
+            this.loadedAtMillis = loadedAtMillis;
+        }
+    }
+}
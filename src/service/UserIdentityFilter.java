@@ -0,0 +1,189 @@
+package service;
+
+import dao.UserDAO;
+import util.AppLogger;
+import util.BloomFilter;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * User Identity Filter
+ * Bloom filters over every username and email, so that registration and
+ * availability checks can answer "definitely not taken" without a query
+ *
+ * Warmed from the users table at startup (AppLifecycleListener) and fed by
+ * UserService on every registration and email change. Only a "probably
+ * taken" answer falls through to the SELECT COUNT(*). Until the filters
+ * are warm every check falls through, so a cold or failed warm-up only
+ * costs the old query.
+ *
+ * Deleted users stay in the filters (Bloom filters cannot remove), which
+ * only adds false positives. Users inserted directly into the database
+ * after warm-up are not seen until the next rebuild; the UNIQUE
+ * constraints on username and email still reject the duplicate insert.
+ *
+ * Shared by every UserService instance (one filter pair per web application).
+ */
+public class UserIdentityFilter {
+
+    private static final AppLogger LOG = AppLogger.getLogger(UserIdentityFilter.class);
+
+    // Target false positive rate while within capacity
+    private static final double FALSE_POSITIVE_RATE =
+            Double.parseDouble(System.getProperty("foodhub.userFilter.fpp", "0.01"));
+
+    // Capacity is twice the user count at warm-up, but never less than this
+    private static final long MIN_CAPACITY = 10_000L;
+
+    private static final UserIdentityFilter INSTANCE = new UserIdentityFilter();
+
+    private final UserDAO userDAO;
+
+    // Null until the first warm-up completes
+    private volatile Filters current;
+
+    // Filters being rebuilt; adds go to both so none are lost in the swap
+    private volatile Filters rebuilding;
+
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final LongAdder definiteMisses = new LongAdder();
+    private final LongAdder probableHits = new LongAdder();
+
+    private UserIdentityFilter() {
+        this.userDAO = new UserDAO();
+    }
+
+    /**
+     * Get the shared filter
+     */
+    public static UserIdentityFilter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * (Re)build the filters from the users table
+     * @return true if the filters are now warm
+     */
+    public synchronized boolean warm() {
+        long startTime = System.currentTimeMillis();
+
+        try {
+            long capacity = Math.max(MIN_CAPACITY, userDAO.getTotalUserCount() * 2L);
+            Filters filters = new Filters(capacity);
+
+            // Registrations from here on are added to the new filters as well; anything
+            // committed earlier is seen by the query below
+            rebuilding = filters;
+
+            int users = userDAO.streamIdentities(filters::add);
+
+            current = filters;
+            LOG.info("User identity filters warmed", "users", users, "capacity", capacity,
+                    "ms", System.currentTimeMillis() - startTime);
+            return true;
+
+        } catch (SQLException e) {
+            LOG.error("Error warming user identity filters", "error", e.getMessage());
+            return current != null;
+        } finally {
+            rebuilding = null;
+            rebuildScheduled.set(false);
+        }
+    }
+
+    /**
+     * @return false if the username is definitely not taken; true if it may be
+     */
+    public boolean mightContainUsername(String username) {
+        Filters filters = current;
+        return record(filters == null || filters.usernames.mightContain(username));
+    }
+
+    /**
+     * @return false if the email is definitely not taken; true if it may be
+     */
+    public boolean mightContainEmail(String email) {
+        Filters filters = current;
+        return record(filters == null || filters.emails.mightContain(email));
+    }
+
+    /**
+     * Record a username and email that now exist (either may be null)
+     */
+    public void add(String username, String email) {
+        Filters filters = current;
+        if (filters != null) {
+            filters.add(username, email);
+            if (filters.count.get() > filters.capacity) {
+                scheduleRebuild();
+            }
+        }
+
+        Filters next = rebuilding;
+        if (next != null) {
+            next.add(username, email);
+        }
+    }
+
+    /**
+     * Checks answered without a query
+     */
+    public long getDefiniteMisses() {
+        return definiteMisses.sum();
+    }
+
+    /**
+     * Checks that fell through to the query
+     */
+    public long getProbableHits() {
+        return probableHits.sum();
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    private boolean record(boolean mightContain) {
+        if (mightContain) {
+            probableHits.increment();
+        } else {
+            definiteMisses.increment();
+        }
+        return mightContain;
+    }
+
+    /**
+     * Past capacity the false positive rate climbs; rebuild larger in the background
+     */
+    private void scheduleRebuild() {
+        if (rebuildScheduled.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::warm, "foodhub-user-filter-rebuild");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * One generation of filters
+     */
+    private static class Filters {
+        final long capacity;
+        final BloomFilter usernames;
+        final BloomFilter emails;
+        final AtomicLong count = new AtomicLong();
+
+        Filters(long capacity) {
+            this.capacity = capacity;
+            this.usernames = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+            this.emails = new BloomFilter(capacity, FALSE_POSITIVE_RATE);
+        }
+
+        void add(String username, String email) {
+            usernames.put(username);
+            emails.put(email);
+            count.incrementAndGet();
+        }
+    }
+}
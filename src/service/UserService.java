@@ -1,10 +1,17 @@
 package service;
 
+import dao.OrderDAO;
 import dao.UserDAO;
+import model.Order;
+import model.RevenueBucket;
 import model.User;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import util.AppLogger;
+import util.DBConnection;
+import util.LoginEvent;
+import util.MetricsRegistry;
+import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -14,13 +21,32 @@ import java.util.List;
  */
 public class UserService {
     
+    private static final AppLogger LOG = AppLogger.getLogger(UserService.class);
+    
+    private static final MetricsRegistry.Timer REGISTER_TIMER =
+            MetricsRegistry.getInstance().timer(MetricsRegistry.Family.SERVICE, "UserService.registerUser");
+    private static final MetricsRegistry.Timer LOGIN_TIMER =
+            MetricsRegistry.getInstance().timer(MetricsRegistry.Family.SERVICE, "UserService.loginUser");
+    
     private UserDAO userDAO;
+    private OrderDAO orderDAO;
+    private PasswordService passwordService;
+    private UserCache userCache;
+    private UserIdentityFilter identityFilter;
+    private DashboardStatistics statistics;
+    private RevenueRollup revenueRollup;
     
     /**
      * Constructor
      */
     public UserService() {
         this.userDAO = new UserDAO();
+        this.orderDAO = new OrderDAO();
+        this.passwordService = PasswordService.getInstance();
+        this.userCache = UserCache.getInstance();
+        this.identityFilter = UserIdentityFilter.getInstance();
+        this.statistics = DashboardStatistics.getInstance();
+        this.revenueRollup = RevenueRollup.getInstance();
     }
     
     // ================================
@@ -39,26 +65,33 @@ public class UserService {
      */
     public User registerUser(String username, String password, String email, 
                             String fullName, String phone, String role) {
+        long startNanos = System.nanoTime();
+        boolean failed = false;
+        
         try {
             // Validate input
             if (!validateRegistrationInput(username, password, email)) {
                 return null;
             }
             
-            // Check if username already exists
-            if (userDAO.usernameExists(username)) {
-                System.out.println("Username already exists: " + username);
+            // Check if username already exists (the filter rules out most without a query)
+            if (identityFilter.mightContainUsername(username) && userDAO.usernameExists(username)) {
+                LOG.info("Username already exists", "username", username);
                 return null;
             }
             
             // Check if email already exists
-            if (userDAO.emailExists(email)) {
-                System.out.println("Email already exists: " + email);
+            if (identityFilter.mightContainEmail(email) && userDAO.emailExists(email)) {
+                LOG.info("Email already exists", "email", email);
                 return null;
             }
             
             // Hash the password
-            String hashedPassword = hashPassword(password);
+            String hashedPassword = passwordService.hash(password);
+            if (hashedPassword == null) {
+                LOG.error("Could not hash password for new user", "username", username);
+                return null;
+            }
             
             // Create user object
             User user = new User(username, hashedPassword, email, fullName, phone, role);
@@ -68,16 +101,21 @@ public class UserService {
             
             if (userId > 0) {
                 user.setUserId(userId);
-                System.out.println("User registered successfully: " + username);
+                identityFilter.add(username, email);
+                statistics.userCreated();
+                LOG.info("User registered", "userId", userId, "username", username);
                 return user;
             }
             
             return null;
             
         } catch (SQLException e) {
-            System.err.println("Error registering user: " + e.getMessage());
-            e.printStackTrace();
+            failed = true;
+            LOG.error("Error registering user", e);
             return null;
+            
+        } finally {
+            REGISTER_TIMER.record(System.nanoTime() - startNanos, failed);
         }
     }
     
@@ -87,23 +125,23 @@ public class UserService {
     private boolean validateRegistrationInput(String username, String password, String email) {
         // Username validation
         if (username == null || username.trim().isEmpty()) {
-            System.out.println("Username cannot be empty");
+            LOG.debug("Username cannot be empty");
             return false;
         }
         if (username.length() < 3 || username.length() > 20) {
-            System.out.println("Username must be 3-20 characters");
+            LOG.debug("Username must be 3-20 characters");
             return false;
         }
         
         // Password validation
         if (password == null || password.length() < 6) {
-            System.out.println("Password must be at least 6 characters");
+            LOG.debug("Password must be at least 6 characters");
             return false;
         }
         
         // Email validation
         if (email == null || !email.matches("^[^\\s@]+@[^\\s@]+\\.[^\\s@]+$")) {
-            System.out.println("Invalid email format");
+            LOG.debug("Invalid email format");
             return false;
         }
         
@@ -122,41 +160,77 @@ public class UserService {
      * @return User object if login successful, null otherwise
      */
     public User loginUser(String username, String password, String role) {
+        long startNanos = System.nanoTime();
+        LoginEvent event = new LoginEvent();
+        event.begin();
+        boolean failed = false;
+        String outcome = "error";
+        int userId = 0;
+        
         try {
             // Get user by username
             User user = userDAO.getUserByUsername(username);
+            event.lookupTime = System.nanoTime() - startNanos;
             
             if (user == null) {
-                System.out.println("User not found: " + username);
+                LOG.info("Login failed: user not found", "username", username);
+                outcome = "notFound";
                 return null;
             }
             
             // Check if account is active
             if (!user.isActive()) {
-                System.out.println("Account is not active: " + username);
+                LOG.info("Login failed: account is not active", "username", username);
+                outcome = "inactive";
                 return null;
             }
             
             // Verify password
-            if (!verifyPassword(password, user.getPassword())) {
-                System.out.println("Invalid password for user: " + username);
+            long hashStart = System.nanoTime();
+            PasswordService.Verification verification = passwordService.verify(password, user.getPassword());
+            event.hashTime = System.nanoTime() - hashStart;
+            if (!verification.matches()) {
+                if (verification == PasswordService.Verification.UNAVAILABLE) {
+                    LOG.warn("Login failed: password check unavailable", "username", username);
+                    outcome = "unavailable";
+                } else {
+                    LOG.info("Login failed: invalid password", "username", username);
+                    outcome = "invalidPassword";
+                }
                 return null;
             }
             
             // Check role if specified
             if (role != null && !role.isEmpty() && !user.getRole().equalsIgnoreCase(role)) {
-                System.out.println("Role mismatch for user: " + username + 
-                                 " (expected: " + role + ", actual: " + user.getRole() + ")");
+                LOG.info("Login failed: role mismatch", "username", username,
+                        "expected", role, "actual", user.getRole());
+                outcome = "roleMismatch";
                 return null;
             }
             
-            System.out.println("User logged in successfully: " + username);
+            // Old scheme or lower cost: store a fresh hash while we have the plain password
+            if (verification == PasswordService.Verification.MATCH_NEEDS_REHASH) {
+                rehashPassword(user, password);
+                event.rehashed = true;
+            }
+            
+            LOG.info("User logged in", "userId", user.getUserId(), "username", username);
+            outcome = "success";
+            userId = user.getUserId();
             return user;
             
         } catch (SQLException e) {
-            System.err.println("Error during login: " + e.getMessage());
-            e.printStackTrace();
+            failed = true;
+            LOG.error("Error during login", e);
             return null;
+            
+        } finally {
+            LOGIN_TIMER.record(System.nanoTime() - startNanos, failed);
+            if (event.shouldCommit()) {
+                event.userId = userId;
+                event.outcome = outcome;
+                event.commit();
+            }
         }
     }
     
@@ -171,7 +245,7 @@ public class UserService {
         try {
             return userDAO.getUserById(userId);
         } catch (SQLException e) {
-            System.err.println("Error getting user by ID: " + e.getMessage());
+            LOG.error("Error getting user by ID", "error", e.getMessage());
             return null;
         }
     }
@@ -183,7 +257,7 @@ public class UserService {
         try {
             return userDAO.getUserByUsername(username);
         } catch (SQLException e) {
-            System.err.println("Error getting user by username: " + e.getMessage());
+            LOG.error("Error getting user by username", "error", e.getMessage());
             return null;
         }
     }
@@ -195,7 +269,7 @@ public class UserService {
         try {
             return userDAO.getUserByEmail(email);
         } catch (SQLException e) {
-            System.err.println("Error getting user by email: " + e.getMessage());
+            LOG.error("Error getting user by email", "error", e.getMessage());
             return null;
         }
     }
@@ -207,7 +281,7 @@ public class UserService {
         try {
             return userDAO.getAllUsers();
         } catch (SQLException e) {
-            System.err.println("Error getting all users: " + e.getMessage());
+            LOG.error("Error getting all users", "error", e.getMessage());
             return null;
         }
     }
@@ -219,7 +293,7 @@ public class UserService {
         try {
             return userDAO.getUsersByRole(role);
         } catch (SQLException e) {
-            System.err.println("Error getting users by role: " + e.getMessage());
+            LOG.error("Error getting users by role", "error", e.getMessage());
             return null;
         }
     }
@@ -233,9 +307,19 @@ public class UserService {
      */
     public boolean updateUser(User user) {
         try {
-            return userDAO.updateUser(user);
+            boolean success = userDAO.updateUser(user);
+            
+            // The email may have changed
+            if (success) {
+                identityFilter.add(null, user.getEmail());
+            }
+            
+            // Sessions of this user must see the change on their next request
+            userCache.invalidate(user.getUserId());
+            
+            return success;
         } catch (SQLException e) {
-            System.err.println("Error updating user: " + e.getMessage());
+            LOG.error("Error updating user", "error", e.getMessage());
             return false;
         }
     }
@@ -252,25 +336,28 @@ public class UserService {
             }
             
             // Verify old password
-            if (!verifyPassword(oldPassword, user.getPassword())) {
-                System.out.println("Old password is incorrect");
+            if (!passwordService.verify(oldPassword, user.getPassword()).matches()) {
+                LOG.info("Old password is incorrect", "userId", userId);
                 return false;
             }
             
             // Validate new password
             if (newPassword == null || newPassword.length() < 6) {
-                System.out.println("New password must be at least 6 characters");
+                LOG.debug("New password must be at least 6 characters");
                 return false;
             }
             
             // Hash new password
-            String hashedPassword = hashPassword(newPassword);
+            String hashedPassword = passwordService.hash(newPassword);
+            if (hashedPassword == null) {
+                return false;
+            }
             
             // Update password
             return userDAO.updatePassword(userId, hashedPassword);
             
         } catch (SQLException e) {
-            System.err.println("Error updating password: " + e.getMessage());
+            LOG.error("Error updating password", "error", e.getMessage());
             return false;
         }
     }
@@ -280,9 +367,14 @@ public class UserService {
      */
     public boolean updateUserStatus(int userId, String status) {
         try {
-            return userDAO.updateUserStatus(userId, status);
+            boolean success = userDAO.updateUserStatus(userId, status);
+            
+            // Sessions of this user must see the change on their next request
+            userCache.invalidate(userId);
+            
+            return success;
         } catch (SQLException e) {
-            System.err.println("Error updating user status: " + e.getMessage());
+            LOG.error("Error updating user status", "error", e.getMessage());
             return false;
         }
     }
@@ -293,13 +385,54 @@ public class UserService {
     
     /**
      * Delete user by ID
+     * Their orders are deleted with them (ON DELETE CASCADE), so after commit
+     * those orders are taken out of the revenue rollup
      */
     public boolean deleteUser(int userId) {
+        Connection conn = DBConnection.getConnection();
+        
+        if (conn == null) {
+            LOG.error("Failed to delete user: no database connection", "userId", userId);
+            return false;
+        }
+        
+        boolean committed = false;
+        
         try {
-            return userDAO.deleteUser(userId);
+            List<Order> orders = orderDAO.lockOrdersByUserId(conn, userId);
+            
+            if (!userDAO.deleteUser(conn, userId)) {
+                return false;
+            }
+            
+            conn.commit();
+            committed = true;
+            
+            List<RevenueBucket> rollupDeltas = new ArrayList<>();
+            for (Order order : orders) {
+                rollupDeltas.addAll(revenueRollup.deltas(order, order.getStatus(), -1));
+            }
+            revenueRollup.record(rollupDeltas);
+            for (Order order : orders) {
+                statistics.orderDeleted(order.getStatus(), order.getTotalAmount());
+            }
+            statistics.userDeleted();
+            
+            return true;
+            
         } catch (SQLException e) {
-            System.err.println("Error deleting user: " + e.getMessage());
+            LOG.error("Error deleting user", "error", e.getMessage());
             return false;
+            
+        } finally {
+            if (committed) {
+                DBConnection.closeConnection(conn);
+            } else {
+                DBConnection.rollbackAndClose(conn);
+            }
+            
+            // Sessions of this user must see the change on their next request
+            userCache.invalidate(userId);
         }
     }
     
@@ -308,44 +441,25 @@ public class UserService {
     // ================================
     
     /**
-     * Hash password using SHA-256
-     * @param password Plain text password
-     * @return Hashed password in hexadecimal format
+     * Replace a user's stored hash with one from the current scheme
+     * Failure is logged only - the login itself has already succeeded
      */
-    private String hashPassword(String password) {
+    private void rehashPassword(User user, String password) {
+        String hashedPassword = passwordService.hash(password);
+        if (hashedPassword == null) {
+            return;
+        }
+        
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] hashBytes = md.digest(password.getBytes());
-            
-            // Convert bytes to hexadecimal
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hashBytes) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
+            if (userDAO.updatePassword(user.getUserId(), hashedPassword)) {
+                user.setPassword(hashedPassword);
+                LOG.info("Password rehashed", "username", user.getUsername());
             }
-            
-            return hexString.toString();
-            
-        } catch (NoSuchAlgorithmException e) {
-            System.err.println("Error hashing password: " + e.getMessage());
-            return null;
+        } catch (SQLException e) {
+            LOG.error("Error rehashing password", "error", e.getMessage());
         }
     }
     
-    /**
-     * Verify password against hashed password
-     * @param plainPassword Plain text password
-     * @param hashedPassword Hashed password from database
-     * @return true if passwords match
-     */
-    private boolean verifyPassword(String plainPassword, String hashedPassword) {
-        String hashedInput = hashPassword(plainPassword);
-        return hashedInput != null && hashedInput.equals(hashedPassword);
-    }
-    
     // ================================
     // Validation Methods
     // ================================
@@ -355,9 +469,9 @@ public class UserService {
      */
     public boolean usernameExists(String username) {
         try {
-            return userDAO.usernameExists(username);
+            return identityFilter.mightContainUsername(username) && userDAO.usernameExists(username);
         } catch (SQLException e) {
-            System.err.println("Error checking username: " + e.getMessage());
+            LOG.error("Error checking username", "error", e.getMessage());
             return false;
         }
     }
@@ -367,9 +481,9 @@ public class UserService {
      */
     public boolean emailExists(String email) {
         try {
-            return userDAO.emailExists(email);
+            return identityFilter.mightContainEmail(email) && userDAO.emailExists(email);
         } catch (SQLException e) {
-            System.err.println("Error checking email: " + e.getMessage());
+            LOG.error("Error checking email", "error", e.getMessage());
             return false;
         }
     }
@@ -385,7 +499,7 @@ public class UserService {
         try {
             return userDAO.getTotalUserCount();
         } catch (SQLException e) {
-            System.err.println("Error getting user count: " + e.getMessage());
+            LOG.error("Error getting user count", "error", e.getMessage());
             return 0;
         }
     }
@@ -397,7 +511,7 @@ public class UserService {
         try {
             return userDAO.getUserCountByRole(role);
         } catch (SQLException e) {
-            System.err.println("Error getting user count by role: " + e.getMessage());
+            LOG.error("Error getting user count by role", "error", e.getMessage());
             return 0;
         }
     }
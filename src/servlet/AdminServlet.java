@@ -0,0 +1,468 @@
+package servlet;
+
+import model.RevenueBucket;
+import service.DashboardStatistics;
+import service.OrderService;
+import service.PopularProducts;
+import util.DBConnection;
+import util.MetricsRegistry;
+import util.SqlTrace;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin Servlet
+ * Handles admin dashboard data that is not tied to one entity
+ *
+ * Supported Actions (admin only):
+ * - stats: Dashboard totals from the in-memory statistics (no queries);
+ *   add resync=true to reseed them from the database first
+ * - revenue: Order count and revenue between from and to (ISO date or
+ *   date-time, to defaults to now) from the revenue rollup; optional
+ *   status and paymentMethod filters, and granularity (minute/hour/day)
+ *   for one point per bucket
+ * - popular: Best-selling products (including unavailable ones) over
+ *   window=hour, day or all (default all), with each score's error bound
+ * - metrics: Latency, throughput and error counts per servlet action,
+ *   service method and SQL statement, plus pool and throttle gauges, in
+ *   Prometheus text format
+ * - sql: Per-statement SQL aggregates (executions, time, rows, round trips,
+ *   bind shapes), ordered by sort=total, mean, max, count, rows or slow
+ *   (default total), and the recent slow queries
+ */
+@WebServlet("/AdminServlet")
+public class AdminServlet extends HttpServlet {
+
+    // Upper bound on points in one revenue series
+    private static final int MAX_SERIES_POINTS = 2000;
+
+    // Products in the popularity report by default, and at most
+    private static final int DEFAULT_POPULAR = 20;
+    private static final int MAX_POPULAR = 200;
+
+    // Statements in the SQL report by default, and at most
+    private static final int DEFAULT_STATEMENTS = 50;
+    private static final int MAX_STATEMENTS = 500;
+
+    private DashboardStatistics statistics;
+    private OrderService orderService;
+    private PopularProducts popularProducts;
+
+    @Override
+    public void init() throws ServletException {
+        statistics = DashboardStatistics.getInstance();
+        orderService = new OrderService();
+        popularProducts = PopularProducts.getInstance();
+    }
+
+    // ================================
+    // GET Request Handler
+    // ================================
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        response.setContentType("application/json;charset=UTF-8");
+
+        String action = request.getParameter("action");
+
+        if (action == null) {
+            sendErrorResponse(response, "Action parameter is required");
+            return;
+        }
+
+        if (!SessionSupport.isAdmin(request)) {
+            sendErrorResponse(response, "Unauthorized - Admin access required");
+            return;
+        }
+
+        switch (action) {
+            case "stats":
+                handleStats(request, response);
+                break;
+            case "revenue":
+                handleRevenue(request, response);
+                break;
+            case "popular":
+                handlePopular(request, response);
+                break;
+            case "metrics":
+                handleMetrics(response);
+                break;
+            case "sql":
+                handleSql(request, response);
+                break;
+            default:
+                sendErrorResponse(response, "Invalid action: " + action);
+        }
+    }
+
+    // ================================
+    // Statistics
+    // ================================
+
+    /**
+     * Handle dashboard statistics
+     */
+    private void handleStats(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+
+        if ("true".equals(request.getParameter("resync"))) {
+            statistics.resync();
+        }
+
+        DashboardStatistics.Summary summary = statistics.getSummary();
+
+        if (summary == null) {
+            sendErrorResponse(response, "Statistics are not available");
+            return;
+        }
+
+        JsonObject ordersByStatus = new JsonObject();
+        for (Map.Entry<String, Long> entry : summary.getOrdersByStatus().entrySet()) {
+            ordersByStatus.addProperty(entry.getKey(), entry.getValue());
+        }
+
+        JsonObject stats = new JsonObject();
+        stats.addProperty("totalProducts", summary.getTotalProducts());
+        stats.addProperty("totalOrders", summary.getTotalOrders());
+        stats.addProperty("totalRevenue", summary.getTotalRevenue());
+        stats.addProperty("totalUsers", summary.getTotalUsers());
+        stats.add("ordersByStatus", ordersByStatus);
+        stats.addProperty("seededAt", summary.getSeededAt());
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("success", true);
+        jsonResponse.add("stats", stats);
+
+        sendJsonResponse(response, jsonResponse);
+    }
+
+    // ================================
+    // Revenue
+    // ================================
+
+    /**
+     * Handle revenue totals (and optionally a series) for a time range
+     */
+    private void handleRevenue(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+
+        LocalDateTime from = parseTime(request.getParameter("from"));
+        String toParam = request.getParameter("to");
+        LocalDateTime to = toParam != null ? parseTime(toParam) : LocalDateTime.now();
+
+        if (from == null || to == null || !from.isBefore(to)) {
+            sendErrorResponse(response, "Valid from and to are required (e.g. 2025-01-31 or 2025-01-31T12:00)");
+            return;
+        }
+
+        String status = emptyToNull(request.getParameter("status"));
+        String paymentMethod = emptyToNull(request.getParameter("paymentMethod"));
+
+        RevenueBucket totals = orderService.getRevenueTotals(from, to, status, paymentMethod);
+
+        if (totals == null) {
+            sendErrorResponse(response, "Failed to load revenue");
+            return;
+        }
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("success", true);
+        jsonResponse.addProperty("from", from.toString());
+        jsonResponse.addProperty("to", to.toString());
+        jsonResponse.addProperty("orderCount", totals.getOrderCount());
+        jsonResponse.addProperty("revenue", totals.getRevenue());
+
+        String granularityParam = request.getParameter("granularity");
+        if (granularityParam != null) {
+            RevenueBucket.Granularity granularity = RevenueBucket.Granularity.parse(granularityParam);
+
+            if (granularity == null) {
+                sendErrorResponse(response, "Invalid granularity: " + granularityParam);
+                return;
+            }
+
+            if (granularity.bucketsBetween(from, to) > MAX_SERIES_POINTS) {
+                sendErrorResponse(response, "Range too long for " + granularity.name().toLowerCase()
+                        + " buckets (max " + MAX_SERIES_POINTS + ")");
+                return;
+            }
+
+            List<RevenueBucket> series = orderService.getRevenueSeries(granularity, from, to, status, paymentMethod);
+
+            if (series == null) {
+                sendErrorResponse(response, "Failed to load revenue series");
+                return;
+            }
+
+            JsonArray seriesArray = new JsonArray();
+            for (RevenueBucket bucket : series) {
+                JsonObject point = new JsonObject();
+                point.addProperty("bucketStart", bucket.getBucketStart().toString());
+                point.addProperty("orderCount", bucket.getOrderCount());
+                point.addProperty("revenue", bucket.getRevenue());
+                seriesArray.add(point);
+            }
+
+            jsonResponse.addProperty("granularity", granularity.name().toLowerCase());
+            jsonResponse.add("series", seriesArray);
+        }
+
+        sendJsonResponse(response, jsonResponse);
+    }
+
+    // ================================
+    // Popular Products
+    // ================================
+
+    /**
+     * Handle the popular products report
+     */
+    private void handlePopular(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+
+        String windowParam = request.getParameter("window");
+        PopularProducts.Window window = windowParam != null
+                ? PopularProducts.Window.parse(windowParam)
+                : PopularProducts.Window.ALL;
+
+        if (window == null) {
+            sendErrorResponse(response, "Invalid window: " + windowParam);
+            return;
+        }
+
+        int limit = DEFAULT_POPULAR;
+        String limitParam = request.getParameter("limit");
+        if (limitParam != null) {
+            try {
+                limit = Math.min(Integer.parseInt(limitParam), MAX_POPULAR);
+            } catch (NumberFormatException e) {
+                sendErrorResponse(response, "Invalid limit");
+                return;
+            }
+        }
+
+        List<PopularProducts.Ranked> popular = popularProducts.getTop(window, limit, false);
+
+        if (popular == null) {
+            sendErrorResponse(response, "Failed to load popular products");
+            return;
+        }
+
+        JsonArray products = new JsonArray();
+        for (PopularProducts.Ranked ranked : popular) {
+            JsonObject product = new JsonObject();
+            product.addProperty("productId", ranked.getProduct().getProductId());
+            product.addProperty("productName", ranked.getProduct().getProductName());
+            product.addProperty("category", ranked.getProduct().getCategory());
+            product.addProperty("status", ranked.getProduct().getStatus());
+            product.addProperty("score", ranked.getScore());
+            product.addProperty("error", ranked.getError());
+            products.add(product);
+        }
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("success", true);
+        jsonResponse.addProperty("window", window.name().toLowerCase());
+        jsonResponse.addProperty("trackedProducts", popularProducts.getTrackedCounts().get(window));
+        jsonResponse.add("products", products);
+
+        sendJsonResponse(response, jsonResponse);
+    }
+
+    // ================================
+    // Metrics
+    // ================================
+
+    /**
+     * Handle the metrics scrape (Prometheus text format, not JSON)
+     */
+    private void handleMetrics(HttpServletResponse response) throws IOException {
+        response.setContentType("text/plain; version=0.0.4; charset=UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+
+        PrintWriter out = response.getWriter();
+        out.print(MetricsRegistry.getInstance().toPrometheusText());
+        out.flush();
+    }
+
+    // ================================
+    // SQL Statements
+    // ================================
+
+    /**
+     * Handle the SQL statement report and slow-query log
+     */
+    private void handleSql(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+
+        String sort = request.getParameter("sort");
+        Comparator<SqlTrace.StatementStatistics> order = statementOrder(sort != null ? sort : "total");
+
+        if (order == null) {
+            sendErrorResponse(response, "Invalid sort: " + sort);
+            return;
+        }
+
+        int limit = DEFAULT_STATEMENTS;
+        String limitParam = request.getParameter("limit");
+        if (limitParam != null) {
+            try {
+                limit = Math.max(0, Math.min(Integer.parseInt(limitParam), MAX_STATEMENTS));
+            } catch (NumberFormatException e) {
+                sendErrorResponse(response, "Invalid limit");
+                return;
+            }
+        }
+
+        List<SqlTrace.StatementStatistics> statistics = DBConnection.getStatementStatistics();
+        statistics.sort(order);
+
+        JsonArray statements = new JsonArray();
+        for (SqlTrace.StatementStatistics statement : statistics.subList(0, Math.min(limit, statistics.size()))) {
+            JsonObject bindShapes = new JsonObject();
+            for (Map.Entry<String, Long> shape : statement.getBindShapes().entrySet()) {
+                bindShapes.addProperty(shape.getKey(), shape.getValue());
+            }
+
+            JsonObject item = new JsonObject();
+            item.addProperty("sql", statement.getSql());
+            item.addProperty("executions", statement.getExecutions());
+            item.addProperty("errors", statement.getErrors());
+            item.addProperty("totalMs", statement.getTotalMillis());
+            item.addProperty("meanMs", statement.getMeanMillis());
+            item.addProperty("maxMs", statement.getMaxMillis());
+            item.addProperty("executeP99Ms", statement.getExecuteP99Millis());
+            item.addProperty("fetchMs", statement.getFetchMillis());
+            item.addProperty("rows", statement.getRows());
+            item.addProperty("maxRows", statement.getMaxRows());
+            item.addProperty("roundTrips", statement.getRoundTrips());
+            item.addProperty("roundTripsPerExecution", statement.getRoundTripsPerExecution());
+            item.addProperty("slow", statement.getSlow());
+            item.add("bindShapes", bindShapes);
+            statements.add(item);
+        }
+
+        JsonArray slowQueries = new JsonArray();
+        for (SqlTrace.SlowQuery query : DBConnection.getSlowQueries()) {
+            JsonObject item = new JsonObject();
+            item.addProperty("time", query.getTime());
+            item.addProperty("sql", query.getSql());
+            item.addProperty("bindShape", query.getBindShape());
+            item.addProperty("elapsedMs", query.getElapsedMillis());
+            item.addProperty("executeMs", query.getExecuteMillis());
+            item.addProperty("rows", query.getRows());
+            item.addProperty("roundTrips", query.getRoundTrips());
+            item.addProperty("fetchSize", query.getFetchSize());
+            item.addProperty("failed", query.isFailed());
+            item.addProperty("thread", query.getThread());
+            slowQueries.add(item);
+        }
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("success", true);
+        jsonResponse.addProperty("slowThresholdMs", SqlTrace.getSlowThresholdMillis());
+        jsonResponse.addProperty("trackedStatements", statistics.size());
+        jsonResponse.add("statements", statements);
+        jsonResponse.add("slowQueries", slowQueries);
+
+        sendJsonResponse(response, jsonResponse);
+    }
+
+    /**
+     * Descending order for a sort parameter, or null if unknown
+     */
+    private static Comparator<SqlTrace.StatementStatistics> statementOrder(String sort) {
+        Comparator<SqlTrace.StatementStatistics> order;
+
+        switch (sort) {
+            case "total":
+                order = Comparator.comparingDouble(SqlTrace.StatementStatistics::getTotalMillis);
+                break;
+            case "mean":
+                order = Comparator.comparingDouble(SqlTrace.StatementStatistics::getMeanMillis);
+                break;
+            case "max":
+                order = Comparator.comparingDouble(SqlTrace.StatementStatistics::getMaxMillis);
+                break;
+            case "count":
+                order = Comparator.comparingLong(SqlTrace.StatementStatistics::getExecutions);
+                break;
+            case "rows":
+                order = Comparator.comparingLong(SqlTrace.StatementStatistics::getRows);
+                break;
+            case "slow":
+                order = Comparator.comparingLong(SqlTrace.StatementStatistics::getSlow);
+                break;
+            default:
+                return null;
+        }
+
+        return order.reversed();
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    /**
+     * Parse an ISO date (start of day) or date-time
+     * @return Time, or null if missing or invalid
+     */
+    private LocalDateTime parseTime(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+
+        try {
+            String trimmed = value.trim();
+            return trimmed.length() == 10
+                    ? LocalDate.parse(trimmed).atStartOfDay()
+                    : LocalDateTime.parse(trimmed);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.trim().isEmpty() ? null : value.trim();
+    }
+
+    /**
+     * Send JSON response
+     */
+    private void sendJsonResponse(HttpServletResponse response, JsonObject jsonObject)
+            throws IOException {
+        PrintWriter out = response.getWriter();
+        out.print(jsonObject.toString());
+        out.flush();
+    }
+
+    /**
+     * Send error response
+     */
+    private void sendErrorResponse(HttpServletResponse response, String message)
+            throws IOException {
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("success", false);
+        jsonResponse.addProperty("message", message);
+
+        sendJsonResponse(response, jsonResponse);
+    }
+}
@@ -0,0 +1,99 @@
+package servlet;
+
+import service.DashboardStatistics;
+import service.LoginThrottle;
+import service.PasswordService;
+import service.PopularProducts;
+import service.RevenueRollup;
+import service.UserIdentityFilter;
+import util.AppLogger;
+import util.DBConnection;
+import util.MetricsRegistry;
+import util.SqlTrace;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Application Lifecycle Listener
+ * Runs start-up and shut-down work for the web application
+ *
+ * - contextInitialized: warm the username/email Bloom filters used by
+ *   registration checks, seed the dashboard statistics, load the
+ *   revenue rollup, seed the popular product windows and register the
+ *   gauges exported by AdminServlet?action=metrics
+ * - contextDestroyed: stop the password hashing threads, write the queued
+ *   revenue rollup deltas and close pooled
+ *   database connections so that redeploying on Tomcat does not leak
+ *   threads or Oracle sessions, then drain and stop the log writer
+ */
+@WebListener
+public class AppLifecycleListener implements ServletContextListener {
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        UserIdentityFilter.getInstance().warm();
+        DashboardStatistics.getInstance().resync();
+        RevenueRollup.getInstance().load();
+        PopularProducts.getInstance().load();
+        registerGauges();
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent event) {
+        PasswordService.getInstance().shutdown();
+        RevenueRollup.getInstance().shutdown();
+        DBConnection.shutdown();
+        AppLogger.shutdown();
+    }
+
+    // ================================
+    // Metrics
+    // ================================
+
+    /**
+     * Expose counters kept by other components as metrics gauges
+     */
+    private void registerGauges() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+        metrics.registerGauge("foodhub_db_pool_active_connections", "Connections borrowed from the pool", false,
+                () -> DBConnection.getPoolStatistics().getActiveConnections());
+        metrics.registerGauge("foodhub_db_pool_idle_connections", "Idle pooled connections", false,
+                () -> DBConnection.getPoolStatistics().getIdleConnections());
+        metrics.registerGauge("foodhub_db_pool_waiting_threads", "Threads waiting for a connection", false,
+                () -> DBConnection.getPoolStatistics().getWaitingThreads());
+        metrics.registerGauge("foodhub_db_pool_borrows_total", "Connections borrowed", true,
+                () -> DBConnection.getPoolStatistics().getBorrowCount());
+        metrics.registerGauge("foodhub_db_pool_timeouts_total", "Borrows that timed out", true,
+                () -> DBConnection.getPoolStatistics().getTimeoutCount());
+        metrics.registerGauge("foodhub_db_statement_cache_hits_total", "Prepared statement cache hits", true,
+                () -> DBConnection.getPoolStatistics().getStatementCacheHits());
+        metrics.registerGauge("foodhub_db_statement_cache_misses_total", "Prepared statement cache misses", true,
+                () -> DBConnection.getPoolStatistics().getStatementCacheMisses());
+        metrics.registerGauge("foodhub_sql_slow_queries_total", "SQL executions over the slow-query threshold", true,
+                SqlTrace::getSlowCount);
+
+        LoginThrottle throttle = LoginThrottle.getInstance();
+        metrics.registerGauge("foodhub_login_attempts_allowed_total", "Login attempts let through", true,
+                throttle::getAllowed);
+        metrics.registerGauge("foodhub_login_rejected_by_username_total", "Login attempts throttled per username",
+                true, throttle::getRejectedByUsername);
+        metrics.registerGauge("foodhub_login_rejected_by_ip_total", "Login attempts throttled per client IP",
+                true, throttle::getRejectedByIp);
+
+        UserIdentityFilter identityFilter = UserIdentityFilter.getInstance();
+        metrics.registerGauge("foodhub_identity_filter_definite_misses_total",
+                "Availability checks answered by the Bloom filter alone", true, identityFilter::getDefiniteMisses);
+        metrics.registerGauge("foodhub_identity_filter_probable_hits_total",
+                "Availability checks that needed a query", true, identityFilter::getProbableHits);
+
+        metrics.registerGauge("foodhub_log_events_dropped_total", "Log events dropped because the buffer was full",
+                true, AppLogger::getDroppedCount);
+
+        Runtime runtime = Runtime.getRuntime();
+        metrics.registerGauge("foodhub_jvm_heap_used_bytes", "Heap in use", false,
+                () -> runtime.totalMemory() - runtime.freeMemory());
+    }
+}
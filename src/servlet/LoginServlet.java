@@ -1,7 +1,9 @@
 package servlet;
 
 import model.User;
+import service.LoginThrottle;
 import service.UserService;
+import util.AppLogger;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 
@@ -10,7 +12,6 @@ import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.List;
@@ -29,12 +30,19 @@ import java.util.List;
 @WebServlet("/LoginServlet")
 public class LoginServlet extends HttpServlet {
 
+    // Not defined by the Servlet 4 API
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
+    private static final AppLogger LOG = AppLogger.getLogger(LoginServlet.class);
+
     private UserService userService;
+    private LoginThrottle loginThrottle;
     private Gson gson;
 
     @Override
     public void init() throws ServletException {
         userService = new UserService();
+        loginThrottle = LoginThrottle.getInstance();
         gson = new Gson();
     }
 
@@ -124,17 +132,24 @@ public class LoginServlet extends HttpServlet {
             return;
         }
 
+        // Throttle before any hashing or database work
+        long retryAfterSeconds = loginThrottle.tryAttempt(username, request.getRemoteAddr());
+        if (retryAfterSeconds > 0) {
+            LOG.warn("Login attempt throttled", "username", username,
+                    "ip", request.getRemoteAddr(), "retryAfter", retryAfterSeconds);
+            response.setStatus(SC_TOO_MANY_REQUESTS);
+            response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+            sendErrorResponse(response, "Too many login attempts. Please try again in "
+                    + retryAfterSeconds + " seconds");
+            return;
+        }
+
         // Authenticate user
         User user = userService.loginUser(username, password, role);
 
         if (user != null) {
-            // Login successful - create session
-            HttpSession session = request.getSession(true);
-            session.setAttribute("user", user);
-            session.setAttribute("userId", user.getUserId());
-            session.setAttribute("username", user.getUsername());
-            session.setAttribute("role", user.getRole());
-            session.setMaxInactiveInterval(3600); // 1 hour
+            // Login successful - the session keeps only the principal
+            SessionSupport.login(request, response, user);
 
             // Send success response with user data (without password)
             JsonObject jsonResponse = new JsonObject();
@@ -207,11 +222,7 @@ public class LoginServlet extends HttpServlet {
     private void handleLogout(HttpServletRequest request, HttpServletResponse response)
             throws IOException {
 
-        HttpSession session = request.getSession(false);
-
-        if (session != null) {
-            session.invalidate();
-        }
+        SessionSupport.logout(request, response);
 
         JsonObject jsonResponse = new JsonObject();
         jsonResponse.addProperty("success", true);
@@ -227,16 +238,14 @@ public class LoginServlet extends HttpServlet {
     private void handleCheckSession(HttpServletRequest request, HttpServletResponse response)
             throws IOException {
 
-        HttpSession session = request.getSession(false);
+        User.UserDTO user = SessionSupport.getCurrentUser(request);
 
-        if (session != null && session.getAttribute("user") != null) {
+        if (user != null) {
             // User is logged in
-            User user = (User) session.getAttribute("user");
-
             JsonObject jsonResponse = new JsonObject();
             jsonResponse.addProperty("success", true);
             jsonResponse.addProperty("loggedIn", true);
-            jsonResponse.add("user", gson.toJsonTree(user.toDTO()));
+            jsonResponse.add("user", gson.toJsonTree(user));
 
             sendJsonResponse(response, jsonResponse);
 
@@ -259,16 +268,12 @@ public class LoginServlet extends HttpServlet {
             throws IOException {
 
         // Check if user is admin
-        HttpSession session = request.getSession(false);
-
-        if (session == null || session.getAttribute("user") == null) {
+        if (!SessionSupport.isLoggedIn(request)) {
             sendErrorResponse(response, "Unauthorized - Please login");
             return;
         }
 
-        User currentUser = (User) session.getAttribute("user");
-
-        if (!currentUser.isAdmin()) {
+        if (!SessionSupport.isAdmin(request)) {
             sendErrorResponse(response, "Unauthorized - Admin access required");
             return;
         }
@@ -0,0 +1,93 @@
+package servlet;
+
+import util.MetricsRegistry;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.annotation.WebFilter;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Metrics Filter
+ * Times every servlet request and records it in the HTTP family of the
+ * {@link MetricsRegistry} under "<Servlet>.<action>", e.g.
+ * "ProductServlet.list"
+ *
+ * Only the actions the servlets handle get their own timer; a missing or
+ * unknown action (client input) is recorded as "<Servlet>.other", so
+ * random action values cannot fill the registry and push out real
+ * endpoints.
+ *
+ * A request counts as an error when the servlet throws or answers with a
+ * 5xx status. The action is read after the servlet has run, so parameter
+ * parsing still happens with the character encoding the servlet sets.
+ */
+@WebFilter(urlPatterns = {"/LoginServlet", "/ProductServlet", "/OrderServlet", "/AdminServlet"})
+public class MetricsFilter implements Filter {
+
+    // Actions handled per servlet (GET and POST); keep in step with the servlets' switch statements
+    private static final Map<String, Set<String>> KNOWN_ACTIONS = new HashMap<>();
+
+    static {
+        KNOWN_ACTIONS.put("LoginServlet", actions("login", "register", "logout", "checkSession", "listUsers"));
+        KNOWN_ACTIONS.put("ProductServlet", actions("list", "get", "search", "suggest", "popular",
+                "add", "update", "delete"));
+        KNOWN_ACTIONS.put("OrderServlet", actions("list", "getUserOrders", "listAll", "get",
+                "create", "updateStatus", "cancel"));
+        KNOWN_ACTIONS.put("AdminServlet", actions("stats", "revenue", "popular", "metrics", "sql"));
+    }
+
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    @Override
+    public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        long start = System.nanoTime();
+        boolean failed = true;
+
+        try {
+            chain.doFilter(request, response);
+            failed = ((HttpServletResponse) response).getStatus() >= 500;
+        } finally {
+            metrics.timer(MetricsRegistry.Family.HTTP, timerName((HttpServletRequest) request))
+                    .record(System.nanoTime() - start, failed);
+        }
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    /**
+     * Servlet name and action, e.g. "OrderServlet.create"
+     */
+    private String timerName(HttpServletRequest request) {
+        String servlet = request.getServletPath();
+        if (servlet.startsWith("/")) {
+            servlet = servlet.substring(1);
+        }
+
+        String action = request.getParameter("action");
+        Set<String> known = KNOWN_ACTIONS.get(servlet);
+        if (action == null || known == null || !known.contains(action)) {
+            action = "other";
+        }
+
+        return servlet + "." + action;
+    }
+
+    private static Set<String> actions(String... names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+}
@@ -1,20 +1,23 @@
 package servlet;
 
+import dao.OrderDAO;
 import model.Order;
 import model.OrderItem;
-import model.User;
 import service.OrderService;
+import util.AppLogger;
+import util.Page;
+import util.PageCursor;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
 
 import javax.servlet.ServletException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.PrintWriter;
@@ -27,8 +30,8 @@ import java.util.List;
  *
  * Supported Actions:
  * - create: Create new order
- * - list: Get user's orders
- * - listAll: Get all orders (admin only)
+ * - list: Get user's orders (or one page with limit/cursor)
+ * - listAll: Get all orders (admin only, or one page with limit/cursor)
  * - get: Get order by ID
  * - updateStatus: Update order status (admin only)
  * - cancel: Cancel order
@@ -36,6 +39,8 @@ import java.util.List;
 @WebServlet("/OrderServlet")
 public class OrderServlet extends HttpServlet {
 
+    private static final AppLogger LOG = AppLogger.getLogger(OrderServlet.class);
+
     private OrderService orderService;
     private Gson gson;
 
@@ -130,8 +135,7 @@ public class OrderServlet extends HttpServlet {
     private void handleCreateOrder(HttpServletRequest request, HttpServletResponse response)
             throws IOException {
 
-        HttpSession session = request.getSession(false);
-        int userId = (Integer) session.getAttribute("userId");
+        int userId = SessionSupport.getUserId(request);
 
         // Read JSON from request body
         StringBuilder sb = new StringBuilder();
@@ -203,7 +207,7 @@ public class OrderServlet extends HttpServlet {
             }
 
         } catch (Exception e) {
-            e.printStackTrace();
+            LOG.error("Error processing order", e);
             sendErrorResponse(response, "Error processing order: " + e.getMessage());
         }
     }
@@ -213,24 +217,27 @@ public class OrderServlet extends HttpServlet {
     // ================================
     private void getUserOrders(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
-        System.out.println("getUserOrders called");
+        LOG.debug("getUserOrders called");
         try {
-            HttpSession session = request.getSession(false);
-            if (session == null || session.getAttribute("user") == null) {
+            if (!isLoggedIn(request)) {
                 sendErrorResponse(response, "Please login to view orders");
                 return;
             }
 
-            User user = (User) session.getAttribute("user");
-            int userId = user.getUserId();
-
-            List<Order> orders = orderService.getOrdersByUserId(userId);
+            int userId = SessionSupport.getUserId(request);
 
-            for (Order order : orders) {
-                List<OrderItem> items = orderService.getOrderItemsByOrderId(order.getOrderId());
-                order.setOrderItems(items);
+            // Paged when the client asks for a page size or continues from a cursor
+            Page<Order> page = null;
+            if (isPagedRequest(request)) {
+                page = getOrderPage(request, response, userId);
+                if (page == null) {
+                    return;
+                }
             }
 
+            // Items are already attached by the service (one batched query)
+            List<Order> orders = page != null ? page.getItems() : orderService.getOrdersByUserId(userId);
+
             JsonArray ordersArray = new JsonArray();
             for (Order order : orders) {
                 JsonObject orderJson = new JsonObject();
@@ -265,11 +272,14 @@ public class OrderServlet extends HttpServlet {
             JsonObject jsonResponse = new JsonObject();
             jsonResponse.addProperty("success", true);
             jsonResponse.add("orders", ordersArray);
+            if (page != null) {
+                jsonResponse.addProperty("nextCursor", page.getNextCursor());
+            }
 
             sendJsonResponse(response, jsonResponse);
 
         } catch (Exception e) {
-            e.printStackTrace();
+            LOG.error("Error loading orders", e);
             sendErrorResponse(response, "Error loading orders: " + e.getMessage());
         }
     }
@@ -280,66 +290,139 @@ public class OrderServlet extends HttpServlet {
     private void getAllOrders(HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         try {
-            HttpSession session = request.getSession(false);
-            if (session == null || session.getAttribute("user") == null) {
+            if (!isLoggedIn(request)) {
                 sendErrorResponse(response, "Please login to view orders");
                 return;
             }
 
-            User user = (User) session.getAttribute("user");
-            if (!"admin".equals(user.getRole())) {
+            if (!isAdmin(request)) {
                 sendErrorResponse(response, "Unauthorized - Admin access required");
                 return;
             }
 
-            List<Order> orders = orderService.getAllOrders();
+            // Paged when the client asks for a page size or continues from a cursor
+            if (isPagedRequest(request)) {
+                Page<Order> page = getOrderPage(request, response, null);
+                if (page == null) {
+                    return;
+                }
 
-            for (Order order : orders) {
-                List<OrderItem> items = orderService.getOrderItemsByOrderId(order.getOrderId());
-                order.setOrderItems(items);
+                OrderStreamWriter out = new OrderStreamWriter(response);
+                for (Order order : page.getItems()) {
+                    out.handle(order);
+                }
+                out.finishPage(page.getNextCursor());
+                return;
             }
 
-            JsonArray ordersArray = new JsonArray();
-            for (Order order : orders) {
-                JsonObject orderJson = new JsonObject();
-                orderJson.addProperty("orderId", order.getOrderId());
-                orderJson.addProperty("userId", order.getUserId());
-                orderJson.addProperty("username", order.getUsername());
-                orderJson.addProperty("orderDate", order.getOrderDate().toString());
-                orderJson.addProperty("totalAmount", order.getTotalAmount());
-                orderJson.addProperty("status", order.getStatus());
-                orderJson.addProperty("deliveryAddress", order.getDeliveryAddress());
-                orderJson.addProperty("paymentMethod", order.getPaymentMethod());
-                orderJson.addProperty("paymentStatus", order.getPaymentStatus());
-                orderJson.addProperty("notes", order.getNotes() != null ? order.getNotes() : "");
+            // Full export: orders are written as they are read, nothing is buffered
+            OrderStreamWriter out = new OrderStreamWriter(response);
 
-                JsonArray itemsArray = new JsonArray();
-                for (OrderItem item : order.getOrderItems()) {
-                    JsonObject itemJson = new JsonObject();
-                    itemJson.addProperty("orderItemId", item.getOrderItemId());
-                    itemJson.addProperty("productId", item.getProductId());
-                    itemJson.addProperty("productName", item.getProductName());
-                    itemJson.addProperty("quantity", item.getQuantity());
-                    itemJson.addProperty("unitPrice", item.getUnitPrice());
-                    itemJson.addProperty("subtotal", item.getSubtotal());
-                    itemJson.addProperty("imageUrl", item.getImageUrl() != null ? item.getImageUrl() : "");
-                    itemJson.addProperty("category", item.getCategory() != null ? item.getCategory() : "");
-                    itemsArray.add(itemJson);
-                }
-                orderJson.add("items", itemsArray);
+            if (orderService.streamAllOrders(out)) {
+                out.finish();
+            } else if (!out.isStarted()) {
+                sendErrorResponse(response, "Error loading orders");
+            } else {
+                // Headers are gone - cut the body short so the client sees invalid JSON
+                out.abort();
+            }
 
-                ordersArray.add(orderJson);
+        } catch (Exception e) {
+            LOG.error("Error loading orders", e);
+            if (!response.isCommitted()) {
+                sendErrorResponse(response, "Error loading orders: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Writes the listAll response incrementally through a JsonWriter
+     * The response prefix is written with the first order, so a failure
+     * before any order has been read can still become an error response
+     */
+    private static class OrderStreamWriter implements OrderDAO.OrderHandler {
+
+        private final HttpServletResponse response;
+        private JsonWriter writer;
+
+        OrderStreamWriter(HttpServletResponse response) {
+            this.response = response;
+        }
+
+        boolean isStarted() {
+            return writer != null;
+        }
+
+        @Override
+        public void handle(Order order) throws IOException {
+            start();
+
+            writer.beginObject();
+            writer.name("orderId").value(order.getOrderId());
+            writer.name("userId").value(order.getUserId());
+            writer.name("username").value(order.getUsername());
+            writer.name("orderDate").value(order.getOrderDate().toString());
+            writer.name("totalAmount").value(order.getTotalAmount());
+            writer.name("status").value(order.getStatus());
+            writer.name("deliveryAddress").value(order.getDeliveryAddress());
+            writer.name("paymentMethod").value(order.getPaymentMethod());
+            writer.name("paymentStatus").value(order.getPaymentStatus());
+            writer.name("notes").value(order.getNotes() != null ? order.getNotes() : "");
+
+            writer.name("items").beginArray();
+            for (OrderItem item : order.getOrderItems()) {
+                writer.beginObject();
+                writer.name("orderItemId").value(item.getOrderItemId());
+                writer.name("productId").value(item.getProductId());
+                writer.name("productName").value(item.getProductName());
+                writer.name("quantity").value(item.getQuantity());
+                writer.name("unitPrice").value(item.getUnitPrice());
+                writer.name("subtotal").value(item.getSubtotal());
+                writer.name("imageUrl").value(item.getImageUrl() != null ? item.getImageUrl() : "");
+                writer.name("category").value(item.getCategory() != null ? item.getCategory() : "");
+                writer.endObject();
             }
+            writer.endArray();
 
-            JsonObject jsonResponse = new JsonObject();
-            jsonResponse.addProperty("success", true);
-            jsonResponse.add("orders", ordersArray);
+            writer.endObject();
+        }
 
-            sendJsonResponse(response, jsonResponse);
+        /**
+         * Close the orders array and the response object
+         */
+        void finish() throws IOException {
+            start();
+            writer.endArray();
+            writer.endObject();
+            writer.flush();
+        }
 
-        } catch (Exception e) {
-            e.printStackTrace();
-            sendErrorResponse(response, "Error loading orders: " + e.getMessage());
+        /**
+         * Close a paged response, adding the cursor for the next page (null on the last page)
+         */
+        void finishPage(String nextCursor) throws IOException {
+            start();
+            writer.endArray();
+            writer.name("nextCursor").value(nextCursor);
+            writer.endObject();
+            writer.flush();
+        }
+
+        /**
+         * Stop writing after a failure part-way through the body
+         */
+        void abort() throws IOException {
+            writer.flush();
+            response.flushBuffer();
+        }
+
+        private void start() throws IOException {
+            if (writer == null) {
+                writer = new JsonWriter(response.getWriter());
+                writer.beginObject();
+                writer.name("success").value(true);
+                writer.name("orders").beginArray();
+            }
         }
     }
 
@@ -363,8 +446,7 @@ public class OrderServlet extends HttpServlet {
 
             if (order != null) {
                 // Check authorization - user can only view their own orders
-                HttpSession session = request.getSession(false);
-                int userId = (Integer) session.getAttribute("userId");
+                int userId = SessionSupport.getUserId(request);
 
                 if (order.getUserId() != userId && !isAdmin(request)) {
                     sendErrorResponse(response, "Unauthorized - Cannot view other user's orders");
@@ -451,8 +533,7 @@ public class OrderServlet extends HttpServlet {
                 return;
             }
 
-            HttpSession session = request.getSession(false);
-            int userId = (Integer) session.getAttribute("userId");
+            int userId = SessionSupport.getUserId(request);
 
             if (order.getUserId() != userId && !isAdmin(request)) {
                 sendErrorResponse(response, "Unauthorized - Cannot cancel other user's orders");
@@ -481,26 +562,56 @@ public class OrderServlet extends HttpServlet {
     // Helper Methods
     // ================================
 
+    /**
+     * Check if the client asked for a page (limit or cursor parameter)
+     */
+    private boolean isPagedRequest(HttpServletRequest request) {
+        return request.getParameter("limit") != null || request.getParameter("cursor") != null;
+    }
+
+    /**
+     * Load one page of orders, newest first
+     * Sends the error response itself and returns null if the parameters are invalid
+     * @param userId Owner of the orders, or null for all orders (admin)
+     */
+    private Page<Order> getOrderPage(HttpServletRequest request, HttpServletResponse response, Integer userId)
+            throws IOException {
+        String cursorToken = request.getParameter("cursor");
+        int limit = Page.parseSize(request.getParameter("limit"));
+
+        if (limit < 0) {
+            sendErrorResponse(response, "Invalid limit");
+            return null;
+        }
+
+        PageCursor after = PageCursor.decode(cursorToken);
+        if (cursorToken != null && !cursorToken.isEmpty() && after == null) {
+            sendErrorResponse(response, "Invalid cursor");
+            return null;
+        }
+
+        Page<Order> page = userId != null
+                ? orderService.getOrdersByUserIdPage(userId, after, limit)
+                : orderService.getAllOrdersPage(after, limit);
+
+        if (page == null) {
+            sendErrorResponse(response, "Error loading orders");
+        }
+        return page;
+    }
+
     /**
      * Check if user is logged in
      */
     private boolean isLoggedIn(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-        return session != null && session.getAttribute("userId") != null;
+        return SessionSupport.isLoggedIn(request);
     }
 
     /**
      * Check if current user is admin
      */
     private boolean isAdmin(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
-
-        if (session != null && session.getAttribute("role") != null) {
-            String role = (String) session.getAttribute("role");
-            return "admin".equalsIgnoreCase(role);
-        }
-
-        return false;
+        return SessionSupport.isAdmin(request);
     }
 
     /**
@@ -0,0 +1,176 @@
+package servlet;
+
+import model.Product;
+import service.ProductCatalogCache;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Product List Response Cache
+ * Keeps the finished UTF-8 JSON body of ProductServlet?action=list
+ * for each (category, status) filter, plus a gzipped copy
+ *
+ * The body only changes when the catalog snapshot changes, so each entry
+ * is tagged with the catalog version it was built from and rebuilt on the
+ * first request after a newer snapshot has been swapped in. A cache hit
+ * is a single byte-array write - no Gson tree, no string building.
+ */
+class ProductListResponseCache {
+
+    // Bodies smaller than this are not worth compressing
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    // Upper bound on cached filter combinations (request parameters are user input)
+    private static final int MAX_ENTRIES = 64;
+
+    private final Gson gson;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    ProductListResponseCache(Gson gson) {
+        this.gson = gson;
+    }
+
+    /**
+     * Get the response body for a filter, building it if the catalog changed
+     * @param snapshot Catalog snapshot to serve from
+     * @param category Category filter ("all"/empty for none)
+     * @param status Status filter (empty for none)
+     */
+    Entry get(ProductCatalogCache.Snapshot snapshot, String category, String status) {
+        Entry entry = getCached(snapshot, category, status);
+
+        if (entry != null) {
+            return entry;
+        }
+
+        String key = normalize(category) + '|' + normalize(status);
+        entry = build(snapshot, category, status);
+
+        if (entries.size() < MAX_ENTRIES || entries.containsKey(key)) {
+            entries.put(key, entry);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Get the response body for a filter only if it is cached for the snapshot's version
+     * @return Cached entry, or null if get would have to build it
+     */
+    Entry getCached(ProductCatalogCache.Snapshot snapshot, String category, String status) {
+        Entry entry = entries.get(normalize(category) + '|' + normalize(status));
+        return entry != null && entry.version == snapshot.getVersion() ? entry : null;
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    /**
+     * Serialize the listing exactly as handleListProducts always has
+     */
+    private Entry build(ProductCatalogCache.Snapshot snapshot, String category, String status) {
+        long startNanos = System.nanoTime();
+        List<Product> products;
+
+        if (category != null && !category.isEmpty() && !category.equals("all")) {
+            // Filter by category
+            products = snapshot.getProductsByCategory(category);
+        } else if (status != null && !status.isEmpty()) {
+            // Filter by status
+            products = snapshot.getProductsByStatus(status);
+        } else {
+            // Get all products
+            products = snapshot.getAllProducts();
+        }
+
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("success", true);
+        jsonResponse.add("products", gson.toJsonTree(products));
+
+        byte[] json = jsonResponse.toString().getBytes(StandardCharsets.UTF_8);
+        return new Entry(snapshot.getVersion(), json, products.size(), System.nanoTime() - startNanos);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value;
+    }
+
+    // ================================
+    // Cache Entry
+    // ================================
+
+    /**
+     * Serialized listing for one filter at one catalog version
+     */
+    static class Entry {
+        private final long version;
+        private final byte[] json;
+        private final int rows;
+        private final long buildNanos;
+        private volatile byte[] gzipped;
+
+        Entry(long version, byte[] json, int rows, long buildNanos) {
+            this.version = version;
+            this.json = json;
+            this.rows = rows;
+            this.buildNanos = buildNanos;
+        }
+
+        long getVersion() {
+            return version;
+        }
+
+        /**
+         * Products in the listing
+         */
+        int getRows() {
+            return rows;
+        }
+
+        /**
+         * Time it took to serialize the listing
+         */
+        long getBuildNanos() {
+            return buildNanos;
+        }
+
+        byte[] getJson() {
+            return json;
+        }
+
+        /**
+         * Gzipped body, compressed on first use and kept with the entry
+         * @return Compressed bytes, or null if the body is too small to bother
+         */
+        byte[] getGzipped() {
+            if (json.length < GZIP_MIN_BYTES) {
+                return null;
+            }
+
+            byte[] compressed = gzipped;
+            if (compressed == null) {
+                compressed = gzip(json);
+                gzipped = compressed;
+            }
+            return compressed;
+        }
+
+        private static byte[] gzip(byte[] data) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 4);
+            try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+                out.write(data);
+            } catch (IOException e) {
+                throw new IllegalStateException("In-memory gzip failed", e);
+            }
+            return buffer.toByteArray();
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package servlet;
 
 import model.Product;
+import service.PopularProducts;
+import service.ProductCatalogCache;
 import service.ProductService;
+import util.CatalogReadEvent;
+import util.Page;
+import util.PageCursor;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
 import javax.servlet.ServletException;
@@ -10,8 +16,8 @@ import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import javax.servlet.http.HttpSession;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.util.List;
 
@@ -20,23 +26,45 @@ import java.util.List;
  * Handles product operations (list, add, update, delete)
  *
  * Supported Actions:
- * - list: Get all products
+ * - list: Get all products (or one page with limit/cursor)
  * - get: Get product by ID
  * - add: Add new product (admin only)
  * - update: Update product (admin only)
  * - delete: Delete product (admin only)
  * - search: Search products by keyword
+ * - suggest: Product name suggestions for a search prefix
+ * - popular: Best-selling available products over window=hour, day or
+ *   all (default day), from the in-memory popularity tracker
+ *
+ * Catalog reads (list, get, search, suggest) carry a strong ETag derived from the
+ * catalog version; conditional GETs with a matching If-None-Match are
+ * answered with 304 before the service layer is called.
  */
 @WebServlet("/ProductServlet")
 public class ProductServlet extends HttpServlet {
 
+    // Distinguishes catalog versions of this JVM from those of a previous run
+    private static final String ETAG_BOOT_ID = Long.toString(System.currentTimeMillis(), 36);
+
+    // Browsers and proxies may store catalog responses but must revalidate with the ETag
+    private static final String CATALOG_CACHE_CONTROL = "public, no-cache";
+
+    // Suggestions returned when the request does not ask for a number
+    private static final int DEFAULT_SUGGESTIONS = 8;
+
+    // Popular products returned by default, and at most
+    private static final int DEFAULT_POPULAR = 8;
+    private static final int MAX_POPULAR = 50;
+
     private ProductService productService;
     private Gson gson;
+    private ProductListResponseCache listResponseCache;
 
     @Override
     public void init() throws ServletException {
         productService = new ProductService();
         gson = new Gson();
+        listResponseCache = new ProductListResponseCache(gson);
     }
 
     // ================================
@@ -56,6 +84,18 @@ public class ProductServlet extends HttpServlet {
             return;
         }
 
+        // Conditional GET: answer 304 without touching the service layer
+        if (isCatalogRead(action)) {
+            long catalogVersion = ProductCatalogCache.getInstance().getVersion();
+            if (catalogVersion > 0 && isNotModified(request, catalogVersion)) {
+                response.setHeader("Cache-Control", CATALOG_CACHE_CONTROL);
+                response.setHeader("Vary", "Accept-Encoding");
+                response.setHeader("ETag", catalogETag(catalogVersion, false));
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+
         switch (action) {
             case "list":
                 handleListProducts(request, response);
@@ -66,6 +106,12 @@ public class ProductServlet extends HttpServlet {
             case "search":
                 handleSearchProducts(request, response);
                 break;
+            case "suggest":
+                handleSuggestProducts(request, response);
+                break;
+            case "popular":
+                handlePopularProducts(request, response);
+                break;
             default:
                 sendErrorResponse(response, "Invalid action: " + action);
         }
@@ -122,27 +168,100 @@ public class ProductServlet extends HttpServlet {
         String category = request.getParameter("category");
         String status = request.getParameter("status");
 
-        List<Product> products;
+        CatalogReadEvent event = new CatalogReadEvent();
+        event.begin();
 
-        if (category != null && !category.isEmpty() && !category.equals("all")) {
-            // Filter by category
-            products = productService.getProductsByCategory(category);
-        } else if (status != null && !status.isEmpty()) {
-            // Filter by status
-            products = productService.getProductsByStatus(status);
-        } else {
-            // Get all products
-            products = productService.getAllProducts();
+        long catalogVersion = ProductCatalogCache.getInstance().getVersion();
+        ProductCatalogCache.Snapshot snapshot = productService.getCatalogSnapshot();
+
+        if (snapshot == null) {
+            sendErrorResponse(response, "Failed to retrieve products");
+            return;
         }
 
-        if (products != null) {
-            JsonObject jsonResponse = new JsonObject();
-            jsonResponse.addProperty("success", true);
-            jsonResponse.add("products", gson.toJsonTree(products));
+        // Paged listing when the client asks for a page size or continues from a cursor
+        if (request.getParameter("limit") != null || request.getParameter("cursor") != null) {
+            handleListProductsPage(request, response, snapshot, category, status,
+                    event, catalogVersion == snapshot.getVersion());
+            return;
+        }
 
-            sendJsonResponse(response, jsonResponse);
-        } else {
-            sendErrorResponse(response, "Failed to retrieve products");
+        // Pre-serialized body, rebuilt only when the catalog version changes
+        ProductListResponseCache.Entry entry = listResponseCache.getCached(snapshot, category, status);
+        boolean cacheHit = entry != null;
+        if (!cacheHit) {
+            entry = listResponseCache.get(snapshot, category, status);
+        }
+
+        byte[] gzipped = acceptsGzip(request) ? entry.getGzipped() : null;
+        byte[] body = gzipped != null ? gzipped : entry.getJson();
+
+        response.setHeader("Vary", "Accept-Encoding");
+        response.setHeader("Cache-Control", CATALOG_CACHE_CONTROL);
+        response.setHeader("ETag", catalogETag(entry.getVersion(), gzipped != null));
+        if (gzipped != null) {
+            response.setHeader("Content-Encoding", "gzip");
+        }
+        response.setContentLength(body.length);
+
+        OutputStream out = response.getOutputStream();
+        out.write(body);
+        out.flush();
+
+        if (event.shouldCommit()) {
+            event.action = "list";
+            event.cacheHit = cacheHit && catalogVersion == snapshot.getVersion();
+            event.rows = entry.getRows();
+            event.serializationTime = cacheHit ? 0L : entry.getBuildNanos();
+            event.responseBytes = body.length;
+            event.gzip = gzipped != null;
+            event.commit();
+        }
+    }
+
+    /**
+     * One page of the listing, newest first, with an opaque cursor for the next page
+     */
+    private void handleListProductsPage(HttpServletRequest request, HttpServletResponse response,
+                                        ProductCatalogCache.Snapshot snapshot, String category, String status,
+                                        CatalogReadEvent event, boolean cacheHit)
+            throws IOException {
+
+        String cursorToken = request.getParameter("cursor");
+        int limit = Page.parseSize(request.getParameter("limit"));
+
+        if (limit < 0) {
+            sendErrorResponse(response, "Invalid limit");
+            return;
+        }
+
+        PageCursor after = PageCursor.decode(cursorToken);
+        if (cursorToken != null && !cursorToken.isEmpty() && after == null) {
+            sendErrorResponse(response, "Invalid cursor");
+            return;
+        }
+
+        Page<Product> page = snapshot.getProductsPage(after, category, status, limit);
+
+        setCatalogCacheHeaders(response, snapshot.getVersion());
+
+        long serializeStart = System.nanoTime();
+        JsonObject jsonResponse = new JsonObject();
+        jsonResponse.addProperty("success", true);
+        jsonResponse.add("products", gson.toJsonTree(page.getItems()));
+        jsonResponse.addProperty("nextCursor", page.getNextCursor());
+        String body = jsonResponse.toString();
+        long serializationTime = System.nanoTime() - serializeStart;
+
+        sendJsonResponse(response, body);
+
+        if (event.shouldCommit()) {
+            event.action = "listPage";
+            event.cacheHit = cacheHit;
+            event.rows = page.getItems().size();
+            event.serializationTime = serializationTime;
+            event.responseBytes = utf8Length(body);
+            event.commit();
         }
     }
 
@@ -162,9 +281,14 @@ public class ProductServlet extends HttpServlet {
 
         try {
             int productId = Integer.parseInt(productIdStr);
+
+            // Read the version before the data, so the tag is never newer than the body
+            long catalogVersion = ProductCatalogCache.getInstance().getVersion();
             Product product = productService.getProductById(productId);
 
             if (product != null) {
+                setCatalogCacheHeaders(response, catalogVersion);
+
                 JsonObject jsonResponse = new JsonObject();
                 jsonResponse.addProperty("success", true);
                 jsonResponse.add("product", gson.toJsonTree(product));
@@ -193,16 +317,128 @@ public class ProductServlet extends HttpServlet {
             return;
         }
 
-        List<Product> products = productService.searchProducts(keyword);
+        CatalogReadEvent event = new CatalogReadEvent();
+        event.begin();
+
+        // A version change between these two reads means this request reloaded the catalog
+        long catalogVersion = ProductCatalogCache.getInstance().getVersion();
+        ProductCatalogCache.Snapshot snapshot = productService.getCatalogSnapshot();
+        List<Product> products = snapshot != null ? snapshot.search(keyword) : null;
 
         if (products != null) {
+            setCatalogCacheHeaders(response, snapshot.getVersion());
+
+            long serializeStart = System.nanoTime();
             JsonObject jsonResponse = new JsonObject();
             jsonResponse.addProperty("success", true);
             jsonResponse.add("products", gson.toJsonTree(products));
+            String body = jsonResponse.toString();
+            long serializationTime = System.nanoTime() - serializeStart;
+
+            sendJsonResponse(response, body);
+
+            if (event.shouldCommit()) {
+                event.action = "search";
+                event.cacheHit = catalogVersion == snapshot.getVersion();
+                event.rows = products.size();
+                event.serializationTime = serializationTime;
+                event.responseBytes = utf8Length(body);
+                event.commit();
+            }
+        } else {
+            sendErrorResponse(response, "Search failed");
+        }
+    }
+
+    // ================================
+    // Suggest Products Handler
+    // ================================
+
+    private void handleSuggestProducts(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+
+        String prefix = request.getParameter("prefix");
+        String limitStr = request.getParameter("limit");
+
+        if (prefix == null || prefix.trim().isEmpty()) {
+            sendErrorResponse(response, "Prefix is required");
+            return;
+        }
+
+        int limit = DEFAULT_SUGGESTIONS;
+        if (limitStr != null) {
+            try {
+                limit = Integer.parseInt(limitStr);
+            } catch (NumberFormatException e) {
+                sendErrorResponse(response, "Invalid limit");
+                return;
+            }
+        }
+
+        // Read the version before the data, so the tag is never newer than the body
+        long catalogVersion = ProductCatalogCache.getInstance().getVersion();
+        List<String> suggestions = productService.getSuggestions(prefix.trim(), limit);
+
+        if (suggestions != null) {
+            setCatalogCacheHeaders(response, catalogVersion);
+
+            JsonObject jsonResponse = new JsonObject();
+            jsonResponse.addProperty("success", true);
+            jsonResponse.add("suggestions", gson.toJsonTree(suggestions));
 
             sendJsonResponse(response, jsonResponse);
         } else {
-            sendErrorResponse(response, "Search failed");
+            sendErrorResponse(response, "Suggest failed");
+        }
+    }
+
+    // ================================
+    // Popular Products Handler
+    // ================================
+
+    private void handlePopularProducts(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+
+        String windowStr = request.getParameter("window");
+        String limitStr = request.getParameter("limit");
+
+        PopularProducts.Window window = windowStr != null
+                ? PopularProducts.Window.parse(windowStr)
+                : PopularProducts.Window.DAY;
+
+        if (window == null) {
+            sendErrorResponse(response, "Invalid window: " + windowStr);
+            return;
+        }
+
+        int limit = DEFAULT_POPULAR;
+        if (limitStr != null) {
+            try {
+                limit = Math.min(Integer.parseInt(limitStr), MAX_POPULAR);
+            } catch (NumberFormatException e) {
+                sendErrorResponse(response, "Invalid limit");
+                return;
+            }
+        }
+
+        List<PopularProducts.Ranked> popular = productService.getPopularProducts(window, limit);
+
+        if (popular != null) {
+            JsonArray products = new JsonArray();
+            for (PopularProducts.Ranked ranked : popular) {
+                JsonObject product = gson.toJsonTree(ranked.getProduct()).getAsJsonObject();
+                product.addProperty("popularityScore", ranked.getScore());
+                products.add(product);
+            }
+
+            JsonObject jsonResponse = new JsonObject();
+            jsonResponse.addProperty("success", true);
+            jsonResponse.addProperty("window", window.name().toLowerCase());
+            jsonResponse.add("products", products);
+
+            sendJsonResponse(response, jsonResponse);
+        } else {
+            sendErrorResponse(response, "Failed to load popular products");
         }
     }
 
@@ -373,26 +609,110 @@ public class ProductServlet extends HttpServlet {
      * Check if current user is admin
      */
     private boolean isAdmin(HttpServletRequest request) {
-        HttpSession session = request.getSession(false);
+        return SessionSupport.isAdmin(request);
+    }
 
-        if (session != null && session.getAttribute("role") != null) {
-            String role = (String) session.getAttribute("role");
-            return "admin".equalsIgnoreCase(role);
+    /**
+     * Check if an action is a cacheable catalog read
+     */
+    private boolean isCatalogRead(String action) {
+        return action.equals("list") || action.equals("get") || action.equals("search")
+                || action.equals("suggest");
+    }
+
+    /**
+     * Build the ETag for a catalog version
+     * Gzipped bodies get their own strong tag, as their bytes differ
+     */
+    private String catalogETag(long catalogVersion, boolean gzipped) {
+        return "\"" + ETAG_BOOT_ID + "-" + catalogVersion + (gzipped ? "-gz" : "") + "\"";
+    }
+
+    /**
+     * Check If-None-Match against the current catalog version
+     * Either encoding's tag matches: both describe the same catalog data
+     */
+    private boolean isNotModified(HttpServletRequest request, long catalogVersion) {
+        String ifNoneMatch = request.getHeader("If-None-Match");
+
+        if (ifNoneMatch == null || ifNoneMatch.isEmpty()) {
+            return false;
+        }
+
+        String plainTag = catalogETag(catalogVersion, false);
+        String gzipTag = catalogETag(catalogVersion, true);
+
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(plainTag) || tag.equals(gzipTag)) {
+                return true;
+            }
         }
 
         return false;
     }
 
+    /**
+     * Set ETag and Cache-Control on a catalog read (skipped before the first catalog load)
+     */
+    private void setCatalogCacheHeaders(HttpServletResponse response, long catalogVersion) {
+        if (catalogVersion > 0) {
+            response.setHeader("Cache-Control", CATALOG_CACHE_CONTROL);
+            response.setHeader("ETag", catalogETag(catalogVersion, false));
+        }
+    }
+
+    /**
+     * Check if the client accepts gzip-encoded responses
+     */
+    private boolean acceptsGzip(HttpServletRequest request) {
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+    }
+
     /**
      * Send JSON response
      */
     private void sendJsonResponse(HttpServletResponse response, JsonObject jsonObject)
             throws IOException {
+        sendJsonResponse(response, jsonObject.toString());
+    }
+
+    /**
+     * Send an already serialized JSON body
+     */
+    private void sendJsonResponse(HttpServletResponse response, String body)
+            throws IOException {
         PrintWriter out = response.getWriter();
-        out.print(jsonObject.toString());
+        out.print(body);
         out.flush();
     }
 
+    /**
+     * Size of a response body once encoded as UTF-8 (without encoding it)
+     */
+    private static long utf8Length(String body) {
+        long bytes = 0;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < body.length()
+                    && Character.isLowSurrogate(body.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
     /**
      * Send error response
      */
@@ -0,0 +1,229 @@
+package servlet;
+
+import model.SessionPrincipal;
+import model.User;
+import service.UserCache;
+import util.SessionTokenSigner;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+/**
+ * Session Support
+ * Login state shared by the servlets
+ *
+ * The session holds only a {@link SessionPrincipal}; the user's current
+ * role and status come from {@link UserCache}, so each check is a map
+ * lookup rather than a database query, and suspended users lose access
+ * on their next request.
+ *
+ * Stateless mode (-Dfoodhub.session.stateless=true) replaces the session
+ * with an HMAC-signed token cookie carrying user ID, role and expiry
+ * (see {@link SessionTokenSigner}). The token is then the only source of
+ * the principal and role: isLoggedIn, isAdmin, getRole and getUserId only
+ * verify it, so any node can serve any request without sticky routing and
+ * every authorization check sees the same role. getCurrentUser reads the
+ * user cache only for display fields (name, email) and keeps the token's
+ * role. The trade-off: role changes and suspensions take effect when the
+ * token expires (-Dfoodhub.session.tokenTtlSec, default 1 hour), not
+ * immediately.
+ *
+ * Servlets authorize through isLoggedIn/isAdmin, never through the role of
+ * the user returned by getCurrentUser.
+ */
+final class SessionSupport {
+
+    // Session attribute holding the SessionPrincipal
+    static final String PRINCIPAL_ATTRIBUTE = "principal";
+
+    // Session lifetime after login (1 hour)
+    private static final int SESSION_TIMEOUT_SECONDS = 3600;
+
+    // Signed token cookie instead of HttpSession
+    static final boolean STATELESS = Boolean.getBoolean("foodhub.session.stateless");
+
+    private static final String TOKEN_COOKIE = "FOODHUB_SESSION";
+    private static final long TOKEN_TTL_SECONDS = Long.getLong("foodhub.session.tokenTtlSec", SESSION_TIMEOUT_SECONDS);
+
+    // Request attribute caching the verified token for the rest of the request
+    private static final String CLAIMS_ATTRIBUTE = SessionSupport.class.getName() + ".claims";
+    private static final Object NO_CLAIMS = new Object();
+
+    private SessionSupport() {
+    }
+
+    /**
+     * Start an authenticated session for a user
+     */
+    static void login(HttpServletRequest request, HttpServletResponse response, User user) {
+        if (STATELESS) {
+            String token = SessionTokenSigner.issue(user.getUserId(), user.getRole(), TOKEN_TTL_SECONDS);
+            setTokenCookie(request, response, token, TOKEN_TTL_SECONDS);
+            return;
+        }
+
+        HttpSession session = request.getSession(true);
+        session.setAttribute(PRINCIPAL_ATTRIBUTE, new SessionPrincipal(user.getUserId(), System.currentTimeMillis()));
+        session.setMaxInactiveInterval(SESSION_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * End the current session (both modes, so switching modes never strands a login)
+     */
+    static void logout(HttpServletRequest request, HttpServletResponse response) {
+        HttpSession session = request.getSession(false);
+        if (session != null) {
+            session.invalidate();
+        }
+
+        if (STATELESS || findTokenCookie(request) != null) {
+            setTokenCookie(request, response, "", 0);
+        }
+    }
+
+    /**
+     * Get the principal of the current session
+     * @return Principal, or null if there is no authenticated session
+     */
+    static SessionPrincipal getPrincipal(HttpServletRequest request) {
+        if (STATELESS) {
+            SessionTokenSigner.Claims claims = getClaims(request);
+            return claims != null ? new SessionPrincipal(claims.getUserId(), claims.getIssuedAt() * 1000L) : null;
+        }
+
+        HttpSession session = request.getSession(false);
+        if (session == null) {
+            return null;
+        }
+        Object principal = session.getAttribute(PRINCIPAL_ATTRIBUTE);
+        return principal instanceof SessionPrincipal ? (SessionPrincipal) principal : null;
+    }
+
+    /**
+     * Get the logged-in user's profile for display
+     * Session mode: as currently stored (from the user cache)
+     * Stateless mode: display fields from the user cache, user ID and role from the token
+     * @return User, or null if not logged in (session mode: also if deleted or no longer active)
+     */
+    static User.UserDTO getCurrentUser(HttpServletRequest request) {
+        if (STATELESS) {
+            SessionTokenSigner.Claims claims = getClaims(request);
+            return claims != null ? tokenUser(claims) : null;
+        }
+
+        SessionPrincipal principal = getPrincipal(request);
+        if (principal == null) {
+            return null;
+        }
+
+        User.UserDTO user = UserCache.getInstance().getUser(principal.getUserId());
+        if (user == null || !"active".equalsIgnoreCase(user.getStatus())) {
+            return null;
+        }
+        return user;
+    }
+
+    /**
+     * Check if the request comes from a logged-in, active user
+     */
+    static boolean isLoggedIn(HttpServletRequest request) {
+        if (STATELESS) {
+            return getClaims(request) != null;
+        }
+        return getCurrentUser(request) != null;
+    }
+
+    /**
+     * Check if the request comes from a logged-in, active admin
+     */
+    static boolean isAdmin(HttpServletRequest request) {
+        return "admin".equalsIgnoreCase(getRole(request));
+    }
+
+    /**
+     * Role of the logged-in user (from the token in stateless mode)
+     * @return Role, or null if not logged in
+     */
+    static String getRole(HttpServletRequest request) {
+        if (STATELESS) {
+            SessionTokenSigner.Claims claims = getClaims(request);
+            return claims != null ? claims.getRole() : null;
+        }
+
+        User.UserDTO user = getCurrentUser(request);
+        return user != null ? user.getRole() : null;
+    }
+
+    /**
+     * ID of the logged-in user (callers must have checked isLoggedIn)
+     */
+    static int getUserId(HttpServletRequest request) {
+        return getPrincipal(request).getUserId();
+    }
+
+    // ================================
+    // Token Helpers (stateless mode)
+    // ================================
+
+    /**
+     * Verified token claims for this request (verified once, then cached on the request)
+     */
+    private static SessionTokenSigner.Claims getClaims(HttpServletRequest request) {
+        Object cached = request.getAttribute(CLAIMS_ATTRIBUTE);
+        if (cached == null) {
+            SessionTokenSigner.Claims claims = SessionTokenSigner.verify(findTokenCookie(request));
+            cached = claims != null ? claims : NO_CLAIMS;
+            request.setAttribute(CLAIMS_ATTRIBUTE, cached);
+        }
+        return cached instanceof SessionTokenSigner.Claims ? (SessionTokenSigner.Claims) cached : null;
+    }
+
+    /**
+     * Profile for a token: a copy of the cached user with the token's ID and role
+     * (just ID and role if the user can no longer be loaded)
+     */
+    private static User.UserDTO tokenUser(SessionTokenSigner.Claims claims) {
+        User.UserDTO user = new User.UserDTO();
+        User.UserDTO cached = UserCache.getInstance().getUser(claims.getUserId());
+
+        if (cached != null) {
+            user.setUsername(cached.getUsername());
+            user.setEmail(cached.getEmail());
+            user.setFullName(cached.getFullName());
+            user.setPhone(cached.getPhone());
+            user.setStatus(cached.getStatus());
+            user.setCreatedAt(cached.getCreatedAt());
+        }
+
+        user.setUserId(claims.getUserId());
+        user.setRole(claims.getRole());
+        return user;
+    }
+
+    private static String findTokenCookie(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (TOKEN_COOKIE.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Write the token cookie by hand - the Cookie API has no SameSite attribute
+     */
+    private static void setTokenCookie(HttpServletRequest request, HttpServletResponse response,
+                                       String token, long maxAgeSeconds) {
+        String path = request.getContextPath().isEmpty() ? "/" : request.getContextPath();
+        response.addHeader("Set-Cookie", TOKEN_COOKIE + "=" + token
+                + "; Path=" + path
+                + "; Max-Age=" + maxAgeSeconds
+                + "; HttpOnly; SameSite=Lax"
+                + (request.isSecure() ? "; Secure" : ""));
+    }
+}
@@ -0,0 +1,389 @@
+package util;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Application Logger
+ * Leveled, structured logging with an asynchronous writer
+ *
+ * Log calls never touch the console: an event (time, level, logger,
+ * thread, message and key/value fields) is placed in a bounded lock-free
+ * ring buffer and one background thread formats and writes it. When the
+ * buffer is full the event is dropped and counted rather than blocking the
+ * request thread. Events below the configured level are discarded before
+ * an event is built or anything is formatted; the key/value array (and any
+ * boxed values in it) is still allocated at the call site, so guard hot
+ * debug calls with isDebugEnabled().
+ *
+ * Output is one logfmt line per event (stack traces follow on indented
+ * lines); INFO and DEBUG go to standard out, WARN and ERROR to standard
+ * error, as before.
+ *
+ * Configuration (system properties):
+ * - foodhub.log.level: DEBUG, INFO (default), WARN or ERROR
+ * - foodhub.log.bufferSize: Events buffered before dropping (default 8192)
+ *
+ * Usage:
+ * private static final AppLogger LOG = AppLogger.getLogger(OrderService.class);
+ * LOG.info("Order created", "orderId", orderId, "items", items.size());
+ *
+ * Field values are rendered on the writer thread, so pass values that do
+ * not change after the call (strings, numbers, enums).
+ */
+public final class AppLogger {
+
+    /**
+     * Event severity
+     */
+    public enum Level {
+        DEBUG, INFO, WARN, ERROR;
+
+        static Level parse(String name, Level defaultLevel) {
+            for (Level level : values()) {
+                if (level.name().equalsIgnoreCase(name)) {
+                    return level;
+                }
+            }
+            return defaultLevel;
+        }
+    }
+
+    private static final Level THRESHOLD = Level.parse(System.getProperty("foodhub.log.level"), Level.INFO);
+
+    private static final Writer WRITER = new Writer(Integer.getInteger("foodhub.log.bufferSize", 8192));
+
+    private final String name;
+
+    private AppLogger(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Get a logger named after a class (simple name)
+     */
+    public static AppLogger getLogger(Class<?> type) {
+        return new AppLogger(type.getSimpleName());
+    }
+
+    // ================================
+    // Logging
+    // ================================
+
+    public boolean isDebugEnabled() {
+        return THRESHOLD == Level.DEBUG;
+    }
+
+    /**
+     * @param fields Alternating keys and values
+     */
+    public void debug(String message, Object... fields) {
+        log(Level.DEBUG, message, null, fields);
+    }
+
+    public void info(String message, Object... fields) {
+        log(Level.INFO, message, null, fields);
+    }
+
+    public void warn(String message, Object... fields) {
+        log(Level.WARN, message, null, fields);
+    }
+
+    public void error(String message, Object... fields) {
+        log(Level.ERROR, message, null, fields);
+    }
+
+    /**
+     * Log an error with its stack trace
+     */
+    public void error(String message, Throwable error, Object... fields) {
+        log(Level.ERROR, message, error, fields);
+    }
+
+    private void log(Level level, String message, Throwable error, Object[] fields) {
+        if (level.ordinal() < THRESHOLD.ordinal()) {
+            return;
+        }
+        WRITER.publish(new Event(System.currentTimeMillis(), level, name,
+                Thread.currentThread().getName(), message, fields, error));
+    }
+
+    // ================================
+    // Lifecycle and Statistics
+    // ================================
+
+    /**
+     * Write every buffered event and stop the writer thread
+     * Later events are written synchronously by the calling thread.
+     */
+    public static void shutdown() {
+        WRITER.shutdown();
+    }
+
+    /**
+     * Events dropped because the buffer was full
+     */
+    public static long getDroppedCount() {
+        return WRITER.dropped.sum();
+    }
+
+    /**
+     * Events written so far
+     */
+    public static long getWrittenCount() {
+        return WRITER.written.sum();
+    }
+
+    // ================================
+    // Event
+    // ================================
+
+    private static final class Event {
+        final long timeMillis;
+        final Level level;
+        final String logger;
+        final String thread;
+        final String message;
+        final Object[] fields;
+        final Throwable error;
+
+        Event(long timeMillis, Level level, String logger, String thread,
+              String message, Object[] fields, Throwable error) {
+            this.timeMillis = timeMillis;
+            this.level = level;
+            this.logger = logger;
+            this.thread = thread;
+            this.message = message;
+            this.fields = fields;
+            this.error = error;
+        }
+
+        /**
+         * Append as one logfmt line (plus stack trace lines)
+         */
+        void format(StringBuilder out) {
+            out.append("ts=").append(Instant.ofEpochMilli(timeMillis))
+                    .append(" level=").append(level.name())
+                    .append(" logger=").append(logger)
+                    .append(" thread=");
+            appendValue(out, thread);
+            out.append(" msg=");
+            appendValue(out, message);
+
+            if (fields != null) {
+                for (int i = 0; i + 1 < fields.length; i += 2) {
+                    out.append(' ').append(fields[i]).append('=');
+                    appendValue(out, fields[i + 1]);
+                }
+            }
+
+            if (error != null) {
+                out.append(" error=");
+                appendValue(out, error.toString());
+                out.append('\n');
+
+                StringWriter trace = new StringWriter();
+                error.printStackTrace(new PrintWriter(trace));
+                for (String line : trace.toString().split("\\R")) {
+                    if (!line.isEmpty()) {
+                        out.append("    ").append(line).append('\n');
+                    }
+                }
+            } else {
+                out.append('\n');
+            }
+        }
+
+        private static void appendValue(StringBuilder out, Object value) {
+            String text = String.valueOf(value);
+
+            boolean quote = text.isEmpty();
+            for (int i = 0; i < text.length() && !quote; i++) {
+                char c = text.charAt(i);
+                quote = c <= ' ' || c == '"' || c == '=' || c == '\\';
+            }
+
+            if (!quote) {
+                out.append(text);
+                return;
+            }
+
+            out.append('"');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '"':
+                        out.append("\\\"");
+                        break;
+                    case '\\':
+                        out.append("\\\\");
+                        break;
+                    case '\n':
+                        out.append("\\n");
+                        break;
+                    case '\r':
+                        out.append("\\r");
+                        break;
+                    case '\t':
+                        out.append("\\t");
+                        break;
+                    default:
+                        out.append(c);
+                }
+            }
+            out.append('"');
+        }
+    }
+
+    // ================================
+    // Asynchronous Writer
+    // ================================
+
+    /**
+     * Multi-producer, single-consumer ring buffer drained by one daemon thread
+     *
+     * Producers claim a slot by advancing tail with CAS (only while fewer
+     * than capacity events are pending), then publish the event into it.
+     * The writer takes events in order from head, clearing each slot
+     * before moving head past it, so a claimed slot is always free.
+     */
+    private static final class Writer implements Runnable {
+
+        // Flush to the console after this many characters even while busy
+        private static final int MAX_BATCH_CHARS = 64 * 1024;
+
+        // Longest sleep when idle; producers wake the writer earlier
+        private static final long IDLE_PARK_NANOS = 100_000_000L;
+
+        private final AtomicReferenceArray<Event> slots;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private volatile long head;
+
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder written = new LongAdder();
+
+        private final Thread thread;
+        private volatile boolean parked;
+        private volatile boolean running = true;
+
+        // Writer-thread state
+        private final StringBuilder outBatch = new StringBuilder(8192);
+        private final StringBuilder errBatch = new StringBuilder(1024);
+
+        Writer(int requestedCapacity) {
+            int capacity = Integer.highestOneBit(Math.max(16, requestedCapacity));
+            if (capacity < requestedCapacity) {
+                capacity <<= 1;
+            }
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+
+            this.thread = new Thread(this, "foodhub-log-writer");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        void publish(Event event) {
+            if (!running) {
+                // Writer stopped (application shutting down): write in place,
+                // formatting into a local buffer since the batches belong to the writer thread
+                StringBuilder line = new StringBuilder(256);
+                event.format(line);
+                written.increment();
+                synchronized (this) {
+                    flush(line, event.level.ordinal() >= Level.WARN.ordinal() ? System.err : System.out);
+                }
+                return;
+            }
+
+            while (true) {
+                long claimed = tail.get();
+
+                if (claimed - head >= slots.length()) {
+                    dropped.increment();
+                    return;
+                }
+
+                if (tail.compareAndSet(claimed, claimed + 1)) {
+                    slots.set((int) (claimed & mask), event);
+                    break;
+                }
+            }
+
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (running || head != tail.get()) {
+                long next = head;
+
+                if (next == tail.get()) {
+                    flush();
+                    parked = true;
+                    if (running && next == tail.get()) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    parked = false;
+                    continue;
+                }
+
+                int index = (int) (next & mask);
+                Event event = slots.get(index);
+
+                if (event == null) {
+                    // Slot claimed but the producer has not stored the event yet
+                    Thread.yield();
+                    continue;
+                }
+
+                slots.set(index, null);
+                head = next + 1;
+
+                write(event);
+                if (outBatch.length() + errBatch.length() >= MAX_BATCH_CHARS) {
+                    flush();
+                }
+            }
+
+            flush();
+        }
+
+        void shutdown() {
+            running = false;
+            LockSupport.unpark(thread);
+            try {
+                thread.join(5_000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void write(Event event) {
+            event.format(event.level.ordinal() >= Level.WARN.ordinal() ? errBatch : outBatch);
+            written.increment();
+        }
+
+        private void flush() {
+            flush(outBatch, System.out);
+            flush(errBatch, System.err);
+        }
+
+        private static void flush(StringBuilder batch, PrintStream stream) {
+            if (batch.length() > 0) {
+                stream.print(batch);
+                stream.flush();
+                batch.setLength(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom Filter
+ * Thread-safe probabilistic set of strings
+ *
+ * mightContain never returns false for a string that was added; it returns
+ * true for a string that was not added with roughly the configured false
+ * positive rate (as long as no more than the expected number of strings
+ * is added). Strings cannot be removed.
+ *
+ * Bits live in an AtomicLongArray, so adds and lookups from any number of
+ * threads need no locking. The k bit positions come from one 64-bit hash
+ * and its high half (double hashing), so a lookup hashes the string once.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long expectedInsertions;
+
+    /**
+     * @param expectedInsertions Number of strings the filter is sized for
+     * @param falsePositiveRate Target false positive rate at that size (e.g. 0.01)
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1) {
+            expectedInsertions = 1;
+        }
+        if (falsePositiveRate <= 0.0 || falsePositiveRate >= 1.0) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+
+        // m = -n ln p / (ln 2)^2, k = m/n ln 2
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (bits + 63) / 64);
+
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+        this.expectedInsertions = expectedInsertions;
+    }
+
+    /**
+     * Add a string (null is ignored)
+     */
+    public void put(String value) {
+        if (value == null) {
+            return;
+        }
+
+        long hash = hash64(value);
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1L;
+
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = bitIndex(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+
+            // Skip the CAS when the bit is already set (the common case once warm)
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, add) -> current | add);
+            }
+        }
+    }
+
+    /**
+     * @return false if the string was definitely never added; true if it probably was
+     */
+    public boolean mightContain(String value) {
+        if (value == null) {
+            return false;
+        }
+
+        long hash = hash64(value);
+        long h1 = hash;
+        long h2 = (hash >>> 32) | 1L;
+
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = bitIndex(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long getExpectedInsertions() {
+        return expectedInsertions;
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * Estimated false positive rate from the fraction of bits set
+     */
+    public double estimateFalsePositiveRate() {
+        long set = 0;
+        for (int i = 0; i < words.length(); i++) {
+            set += Long.bitCount(words.get(i));
+        }
+        return Math.pow((double) set / bitCount, hashCount);
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    private long bitIndex(long combinedHash) {
+        return Math.floorMod(combinedHash, bitCount);
+    }
+
+    /**
+     * FNV-1a over the UTF-16 chars, finished with the MurmurHash3 fmix64 avalanche
+     */
+    static long hash64(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,47 @@
+package util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Catalog Read Event
+ * Java Flight Recorder event covering one ProductServlet list or search
+ * request, from reading the catalog to writing the response body
+ */
+@Name("foodhub.CatalogRead")
+@Label("Catalog Read")
+@Category({"FoodHub", "Catalog"})
+@Description("Product listing or search served by ProductServlet")
+@StackTrace(false)
+public class CatalogReadEvent extends jdk.jfr.Event {
+
+    @Label("Action")
+    @Description("list, listPage or search")
+    public String action;
+
+    @Label("Cache Hit")
+    @Description("Catalog snapshot served without a reload; list also requires the pre-serialized body to be reused")
+    public boolean cacheHit;
+
+    @Label("Rows")
+    @Description("Products in the response")
+    public int rows;
+
+    @Label("Serialization Time")
+    @Description("Building the JSON body (0 when a cached body was reused)")
+    @Timespan(Timespan.NANOSECONDS)
+    public long serializationTime;
+
+    @Label("Response Size")
+    @Description("Body bytes as sent (gzip-compressed for list when negotiated, UTF-8 otherwise)")
+    @DataAmount(DataAmount.BYTES)
+    public long responseBytes;
+
+    @Label("Gzip")
+    public boolean gzip;
+}
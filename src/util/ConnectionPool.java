@@ -0,0 +1,443 @@
+package util;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded JDBC Connection Pool
+ * Keeps physical Oracle sessions open and lends them out to DAO calls
+ *
+ * Features:
+ * - min/max sizing (at most maxSize physical sessions, minSize kept warm)
+ * - idle eviction (sessions idle longer than idleTimeout are closed down to minSize)
+ * - validation on borrow (Connection.isValid after the connection sat idle)
+ * - borrow timeout (SQLException instead of waiting forever at peak)
+ * - per-connection prepared statement cache (see {@link StatementCache})
+ * - pool statistics (see {@link Statistics})
+ *
+ * Borrowed connections are proxies: calling close() returns the session
+ * to the pool instead of logging out, so existing DAO code works unchanged.
+ */
+public class ConnectionPool {
+
+    private static final AppLogger LOG = AppLogger.getLogger(ConnectionPool.class);
+
+    // ================================
+    // Configuration
+    // ================================
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long validationIntervalMillis;
+    private final int validationTimeoutSeconds;
+    private final int loginTimeoutSeconds;
+    private final int statementCacheSize;
+
+    // ================================
+    // Pool State
+    // ================================
+
+    // Most recently returned connections sit at the head (LIFO keeps hot sessions busy)
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+
+    // One permit per connection that may be lent out
+    private final Semaphore leases;
+
+    private final AtomicInteger totalConnections = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    // ================================
+    // Statistics Counters
+    // ================================
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong destroyedCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong validationFailureCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+
+    /**
+     * Create a pool (no session is opened until the first borrow or housekeeping run)
+     */
+    public ConnectionPool(String url, String username, String password,
+                          int minSize, int maxSize,
+                          long borrowTimeoutMillis, long idleTimeoutMillis,
+                          long validationIntervalMillis, int validationTimeoutSeconds,
+                          int loginTimeoutSeconds, int statementCacheSize) {
+        if (minSize < 0 || maxSize <= 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.validationIntervalMillis = validationIntervalMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.loginTimeoutSeconds = loginTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.leases = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-pool-housekeeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long period = Math.max(1000L, Math.min(idleTimeoutMillis / 2, 30_000L));
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, period, TimeUnit.MILLISECONDS);
+    }
+
+    // ================================
+    // Borrow / Release
+    // ================================
+
+    /**
+     * Borrow a connection from the pool
+     * @return Connection proxy; close() returns it to the pool
+     * @throws SQLException if the pool is closed, the borrow times out, or a new session cannot be opened
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+
+        long waitStart = System.nanoTime();
+
+        try {
+            if (!leases.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeoutCount.incrementAndGet();
+                throw new SQLException("Timed out after " + borrowTimeoutMillis +
+                        "ms waiting for a database connection (pool size " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        recordWait(System.nanoTime() - waitStart);
+
+        try {
+            PooledConnection pooled;
+            while ((pooled = idleConnections.pollFirst()) != null) {
+                if (isUsable(pooled)) {
+                    borrowCount.incrementAndGet();
+                    return pooled.lease();
+                }
+                destroy(pooled);
+            }
+
+            pooled = createConnection();
+            borrowCount.incrementAndGet();
+            return pooled.lease();
+
+        } catch (SQLException | RuntimeException e) {
+            leases.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Return a connection to the pool (called from the proxy's close())
+     */
+    void release(PooledConnection pooled) {
+        try {
+            if (closed || !pooled.reset()) {
+                destroy(pooled);
+            } else {
+                idleConnections.offerFirst(pooled);
+            }
+        } finally {
+            leases.release();
+        }
+    }
+
+    /**
+     * Close every idle connection and reject further borrows
+     * Connections currently lent out are closed when they are returned
+     */
+    public void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+
+        PooledConnection pooled;
+        while ((pooled = idleConnections.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+
+    // ================================
+    // Statistics
+    // ================================
+
+    /**
+     * Get a snapshot of pool statistics
+     */
+    public Statistics getStatistics() {
+        int idle = idleConnections.size();
+        int total = totalConnections.get();
+        long borrows = borrowCount.get();
+
+        return new Statistics(total, Math.max(0, total - idle), idle,
+                leases.getQueueLength(), minSize, maxSize,
+                borrows, createdCount.get(), destroyedCount.get(),
+                timeoutCount.get(), validationFailureCount.get(),
+                borrows == 0 ? 0.0 : totalWaitNanos.get() / 1_000_000.0 / borrows,
+                maxWaitNanos.get() / 1_000_000.0,
+                statementCacheHits.get(), statementCacheMisses.get());
+    }
+
+    void recordStatementCacheHit() {
+        statementCacheHits.incrementAndGet();
+    }
+
+    void recordStatementCacheMiss() {
+        statementCacheMisses.incrementAndGet();
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    /**
+     * Open a new physical session
+     */
+    private PooledConnection createConnection() throws SQLException {
+        totalConnections.incrementAndGet();
+
+        try {
+            DriverManager.setLoginTimeout(loginTimeoutSeconds);
+            Connection physical = DriverManager.getConnection(url, username, password);
+            physical.setAutoCommit(false);
+            createdCount.incrementAndGet();
+            return new PooledConnection(this, physical, statementCacheSize);
+
+        } catch (SQLException | RuntimeException e) {
+            totalConnections.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Validate a connection that has been idle longer than the validation interval
+     */
+    private boolean isUsable(PooledConnection pooled) {
+        if (pooled.getIdleMillis() < validationIntervalMillis) {
+            return true;
+        }
+
+        try {
+            if (pooled.getPhysicalConnection().isValid(validationTimeoutSeconds)) {
+                return true;
+            }
+        } catch (SQLException e) {
+            // Treated as invalid below
+        }
+
+        validationFailureCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Close the physical session and forget it
+     */
+    private void destroy(PooledConnection pooled) {
+        totalConnections.decrementAndGet();
+        destroyedCount.incrementAndGet();
+        pooled.closePhysical();
+    }
+
+    /**
+     * Periodic task: evict idle connections, then top the pool back up to minSize
+     */
+    private void housekeep() {
+        if (closed) {
+            return;
+        }
+
+        // Oldest idle connections are at the tail
+        Iterator<PooledConnection> iterator = idleConnections.descendingIterator();
+        while (iterator.hasNext() && totalConnections.get() > minSize) {
+            PooledConnection pooled = iterator.next();
+            if (pooled.getIdleMillis() >= idleTimeoutMillis && idleConnections.removeLastOccurrence(pooled)) {
+                destroy(pooled);
+            }
+        }
+
+        while (!closed && totalConnections.get() < minSize) {
+            try {
+                idleConnections.offerLast(createConnection());
+            } catch (SQLException e) {
+                LOG.warn("Could not pre-open pooled connection", "error", e.getMessage());
+                break;
+            }
+        }
+    }
+
+    private void recordWait(long waitNanos) {
+        totalWaitNanos.addAndGet(waitNanos);
+        long currentMax;
+        while (waitNanos > (currentMax = maxWaitNanos.get())) {
+            if (maxWaitNanos.compareAndSet(currentMax, waitNanos)) {
+                break;
+            }
+        }
+    }
+
+    // ================================
+    // Statistics Snapshot
+    // ================================
+
+    /**
+     * Immutable snapshot of pool statistics
+     */
+    public static class Statistics {
+        private final int totalConnections;
+        private final int activeConnections;
+        private final int idleConnections;
+        private final int waitingThreads;
+        private final int minSize;
+        private final int maxSize;
+        private final long borrowCount;
+        private final long createdCount;
+        private final long destroyedCount;
+        private final long timeoutCount;
+        private final long validationFailureCount;
+        private final double averageWaitMillis;
+        private final double maxWaitMillis;
+        private final long statementCacheHits;
+        private final long statementCacheMisses;
+
+        public Statistics(int totalConnections, int activeConnections, int idleConnections,
+                          int waitingThreads, int minSize, int maxSize,
+                          long borrowCount, long createdCount, long destroyedCount,
+                          long timeoutCount, long validationFailureCount,
+                          double averageWaitMillis, double maxWaitMillis,
+                          long statementCacheHits, long statementCacheMisses) {
+            this.totalConnections = totalConnections;
+            this.activeConnections = activeConnections;
+            this.idleConnections = idleConnections;
+            this.waitingThreads = waitingThreads;
+            this.minSize = minSize;
+            this.maxSize = maxSize;
+            this.borrowCount = borrowCount;
+            this.createdCount = createdCount;
+            this.destroyedCount = destroyedCount;
+            this.timeoutCount = timeoutCount;
+            this.validationFailureCount = validationFailureCount;
+            this.averageWaitMillis = averageWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+            this.statementCacheHits = statementCacheHits;
+            this.statementCacheMisses = statementCacheMisses;
+        }
+
+        public int getTotalConnections() {
+            return totalConnections;
+        }
+
+        public int getActiveConnections() {
+            return activeConnections;
+        }
+
+        public int getIdleConnections() {
+            return idleConnections;
+        }
+
+        public int getWaitingThreads() {
+            return waitingThreads;
+        }
+
+        public int getMinSize() {
+            return minSize;
+        }
+
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        public long getBorrowCount() {
+            return borrowCount;
+        }
+
+        public long getCreatedCount() {
+            return createdCount;
+        }
+
+        public long getDestroyedCount() {
+            return destroyedCount;
+        }
+
+        public long getTimeoutCount() {
+            return timeoutCount;
+        }
+
+        public long getValidationFailureCount() {
+            return validationFailureCount;
+        }
+
+        public double getAverageWaitMillis() {
+            return averageWaitMillis;
+        }
+
+        public double getMaxWaitMillis() {
+            return maxWaitMillis;
+        }
+
+        public long getStatementCacheHits() {
+            return statementCacheHits;
+        }
+
+        public long getStatementCacheMisses() {
+            return statementCacheMisses;
+        }
+
+        /**
+         * Fraction of prepareStatement calls served from the statement cache
+         */
+        public double getStatementCacheHitRatio() {
+            long lookups = statementCacheHits + statementCacheMisses;
+            return lookups == 0 ? 0.0 : (double) statementCacheHits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return "Statistics{" +
+                    "total=" + totalConnections +
+                    ", active=" + activeConnections +
+                    ", idle=" + idleConnections +
+                    ", waiting=" + waitingThreads +
+                    ", borrows=" + borrowCount +
+                    ", created=" + createdCount +
+                    ", destroyed=" + destroyedCount +
+                    ", timeouts=" + timeoutCount +
+                    ", validationFailures=" + validationFailureCount +
+                    ", avgWaitMs=" + String.format("%.3f", averageWaitMillis) +
+                    ", maxWaitMs=" + String.format("%.3f", maxWaitMillis) +
+                    ", stmtCacheHits=" + statementCacheHits +
+                    ", stmtCacheMisses=" + statementCacheMisses +
+                    '}';
+        }
+    }
+}
@@ -1,14 +1,20 @@
 package util;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  * Database Connection Utility Class
  * Manages Oracle database connections
  * Provides connection pooling and resource management
  *
+ * Connections are borrowed from a bounded {@link ConnectionPool};
+ * closeConnection/closeResources return them to the pool instead of
+ * logging the Oracle session out. Every statement executed on a pooled
+ * connection is traced ({@link SqlTrace}): per-statement aggregates and
+ * a slow-query log over -Dfoodhub.sql.slowThresholdMs.
+ *
  * Usage:
  * Connection conn = DBConnection.getConnection();
  * // Use connection...
@@ -16,6 +22,8 @@ import java.sql.SQLException;
  */
 public class DBConnection {
 
+    private static final AppLogger LOG = AppLogger.getLogger(DBConnection.class);
+
     // ================================
     // Database Configuration
     // ================================
@@ -34,16 +42,48 @@ public class DBConnection {
     // Connection timeout (30 seconds)
     private static final int CONNECTION_TIMEOUT = 30;
 
-    // Static initialization block to load JDBC driver
+    // ================================
+    // Connection Pool Configuration
+    // Each value can be overridden with a -Dfoodhub.db.pool.* system property
+    // ================================
+
+    // Sessions kept open even when the application is idle
+    private static final int POOL_MIN_SIZE = Integer.getInteger("foodhub.db.pool.minSize", 2);
+
+    // Upper bound on concurrent Oracle sessions
+    private static final int POOL_MAX_SIZE = Integer.getInteger("foodhub.db.pool.maxSize", 20);
+
+    // How long a request waits for a free connection before failing (milliseconds)
+    private static final long POOL_BORROW_TIMEOUT = Long.getLong("foodhub.db.pool.borrowTimeoutMs", 5_000L);
+
+    // Idle sessions above the minimum are closed after this long (milliseconds)
+    private static final long POOL_IDLE_TIMEOUT = Long.getLong("foodhub.db.pool.idleTimeoutMs", 300_000L);
+
+    // Connections idle longer than this are validated before being handed out (milliseconds)
+    private static final long POOL_VALIDATION_INTERVAL = Long.getLong("foodhub.db.pool.validationIntervalMs", 1_000L);
+
+    // Timeout for Connection.isValid during validation (seconds)
+    private static final int POOL_VALIDATION_TIMEOUT = Integer.getInteger("foodhub.db.pool.validationTimeoutSec", 2);
+
+    // Prepared statements cached per pooled connection (0 disables the cache)
+    private static final int STATEMENT_CACHE_SIZE = Integer.getInteger("foodhub.db.statementCacheSize", 64);
+
+    private static final ConnectionPool pool;
+
+    // Static initialization block to load JDBC driver and create the pool
     static {
         try {
             Class.forName(JDBC_DRIVER);
-            System.out.println("Oracle JDBC Driver loaded successfully");
+            LOG.info("Oracle JDBC Driver loaded");
         } catch (ClassNotFoundException e) {
-            System.err.println("ERROR: Oracle JDBC Driver not found!");
-            System.err.println("Make sure ojdbc8.jar or ojdbc11.jar is in your classpath");
-            e.printStackTrace();
+            LOG.error("Oracle JDBC Driver not found - make sure ojdbc8.jar or ojdbc11.jar is in your classpath", e);
         }
+
+        pool = new ConnectionPool(DB_URL, DB_USERNAME, DB_PASSWORD,
+                POOL_MIN_SIZE, POOL_MAX_SIZE,
+                POOL_BORROW_TIMEOUT, POOL_IDLE_TIMEOUT,
+                POOL_VALIDATION_INTERVAL, POOL_VALIDATION_TIMEOUT,
+                CONNECTION_TIMEOUT, STATEMENT_CACHE_SIZE);
     }
 
     // ================================
@@ -51,32 +91,23 @@ public class DBConnection {
     // ================================
 
     /**
-     * Get a database connection
+     * Get a database connection from the pool
+     * Auto-commit is off, as it has always been for connections from this class
      * @return Connection object, or null if connection fails
      */
     public static Connection getConnection() {
         Connection connection = null;
 
         try {
-            // Set connection timeout
-            DriverManager.setLoginTimeout(CONNECTION_TIMEOUT);
-
-            // Establish connection
-            connection = DriverManager.getConnection(DB_URL, DB_USERNAME, DB_PASSWORD);
+            // Borrow a pooled session (opens a new one only when none is idle)
+            connection = pool.borrow();
 
-            // Set auto-commit to false for transaction control
-            connection.setAutoCommit(false);
-
-            System.out.println("Database connection established successfully");
+            LOG.debug("Database connection established");
 
         } catch (SQLException e) {
-            System.err.println("ERROR: Failed to establish database connection");
-            System.err.println("Database URL: " + DB_URL);
-            System.err.println("Username: " + DB_USERNAME);
-            System.err.println("Error Code: " + e.getErrorCode());
-            System.err.println("SQL State: " + e.getSQLState());
-            System.err.println("Message: " + e.getMessage());
-            e.printStackTrace();
+            LOG.error("Failed to establish database connection", e,
+                    "url", DB_URL, "username", DB_USERNAME,
+                    "errorCode", e.getErrorCode(), "sqlState", e.getSQLState());
         }
 
         return connection;
@@ -84,6 +115,7 @@ public class DBConnection {
 
     /**
      * Close a database connection
+     * Pending work is committed and the session is returned to the pool
      * @param connection Connection to close
      */
     public static void closeConnection(Connection connection) {
@@ -95,13 +127,10 @@ public class DBConnection {
                 }
 
                 connection.close();
-                System.out.println("Database connection closed successfully");
+                LOG.debug("Database connection closed");
 
             } catch (SQLException e) {
-                System.err.println("ERROR: Failed to close database connection");
-                System.err.println("Error Code: " + e.getErrorCode());
-                System.err.println("Message: " + e.getMessage());
-                e.printStackTrace();
+                LOG.error("Failed to close database connection", e, "errorCode", e.getErrorCode());
             }
         }
     }
@@ -112,8 +141,7 @@ public class DBConnection {
             try {
                 resultSet.close();
             } catch (SQLException e) {
-                System.err.println("ERROR: Failed to close ResultSet");
-                e.printStackTrace();
+                LOG.error("Failed to close ResultSet", e);
             }
         }
 
@@ -122,8 +150,7 @@ public class DBConnection {
             try {
                 statement.close();
             } catch (SQLException e) {
-                System.err.println("ERROR: Failed to close PreparedStatement");
-                e.printStackTrace();
+                LOG.error("Failed to close PreparedStatement", e);
             }
         }
 
@@ -143,8 +170,7 @@ public class DBConnection {
             try {
                 statement.close();
             } catch (SQLException e) {
-                System.err.println("ERROR: Failed to close PreparedStatement");
-                e.printStackTrace();
+                LOG.error("Failed to close PreparedStatement", e);
             }
         }
 
@@ -163,17 +189,14 @@ public class DBConnection {
                 // Rollback any pending transactions
                 if (!connection.getAutoCommit()) {
                     connection.rollback();
-                    System.out.println("Transaction rolled back");
+                    LOG.debug("Transaction rolled back");
                 }
 
                 connection.close();
-                System.out.println("Database connection closed after rollback");
+                LOG.debug("Database connection closed after rollback");
 
             } catch (SQLException e) {
-                System.err.println("ERROR: Failed to rollback and close connection");
-                System.err.println("Error Code: " + e.getErrorCode());
-                System.err.println("Message: " + e.getMessage());
-                e.printStackTrace();
+                LOG.error("Failed to rollback and close connection", e, "errorCode", e.getErrorCode());
             }
         }
     }
@@ -187,13 +210,10 @@ public class DBConnection {
         if (connection != null) {
             try {
                 connection.commit();
-                System.out.println("Transaction committed successfully");
+                LOG.debug("Transaction committed");
                 return true;
             } catch (SQLException e) {
-                System.err.println("ERROR: Failed to commit transaction");
-                System.err.println("Error Code: " + e.getErrorCode());
-                System.err.println("Message: " + e.getMessage());
-                e.printStackTrace();
+                LOG.error("Failed to commit transaction", e, "errorCode", e.getErrorCode());
                 return false;
             }
         }
@@ -209,19 +229,59 @@ public class DBConnection {
         if (connection != null) {
             try {
                 connection.rollback();
-                System.out.println("Transaction rolled back successfully");
+                LOG.debug("Transaction rolled back");
                 return true;
             } catch (SQLException e) {
-                System.err.println("ERROR: Failed to rollback transaction");
-                System.err.println("Error Code: " + e.getErrorCode());
-                System.err.println("Message: " + e.getMessage());
-                e.printStackTrace();
+                LOG.error("Failed to rollback transaction", e, "errorCode", e.getErrorCode());
                 return false;
             }
         }
         return false;
     }
 
+    // ================================
+    // Pool Management
+    // ================================
+
+    /**
+     * Get connection pool statistics
+     */
+    public static ConnectionPool.Statistics getPoolStatistics() {
+        return pool.getStatistics();
+    }
+
+    /**
+     * Get fetch size and round-trip statistics per list query
+     */
+    public static List<FetchSizePolicy.QueryStatistics> getFetchStatistics() {
+        return FetchSizePolicy.getStatistics();
+    }
+
+    /**
+     * Get execution, row and round-trip aggregates per SQL statement
+     */
+    public static List<SqlTrace.StatementStatistics> getStatementStatistics() {
+        return SqlTrace.getStatements();
+    }
+
+    /**
+     * Get recent executions over the slow-query threshold, newest first
+     */
+    public static List<SqlTrace.SlowQuery> getSlowQueries() {
+        return SqlTrace.getSlowQueries();
+    }
+
+    /**
+     * Close all pooled connections (called when the web application stops)
+     */
+    public static void shutdown() {
+        pool.shutdown();
+        LOG.info("Connection pool shut down", "statistics", pool.getStatistics().toString());
+        for (FetchSizePolicy.QueryStatistics statistics : FetchSizePolicy.getStatistics()) {
+            LOG.info("Fetch statistics", "query", statistics.toString());
+        }
+    }
+
     // ================================
     // Test Connection Method
     // ================================
@@ -0,0 +1,191 @@
+package util;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * JDBC Fetch Size Policy
+ * Chooses the row prefetch (fetch size) for each list query
+ *
+ * The Oracle driver fetches 10 rows per round trip by default, so a
+ * 10k-row listing costs about 1,000 round trips. DAO list methods name
+ * their query with a key; the policy sizes the fetch from the row counts
+ * that query has returned before (the largest recent count, decaying
+ * slowly), so a query is usually answered in one or two round trips.
+ *
+ * A fixed size can be configured per query:
+ *   -Dfoodhub.db.fetchSize.ProductDAO.getAllProducts=200
+ * and the adaptive size is capped by -Dfoodhub.db.fetchSize.max
+ * (row buffers are allocated per fetch, so the cap bounds memory).
+ *
+ * Usage:
+ * FetchSizePolicy.apply(pstmt, QUERY_KEY);
+ * // execute and read rows...
+ * FetchSizePolicy.record(QUERY_KEY, pstmt, rowCount);
+ */
+public class FetchSizePolicy {
+
+    // Oracle's default - used until a query has been observed
+    private static final int MIN_FETCH_SIZE = 10;
+
+    private static final int MAX_FETCH_SIZE = Integer.getInteger("foodhub.db.fetchSize.max", 1000);
+
+    private static final String FIXED_SIZE_PROPERTY_PREFIX = "foodhub.db.fetchSize.";
+
+    private static final ConcurrentHashMap<String, QueryStats> QUERIES = new ConcurrentHashMap<>();
+
+    private FetchSizePolicy() {
+    }
+
+    /**
+     * Set the fetch size for a query before it is executed
+     * @param pstmt Statement about to be executed
+     * @param queryKey Stable name of the query (e.g. "ProductDAO.getAllProducts")
+     */
+    public static void apply(PreparedStatement pstmt, String queryKey) throws SQLException {
+        pstmt.setFetchSize(stats(queryKey).fetchSize());
+    }
+
+    /**
+     * Record how many rows a query returned, after it has been read
+     * @param queryKey Same key as passed to apply
+     * @param pstmt Statement the rows were read from
+     * @param rowCount Rows read
+     */
+    public static void record(String queryKey, PreparedStatement pstmt, int rowCount) throws SQLException {
+        stats(queryKey).record(rowCount, pstmt.getFetchSize());
+    }
+
+    /**
+     * Per-query statistics (executions, rows, estimated round trips, current fetch size)
+     */
+    public static List<QueryStatistics> getStatistics() {
+        List<QueryStatistics> statistics = new ArrayList<>(QUERIES.size());
+        for (QueryStats stats : QUERIES.values()) {
+            statistics.add(stats.snapshot());
+        }
+        statistics.sort((a, b) -> a.getQueryKey().compareTo(b.getQueryKey()));
+        return statistics;
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    private static QueryStats stats(String queryKey) {
+        return QUERIES.computeIfAbsent(queryKey, QueryStats::new);
+    }
+
+    /**
+     * Live counters and row-count estimate for one query
+     */
+    private static class QueryStats {
+
+        private final String queryKey;
+        private final int fixedFetchSize;
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder roundTrips = new LongAdder();
+
+        // Recent peak row count; rises immediately, decays by 1/8 per smaller result
+        private volatile int expectedRows;
+
+        QueryStats(String queryKey) {
+            this.queryKey = queryKey;
+            this.fixedFetchSize = Integer.getInteger(FIXED_SIZE_PROPERTY_PREFIX + queryKey, 0);
+        }
+
+        int fetchSize() {
+            if (fixedFetchSize > 0) {
+                return fixedFetchSize;
+            }
+            // 25% headroom plus one row, so the end of the result arrives with the last batch
+            long size = expectedRows + expectedRows / 4 + 1L;
+            return (int) Math.max(MIN_FETCH_SIZE, Math.min(MAX_FETCH_SIZE, size));
+        }
+
+        void record(int rowCount, int fetchSize) {
+            executions.increment();
+            rows.add(rowCount);
+            // The driver needs one fetch per full batch, plus the one that sees the end
+            roundTrips.add(rowCount / Math.max(fetchSize, 1) + 1);
+
+            // Benign race: concurrent updates may lose one sample
+            int expected = expectedRows;
+            expectedRows = rowCount >= expected ? rowCount : expected - (expected - rowCount) / 8;
+        }
+
+        QueryStatistics snapshot() {
+            return new QueryStatistics(queryKey, executions.sum(), rows.sum(), roundTrips.sum(),
+                    fetchSize(), fixedFetchSize > 0);
+        }
+    }
+
+    // ================================
+    // Statistics
+    // ================================
+
+    /**
+     * Point-in-time statistics for one query
+     */
+    public static class QueryStatistics {
+        private final String queryKey;
+        private final long executions;
+        private final long rows;
+        private final long roundTrips;
+        private final int fetchSize;
+        private final boolean fixed;
+
+        QueryStatistics(String queryKey, long executions, long rows, long roundTrips,
+                        int fetchSize, boolean fixed) {
+            this.queryKey = queryKey;
+            this.executions = executions;
+            this.rows = rows;
+            this.roundTrips = roundTrips;
+            this.fetchSize = fetchSize;
+            this.fixed = fixed;
+        }
+
+        public String getQueryKey() {
+            return queryKey;
+        }
+
+        public long getExecutions() {
+            return executions;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getRoundTrips() {
+            return roundTrips;
+        }
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public boolean isFixed() {
+            return fixed;
+        }
+
+        /**
+         * Average fetch round trips per execution
+         */
+        public double getRoundTripsPerExecution() {
+            return executions == 0 ? 0.0 : (double) roundTrips / executions;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s[executions=%d, rows=%d, roundTrips=%d (%.2f/exec), fetchSize=%d%s]",
+                    queryKey, executions, rows, roundTrips, getRoundTripsPerExecution(),
+                    fetchSize, fixed ? " fixed" : "");
+        }
+    }
+}
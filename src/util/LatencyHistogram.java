@@ -0,0 +1,137 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency Histogram
+ * Lock-free log-linear histogram of durations in nanoseconds, in the
+ * style of HdrHistogram
+ *
+ * Each power of two is split into 32 equal sub-buckets, so any recorded
+ * value is known to within about 3% whatever its magnitude, from 1 ns up
+ * to about 18 minutes (longer values are clamped). That is 1152 counters
+ * per histogram. Recording is one atomic increment; percentiles are read
+ * from a snapshot of the counters while recording continues.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // Largest value tracked exactly enough (2^40 ns, about 18 minutes)
+    private static final long MAX_VALUE = (1L << 40) - 1;
+
+    private static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Record one duration
+     * @param nanos Duration in nanoseconds (negative values count as 0)
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(indexOf(Math.min(Math.max(nanos, 0L), MAX_VALUE)));
+    }
+
+    /**
+     * Take a consistent-enough copy for reading percentiles
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total);
+    }
+
+    // ================================
+    // Bucket Arithmetic
+    // ================================
+
+    /**
+     * Bucket of a value: the value itself below 32, then 32 buckets per power of two
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * Smallest value that falls into a bucket
+     */
+    static long lowestValueAt(int index) {
+        int shift = Math.max(0, (index >> SUB_BUCKET_BITS) - 1);
+        return (long) (index - (shift << SUB_BUCKET_BITS)) << shift;
+    }
+
+    /**
+     * Largest value that falls into a bucket
+     */
+    static long highestValueAt(int index) {
+        int shift = Math.max(0, (index >> SUB_BUCKET_BITS) - 1);
+        return lowestValueAt(index) + (1L << shift) - 1;
+    }
+
+    // ================================
+    // Snapshot
+    // ================================
+
+    /**
+     * Point-in-time copy of the counters
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long total;
+
+        Snapshot(long[] counts, long total) {
+            this.counts = counts;
+            this.total = total;
+        }
+
+        /**
+         * Number of recorded values
+         */
+        public long getCount() {
+            return total;
+        }
+
+        /**
+         * Value at a quantile, e.g. 0.99 for p99
+         * @return Duration in nanoseconds (middle of its bucket), or 0 if empty
+         */
+        public long getValueAtQuantile(double quantile) {
+            if (total == 0) {
+                return 0L;
+            }
+
+            long rank = Math.max(1L, (long) Math.ceil(quantile * total));
+            long seen = 0;
+
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return (lowestValueAt(i) + highestValueAt(i)) / 2;
+                }
+            }
+
+            return MAX_VALUE;
+        }
+
+        /**
+         * Largest recorded value (upper end of its bucket), or 0 if empty
+         */
+        public long getMax() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0) {
+                    return highestValueAt(i);
+                }
+            }
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/**
+ * Legacy SHA-256 Password Hasher
+ * Verifies the unsalted SHA-256 hex hashes written by earlier versions
+ *
+ * Only kept so existing accounts can still log in; every successful
+ * login with one of these hashes is rehashed with the current scheme.
+ * Never use it to hash new passwords.
+ */
+public class LegacySha256PasswordHasher implements PasswordHasher {
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    @Override
+    public String hash(String password) {
+        byte[] digest = sha256(password);
+
+        char[] hex = new char[digest.length * 2];
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    @Override
+    public boolean verify(String password, String storedHash) {
+        if (!supports(storedHash)) {
+            return false;
+        }
+        // Constant-time comparison
+        return MessageDigest.isEqual(
+                hash(password).getBytes(StandardCharsets.US_ASCII),
+                storedHash.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public boolean supports(String storedHash) {
+        if (storedHash == null || storedHash.length() != 64) {
+            return false;
+        }
+        for (int i = 0; i < storedHash.length(); i++) {
+            if (Character.digit(storedHash.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean needsRehash(String storedHash) {
+        return true;
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    private static byte[] sha256(String password) {
+        try {
+            // Same bytes as the old hashPassword (platform default charset)
+            return MessageDigest.getInstance("SHA-256").digest(password.getBytes());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Login Event
+ * Java Flight Recorder event covering one UserService.loginUser call
+ * The username is not recorded; the user ID only on success.
+ */
+@Name("foodhub.Login")
+@Label("Login")
+@Category({"FoodHub", "Users"})
+@Description("Password login: user lookup and password hash verification")
+@StackTrace(false)
+public class LoginEvent extends jdk.jfr.Event {
+
+    @Label("User ID")
+    @Description("Logged-in user, 0 if the login failed")
+    public int userId;
+
+    @Label("Outcome")
+    @Description("success, notFound, inactive, invalidPassword, unavailable, roleMismatch or error")
+    public String outcome;
+
+    @Label("Lookup Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long lookupTime;
+
+    @Label("Hash Time")
+    @Description("Password hash verification, including the wait for a hashing thread")
+    @Timespan(Timespan.NANOSECONDS)
+    public long hashTime;
+
+    @Label("Rehashed")
+    @Description("Stored hash upgraded to the current scheme")
+    public boolean rehashed;
+}
@@ -0,0 +1,259 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Metrics Registry
+ * Latency timers for servlet actions, service methods and SQL statements,
+ * plus gauges over counters kept elsewhere, rendered in the Prometheus
+ * text exposition format
+ *
+ * A timer counts calls and errors with LongAdders and records every
+ * duration in a {@link LatencyHistogram}, so recording never takes a lock.
+ * Quantiles (p50, p90, p99, p999) cover everything recorded since
+ * startup; throughput comes from the scraper, as rate() over _count.
+ *
+ * Timers are created on first use. Each family holds at most
+ * MAX_TIMERS_PER_FAMILY names; further names share one "other" timer so
+ * an unexpected stream of distinct SQL texts cannot grow memory without
+ * bound.
+ *
+ * Usage:
+ * private static final MetricsRegistry.Timer TIMER =
+ *         MetricsRegistry.getInstance().timer(MetricsRegistry.Family.SERVICE, "OrderService.createOrder");
+ * long start = System.nanoTime();
+ * ...
+ * TIMER.record(System.nanoTime() - start, failed);
+ */
+public class MetricsRegistry {
+
+    /**
+     * What a timer measures; each family is one Prometheus metric
+     */
+    public enum Family {
+        HTTP("foodhub_http_request", "Servlet action"),
+        SERVICE("foodhub_service_call", "Service method"),
+        SQL("foodhub_sql_statement", "SQL statement execution");
+
+        private final String metricName;
+        private final String help;
+
+        Family(String metricName, String help) {
+            this.metricName = metricName;
+            this.help = help;
+        }
+    }
+
+    private static final int MAX_TIMERS_PER_FAMILY = 500;
+    private static final String OVERFLOW_NAME = "other";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry();
+
+    private final Map<Family, ConcurrentHashMap<String, Timer>> timers = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Gauge> gauges = new ConcurrentSkipListMap<>();
+
+    private MetricsRegistry() {
+        for (Family family : Family.values()) {
+            timers.put(family, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * Get the shared registry
+     */
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    // ================================
+    // Registration
+    // ================================
+
+    /**
+     * Get (or create) the timer for a name within a family
+     */
+    public Timer timer(Family family, String name) {
+        ConcurrentHashMap<String, Timer> familyTimers = timers.get(family);
+        Timer timer = familyTimers.get(name);
+
+        if (timer != null) {
+            return timer;
+        }
+
+        if (familyTimers.size() >= MAX_TIMERS_PER_FAMILY) {
+            return familyTimers.computeIfAbsent(OVERFLOW_NAME, key -> new Timer(key));
+        }
+
+        return familyTimers.computeIfAbsent(name, key -> new Timer(key));
+    }
+
+    /**
+     * Register (or replace) a gauge read at every scrape
+     * @param name Prometheus metric name
+     * @param help One-line description
+     * @param counter True for monotonically increasing totals
+     * @param value Current value
+     */
+    public void registerGauge(String name, String help, boolean counter, DoubleSupplier value) {
+        gauges.put(name, new Gauge(name, help, counter, value));
+    }
+
+    // ================================
+    // Exposition
+    // ================================
+
+    /**
+     * Render every timer and gauge in Prometheus text format (version 0.0.4)
+     */
+    public String toPrometheusText() {
+        StringBuilder out = new StringBuilder(8192);
+
+        for (Family family : Family.values()) {
+            List<Timer> familyTimers = new ArrayList<>(timers.get(family).values());
+            if (familyTimers.isEmpty()) {
+                continue;
+            }
+            familyTimers.sort(Comparator.comparing(timer -> timer.name));
+
+            String seconds = family.metricName + "_duration_seconds";
+            out.append("# HELP ").append(seconds).append(' ').append(family.help).append(" latency\n");
+            out.append("# TYPE ").append(seconds).append(" summary\n");
+
+            for (Timer timer : familyTimers) {
+                LatencyHistogram.Snapshot snapshot = timer.histogram.snapshot();
+                String label = "name=\"" + escapeLabel(timer.name) + "\"";
+
+                for (double quantile : QUANTILES) {
+                    out.append(seconds).append('{').append(label)
+                            .append(",quantile=\"").append(quantile).append("\"} ")
+                            .append(toSeconds(snapshot.getValueAtQuantile(quantile))).append('\n');
+                }
+                out.append(seconds).append("_sum{").append(label).append("} ")
+                        .append(toSeconds(timer.totalNanos.sum())).append('\n');
+                out.append(seconds).append("_count{").append(label).append("} ")
+                        .append(snapshot.getCount()).append('\n');
+            }
+
+            String errors = family.metricName + "_errors_total";
+            out.append("# HELP ").append(errors).append(' ').append(family.help).append(" failures\n");
+            out.append("# TYPE ").append(errors).append(" counter\n");
+
+            for (Timer timer : familyTimers) {
+                out.append(errors).append("{name=\"").append(escapeLabel(timer.name)).append("\"} ")
+                        .append(timer.errors.sum()).append('\n');
+            }
+        }
+
+        for (Gauge gauge : gauges.values()) {
+            double value;
+            try {
+                value = gauge.value.getAsDouble();
+            } catch (RuntimeException e) {
+                continue;
+            }
+
+            out.append("# HELP ").append(gauge.name).append(' ').append(gauge.help).append('\n');
+            out.append("# TYPE ").append(gauge.name).append(gauge.counter ? " counter\n" : " gauge\n");
+            out.append(gauge.name).append(' ').append(formatValue(value)).append('\n');
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * Every timer in a family by name, for other reports
+     */
+    public Map<String, Timer> getTimers(Family family) {
+        return Collections.unmodifiableMap(timers.get(family));
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    private static String toSeconds(long nanos) {
+        return formatValue(nanos / 1_000_000_000.0);
+    }
+
+    private static String formatValue(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        return Double.toString(value);
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    // ================================
+    // Timer and Gauge
+    // ================================
+
+    /**
+     * Call count, error count, total time and latency distribution of one name
+     */
+    public static final class Timer {
+        private final String name;
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        Timer(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Record one call
+         * @param nanos Duration in nanoseconds
+         * @param failed Whether the call failed
+         */
+        public void record(long nanos, boolean failed) {
+            histogram.record(nanos);
+            totalNanos.add(nanos);
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getErrors() {
+            return errors.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public LatencyHistogram.Snapshot getSnapshot() {
+            return histogram.snapshot();
+        }
+    }
+
+    private static final class Gauge {
+        final String name;
+        final String help;
+        final boolean counter;
+        final DoubleSupplier value;
+
+        Gauge(String name, String help, boolean counter, DoubleSupplier value) {
+            this.name = name;
+            this.help = help;
+            this.counter = counter;
+            this.value = value;
+        }
+    }
+}
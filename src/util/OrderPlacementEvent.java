@@ -0,0 +1,71 @@
+package util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Order Placement Event
+ * Java Flight Recorder event covering one OrderService.createOrder call
+ *
+ * The event's duration is the whole call; the phases inside it are
+ * fields, so a recording shows how much of checkout is stock reservation
+ * and inserts next to the JDBC socket reads of the same thread. When no
+ * recording has the event enabled, begin/commit cost next to nothing.
+ *
+ * Usage:
+ * OrderPlacementEvent event = new OrderPlacementEvent();
+ * event.begin();
+ * ...
+ * if (event.shouldCommit()) {
+ *     event.items = items.size();
+ *     event.commit();
+ * }
+ */
+@Name("foodhub.OrderPlacement")
+@Label("Order Placement")
+@Category({"FoodHub", "Orders"})
+@Description("Order creation: stock reservation, inserts and commit in one transaction")
+@StackTrace(false)
+public class OrderPlacementEvent extends jdk.jfr.Event {
+
+    @Label("Order ID")
+    @Description("Created order, 0 if none was created")
+    public int orderId;
+
+    @Label("User ID")
+    public int userId;
+
+    @Label("Items")
+    @Description("Order lines")
+    public int items;
+
+    @Label("Quantity")
+    @Description("Units over all lines")
+    public int quantity;
+
+    @Label("Amount")
+    @Description("Order total")
+    public double amount;
+
+    @Label("Outcome")
+    @Description("created, outOfStock, failed or error")
+    public String outcome;
+
+    @Label("Stock Reservation Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long stockReservationTime;
+
+    @Label("Insert Time")
+    @Description("Order header and order lines inserts")
+    @Timespan(Timespan.NANOSECONDS)
+    public long insertTime;
+
+    @Label("Commit Time")
+    @Description("Transaction commit")
+    @Timespan(Timespan.NANOSECONDS)
+    public long commitTime;
+}
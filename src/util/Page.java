@@ -0,0 +1,51 @@
+package util;
+
+import java.util.List;
+
+/**
+ * Page
+ * One page of a keyset-paginated listing plus the token for the next page
+ */
+public class Page<T> {
+
+    // Page size when the request does not ask for one, and the most it may ask for
+    public static final int DEFAULT_SIZE = 20;
+    public static final int MAX_SIZE = 100;
+
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Continuation token for the next page, or null if this is the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Parse a requested page size, capped at MAX_SIZE
+     * @param value Request parameter (null for the default)
+     * @return Page size, or -1 if the value is not a positive number
+     */
+    public static int parseSize(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return DEFAULT_SIZE;
+        }
+
+        try {
+            int size = Integer.parseInt(value.trim());
+            return size > 0 ? Math.min(size, MAX_SIZE) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package util;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+/**
+ * Page Cursor
+ * Position in a list sorted by (timestamp DESC, id DESC) for keyset pagination
+ *
+ * The next page is "rows strictly after this (timestamp, id)", which the
+ * database answers with an index range scan however deep the page is.
+ * Clients only ever see the opaque URL-safe token form.
+ */
+public class PageCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final Timestamp timestamp;
+    private final int id;
+
+    public PageCursor(Timestamp timestamp, int id) {
+        this.timestamp = copy(timestamp);
+        this.id = id;
+    }
+
+    /**
+     * Timestamp of the last row on the previous page
+     */
+    public Timestamp getTimestamp() {
+        return copy(timestamp);
+    }
+
+    /**
+     * ID of the last row on the previous page (tie-breaker for equal timestamps)
+     */
+    public int getId() {
+        return id;
+    }
+
+    // ================================
+    // Token Encoding
+    // ================================
+
+    /**
+     * Encode as an opaque continuation token
+     * Keeps full nanosecond precision so rows with close timestamps are not skipped
+     */
+    public String encode() {
+        long seconds = Math.floorDiv(timestamp.getTime(), 1000L);
+        String raw = seconds + "." + timestamp.getNanos() + "." + id;
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Decode a continuation token
+     * @param token Token from a previous response
+     * @return Cursor, or null if the token is missing or malformed
+     */
+    public static PageCursor decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        try {
+            String raw = new String(DECODER.decode(token), StandardCharsets.US_ASCII);
+            String[] parts = raw.split("\\.");
+            if (parts.length != 3) {
+                return null;
+            }
+
+            long seconds = Long.parseLong(parts[0]);
+            int nanos = Integer.parseInt(parts[1]);
+            int id = Integer.parseInt(parts[2]);
+            if (nanos < 0 || nanos > 999_999_999) {
+                return null;
+            }
+
+            Timestamp timestamp = new Timestamp(seconds * 1000L);
+            timestamp.setNanos(nanos);
+            return new PageCursor(timestamp, id);
+
+        } catch (IllegalArgumentException e) {
+            return null; // Bad base64 or number (NumberFormatException is a subclass)
+        }
+    }
+
+    // Timestamp is mutable - never share the instance
+    private static Timestamp copy(Timestamp source) {
+        Timestamp copy = new Timestamp(source.getTime());
+        copy.setNanos(source.getNanos());
+        return copy;
+    }
+}
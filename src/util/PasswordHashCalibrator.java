@@ -0,0 +1,136 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Password Hash Calibrator
+ * Benchmarks PBKDF2 on this machine and picks the highest iteration count
+ * whose p99 hashing time stays within a latency budget
+ *
+ * Run on (or like) the production host, with the same number of hashing
+ * threads the server will use, and pass the result to the server as
+ * -Dfoodhub.password.iterations:
+ *
+ *   java -cp WEB-INF/classes util.PasswordHashCalibrator [budgetMs] [threads] [samples]
+ *
+ * Defaults: 250 ms budget, half the CPUs, 200 samples per candidate.
+ * Each candidate is warmed up first so JIT compilation does not skew the
+ * percentiles.
+ */
+public class PasswordHashCalibrator {
+
+    // Smallest cost worth recommending (OWASP's floor for PBKDF2-HMAC-SHA256 is far above this)
+    private static final int MIN_ITERATIONS = 10_000;
+
+    // Measure/rescale rounds before settling
+    private static final int MAX_ROUNDS = 8;
+
+    // Recommendations are rounded down to a multiple of this
+    private static final int ROUNDING = 10_000;
+
+    private static final String SAMPLE_PASSWORD = "calibration-Password-123";
+
+    public static void main(String[] args) throws Exception {
+        long budgetMillis = args.length > 0 ? Long.parseLong(args[0]) : 250L;
+        int threads = args.length > 1 ? Integer.parseInt(args[1])
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int samples = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        System.out.println("===================================");
+        System.out.println("PBKDF2 Calibration");
+        System.out.println("===================================");
+        System.out.println("p99 budget: " + budgetMillis + " ms");
+        System.out.println("Threads: " + threads);
+        System.out.println("Samples per candidate: " + samples);
+        System.out.println("-----------------------------------");
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+
+        try {
+            // Cost is linear in iterations: scale from each measurement towards
+            // 95% of the budget until the estimate settles
+            int candidate = 100_000;
+            int best = -1;
+
+            for (int round = 0; round < MAX_ROUNDS; round++) {
+                double p99 = p99Millis(pool, candidate, threads, samples);
+                print(candidate, p99);
+
+                if (p99 <= budgetMillis) {
+                    best = Math.max(best, candidate);
+                }
+
+                int next = roundDown((int) Math.min(Integer.MAX_VALUE, candidate * budgetMillis * 0.95 / p99));
+                if (next == candidate || (best > 0 && next <= best)) {
+                    break;
+                }
+                candidate = next;
+            }
+
+            if (best < 0) {
+                best = MIN_ITERATIONS;
+                System.out.println("WARNING: even the minimum cost misses the budget on this machine");
+            }
+
+            System.out.println("-----------------------------------");
+            System.out.println("Recommended: -Dfoodhub.password.iterations=" + best);
+            System.out.println("===================================");
+
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    /**
+     * Hash with the given cost from all threads at once and return the p99 in milliseconds
+     */
+    private static double p99Millis(ExecutorService pool, int iterations, int threads, int samples)
+            throws Exception {
+        Pbkdf2PasswordHasher hasher = new Pbkdf2PasswordHasher(iterations);
+
+        // Warm-up: a few hashes per thread, discarded
+        runRound(pool, hasher, threads * 3);
+
+        long[] nanos = runRound(pool, hasher, samples);
+        Arrays.sort(nanos);
+
+        int index = (int) Math.ceil(nanos.length * 0.99) - 1;
+        return nanos[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private static long[] runRound(ExecutorService pool, Pbkdf2PasswordHasher hasher, int samples)
+            throws Exception {
+        List<Future<Long>> futures = new ArrayList<>(samples);
+
+        for (int i = 0; i < samples; i++) {
+            futures.add(pool.submit(() -> {
+                long start = System.nanoTime();
+                hasher.hash(SAMPLE_PASSWORD);
+                return System.nanoTime() - start;
+            }));
+        }
+
+        long[] nanos = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            nanos[i] = futures.get(i).get();
+        }
+        return nanos;
+    }
+
+    private static int roundDown(int iterations) {
+        return Math.max(MIN_ITERATIONS, iterations / ROUNDING * ROUNDING);
+    }
+
+    private static void print(int iterations, double p99Millis) {
+        System.out.printf("iterations=%,d  p99=%.1f ms%n", iterations, p99Millis);
+    }
+}
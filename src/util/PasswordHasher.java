@@ -0,0 +1,37 @@
+package util;
+
+/**
+ * Password Hasher
+ * One password storage scheme (how a password becomes the string kept in users.password)
+ *
+ * Implementations must be thread-safe. Stored hashes carry their own
+ * scheme and cost, so several hashers can verify side by side while
+ * users are migrated to the current one.
+ */
+public interface PasswordHasher {
+
+    /**
+     * Hash a password for storage
+     * @param password Plain text password
+     * @return Encoded hash, including whatever salt and cost the scheme needs
+     */
+    String hash(String password);
+
+    /**
+     * Check a password against a stored hash
+     * @param password Plain text password
+     * @param storedHash Value from users.password
+     * @return true if the password matches
+     */
+    boolean verify(String password, String storedHash);
+
+    /**
+     * Check if a stored hash was produced by this scheme
+     */
+    boolean supports(String storedHash);
+
+    /**
+     * Check if a stored hash should be replaced (weaker scheme or lower cost than configured)
+     */
+    boolean needsRehash(String storedHash);
+}
@@ -0,0 +1,123 @@
+package util;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * PBKDF2 Password Hasher
+ * Salted PBKDF2-HMAC-SHA256 with a configurable iteration count
+ *
+ * Stored format: pbkdf2-sha256$iterations$salt$hash (salt and hash in
+ * unpadded base64). The iteration count travels with each hash, so the
+ * configured cost can be raised at any time; older hashes still verify
+ * and are reported by needsRehash.
+ */
+public class Pbkdf2PasswordHasher implements PasswordHasher {
+
+    private static final String PREFIX = "pbkdf2-sha256$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BYTES = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getDecoder();
+
+    private final int iterations;
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * @param iterations PBKDF2 iteration count (see PasswordHashCalibrator for choosing one)
+     */
+    public Pbkdf2PasswordHasher(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations must be positive: " + iterations);
+        }
+        this.iterations = iterations;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    @Override
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+
+        byte[] hash = derive(password, salt, iterations);
+
+        return PREFIX + iterations + '$' + ENCODER.encodeToString(salt) + '$' + ENCODER.encodeToString(hash);
+    }
+
+    @Override
+    public boolean verify(String password, String storedHash) {
+        String[] parts = split(storedHash);
+        if (parts == null) {
+            return false;
+        }
+
+        try {
+            int storedIterations = Integer.parseInt(parts[0]);
+            byte[] salt = DECODER.decode(parts[1]);
+            byte[] expected = DECODER.decode(parts[2]);
+
+            byte[] actual = derive(password, salt, storedIterations);
+
+            // Constant-time comparison
+            return MessageDigest.isEqual(expected, actual);
+
+        } catch (IllegalArgumentException e) {
+            return false; // Corrupt stored value
+        }
+    }
+
+    @Override
+    public boolean supports(String storedHash) {
+        return storedHash != null && storedHash.startsWith(PREFIX);
+    }
+
+    @Override
+    public boolean needsRehash(String storedHash) {
+        String[] parts = split(storedHash);
+        if (parts == null) {
+            return true;
+        }
+
+        try {
+            return Integer.parseInt(parts[0]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    /**
+     * Split a stored hash into iterations, salt and hash
+     * @return The three parts, or null if the value is not a PBKDF2 hash
+     */
+    private static String[] split(String storedHash) {
+        if (storedHash == null || !storedHash.startsWith(PREFIX)) {
+            return null;
+        }
+        String[] parts = storedHash.substring(PREFIX.length()).split("\\$");
+        return parts.length == 3 ? parts : null;
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BYTES * 8);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Pooled Connection
+ * Wraps one physical Oracle session owned by {@link ConnectionPool}
+ *
+ * Each borrow hands out a fresh proxy; close() on that proxy returns the
+ * session to the pool, and any later use of the same proxy fails fast.
+ * prepareStatement calls go through the session's {@link StatementCache},
+ * and every statement handed out is traced by {@link TracedStatement}.
+ */
+class PooledConnection {
+
+    private static final AppLogger LOG = AppLogger.getLogger(PooledConnection.class);
+
+    private final ConnectionPool pool;
+    private final Connection physicalConnection;
+    private final StatementCache statementCache;
+    private volatile long lastReleasedNanos;
+
+    PooledConnection(ConnectionPool pool, Connection physicalConnection, int statementCacheSize) {
+        this.pool = pool;
+        this.physicalConnection = physicalConnection;
+        this.statementCache = new StatementCache(pool, statementCacheSize);
+        this.lastReleasedNanos = System.nanoTime();
+    }
+
+    Connection getPhysicalConnection() {
+        return physicalConnection;
+    }
+
+    /**
+     * Milliseconds since this connection was last returned to the pool
+     */
+    long getIdleMillis() {
+        return (System.nanoTime() - lastReleasedNanos) / 1_000_000L;
+    }
+
+    /**
+     * Hand the connection to a new borrower
+     */
+    Connection lease() {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new Lease());
+    }
+
+    /**
+     * Restore the default session state before the connection goes back to the pool
+     * Uncommitted work is rolled back, auto-commit is switched off again
+     * (matching what DBConnection.getConnection has always handed out)
+     * @return false if the session is broken and must be discarded
+     */
+    boolean reset() {
+        try {
+            if (physicalConnection.isClosed()) {
+                return false;
+            }
+            statementCache.releaseAll();
+            if (!physicalConnection.getAutoCommit()) {
+                physicalConnection.rollback();
+            } else {
+                physicalConnection.setAutoCommit(false);
+            }
+            physicalConnection.clearWarnings();
+            lastReleasedNanos = System.nanoTime();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Close the underlying Oracle session
+     */
+    void closePhysical() {
+        statementCache.closeAll();
+        try {
+            physicalConnection.close();
+        } catch (SQLException e) {
+            LOG.warn("Failed to close pooled connection", "error", e.getMessage());
+        }
+    }
+
+    // ================================
+    // Borrower Proxy
+    // ================================
+
+    /**
+     * Invocation handler behind the Connection handed to one borrower
+     */
+    private class Lease implements InvocationHandler {
+
+        private boolean returned;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+
+            switch (name) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || physicalConnection.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physicalConnection + (returned ? ", returned" : "") + "]";
+                default:
+                    break;
+            }
+
+            if (returned) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            // prepareStatement(sql) and prepareStatement(sql, keyColumns) are served from the cache
+            if ("prepareStatement".equals(name) && args.length <= 2 && args[0] instanceof String) {
+                String sql = (String) args[0];
+                if (args.length == 1) {
+                    return TracedStatement.wrap(statementCache.prepare(physicalConnection, sql, null), sql);
+                }
+                if (args[1] instanceof String[]) {
+                    return TracedStatement.wrap(
+                            statementCache.prepare(physicalConnection, sql, (String[]) args[1]), sql);
+                }
+            }
+
+            Object result;
+            try {
+                result = method.invoke(physicalConnection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            // Every statement is traced, cached or not
+            if ("prepareStatement".equals(name)) {
+                return TracedStatement.wrap((PreparedStatement) result, (String) args[0]);
+            }
+            if ("createStatement".equals(name)) {
+                return TracedStatement.wrap((Statement) result);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rate Limiter
+ * Lock-free token buckets per key, in a fixed amount of memory
+ *
+ * Each key gets a bucket of {@code burst} tokens refilled at
+ * {@code perMinute} tokens per minute; an attempt takes one token or is
+ * rejected. Buckets live in a set-associative table: a key hashes to one
+ * set of WAYS slots, and a key that is not in its set replaces an idle
+ * slot (one whose bucket has refilled completely, so forgetting it loses
+ * nothing) or else the least recently used one. Memory is therefore fixed
+ * at construction however many keys are seen.
+ *
+ * Each slot is two longs in AtomicLongArrays - the key's 64-bit hash and
+ * the bucket state (last update time and tokens packed together) - and
+ * every update is a compare-and-set, so no thread ever blocks. Two keys
+ * with the same 64-bit hash share a bucket, and a slot reclaimed by another
+ * key mid-update may charge one token to the wrong bucket; both are far
+ * too rare to matter for throttling.
+ */
+public class RateLimiter {
+
+    // Slots per set; a key can only live in its own set
+    private static final int WAYS = 4;
+
+    // Tokens are kept in thousandths, in the low bits of the state
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MILLI = 1000L;
+
+    // Marks a free slot (a real key hash of 0 is remapped)
+    private static final long EMPTY = 0L;
+
+    private final long capacityMilli;
+    private final double refillMilliPerMs;
+    private final int setMask;
+    private final AtomicLongArray keys;
+    private final AtomicLongArray states;
+    private final long originNanos = System.nanoTime();
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param burst Attempts allowed at once (bucket size, at most 16,777)
+     * @param perMinute Sustained attempts per minute (refill rate)
+     * @param maxKeys Keys tracked at once (rounded up to a power of two)
+     */
+    public RateLimiter(int burst, double perMinute, int maxKeys) {
+        if (burst < 1 || burst * MILLI > TOKEN_MASK) {
+            throw new IllegalArgumentException("Burst must be between 1 and " + TOKEN_MASK / MILLI + ": " + burst);
+        }
+        if (perMinute <= 0) {
+            throw new IllegalArgumentException("Refill rate must be positive: " + perMinute);
+        }
+
+        int wantedSets = Math.max(1, (maxKeys + WAYS - 1) / WAYS);
+        int sets = wantedSets == 1 ? 1 : Integer.highestOneBit(wantedSets - 1) << 1;
+
+        this.capacityMilli = burst * MILLI;
+        this.refillMilliPerMs = perMinute * MILLI / 60_000.0;
+        this.setMask = sets - 1;
+        this.keys = new AtomicLongArray(sets * WAYS);
+        this.states = new AtomicLongArray(sets * WAYS);
+    }
+
+    /**
+     * Take one token for a key
+     * @return true if the attempt is allowed; false if the key is over its rate
+     */
+    public boolean tryAcquire(String key) {
+        long keyHash = hash64(key);
+        int base = (int) (keyHash & setMask) * WAYS;
+
+        while (true) {
+            long now = nowMillis();
+            int slot = findOrClaim(keyHash, base, now);
+            long state = states.get(slot);
+            long tokens = refill(state, now);
+
+            boolean granted = tokens >= MILLI;
+            long next = pack(now, granted ? tokens - MILLI : tokens);
+
+            if (states.compareAndSet(slot, state, next)) {
+                // Another key took the slot between lookup and update: try again
+                if (keys.get(slot) != keyHash) {
+                    continue;
+                }
+                (granted ? allowed : rejected).increment();
+                return granted;
+            }
+        }
+    }
+
+    /**
+     * Seconds until the key will have a token again (0 if it has one now)
+     */
+    public long retryAfterSeconds(String key) {
+        long keyHash = hash64(key);
+        int base = (int) (keyHash & setMask) * WAYS;
+
+        for (int way = 0; way < WAYS; way++) {
+            if (keys.get(base + way) == keyHash) {
+                long missing = MILLI - refill(states.get(base + way), nowMillis());
+                return missing <= 0 ? 0 : (long) Math.ceil(missing / refillMilliPerMs / 1000.0);
+            }
+        }
+        return 0;
+    }
+
+    public long getAllowed() {
+        return allowed.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Active buckets replaced by other keys (a high rate means maxKeys is too small)
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    /**
+     * Slot holding the key, claiming one in its set if needed
+     */
+    private int findOrClaim(long keyHash, int base, long now) {
+        while (true) {
+            int victim = -1;
+            long victimTime = Long.MAX_VALUE;
+            boolean victimIdle = false;
+
+            for (int way = 0; way < WAYS; way++) {
+                int slot = base + way;
+                long slotKey = keys.get(slot);
+
+                if (slotKey == keyHash) {
+                    return slot;
+                }
+
+                long state = states.get(slot);
+                boolean idle = slotKey == EMPTY || refill(state, now) >= capacityMilli;
+
+                // Prefer an idle slot, otherwise the least recently updated one
+                if (victim < 0 || (idle && !victimIdle) || (idle == victimIdle && time(state) < victimTime)) {
+                    victim = slot;
+                    victimTime = time(state);
+                    victimIdle = idle;
+                }
+            }
+
+            long victimKey = keys.get(victim);
+            long victimState = states.get(victim);
+
+            if (keys.compareAndSet(victim, victimKey, keyHash)) {
+                // A new key starts with a full bucket
+                states.compareAndSet(victim, victimState, pack(now, capacityMilli));
+                if (!victimIdle) {
+                    evictions.increment();
+                }
+                return victim;
+            }
+        }
+    }
+
+    private long refill(long state, long now) {
+        long elapsed = Math.max(0, now - time(state));
+        double tokens = (state & TOKEN_MASK) + elapsed * refillMilliPerMs;
+        return (long) Math.min(capacityMilli, tokens);
+    }
+
+    private static long time(long state) {
+        return state >>> TOKEN_BITS;
+    }
+
+    private static long pack(long millis, long tokensMilli) {
+        return (millis << TOKEN_BITS) | tokensMilli;
+    }
+
+    private long nowMillis() {
+        // Offset by one so a claimed slot never looks like an untouched (zero) state
+        return (System.nanoTime() - originNanos) / 1_000_000L + 1;
+    }
+
+    /**
+     * Key hash (the Bloom filter's string hash); never returns EMPTY
+     */
+    private static long hash64(String key) {
+        long hash = BloomFilter.hash64(key);
+        return hash == EMPTY ? 1L : hash;
+    }
+}
@@ -0,0 +1,179 @@
+package util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Session Token Signer
+ * Issues and verifies compact HMAC-SHA256 signed session tokens
+ *
+ * Token format: base64url(payload) "." base64url(signature), where the
+ * payload is "userId:role:issuedAt:expiresAt" (epoch seconds). Any node
+ * holding the same secret can verify a token without shared session
+ * state. The key is decoded once and each thread keeps its own
+ * initialized Mac, so verification allocates almost nothing.
+ *
+ * The secret comes from -Dfoodhub.session.secret (base64, at least 32
+ * bytes). Without it a random per-JVM key is used, which only works for a
+ * single node and logs everyone out on restart.
+ */
+public class SessionTokenSigner {
+
+    private static final AppLogger LOG = AppLogger.getLogger(SessionTokenSigner.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int MIN_SECRET_BYTES = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static final SecretKeySpec KEY = loadKey();
+
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(KEY);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        }
+    });
+
+    private SessionTokenSigner() {
+    }
+
+    /**
+     * Issue a token
+     * @param userId User ID
+     * @param role User role at login
+     * @param ttlSeconds Lifetime of the token
+     */
+    public static String issue(int userId, String role, long ttlSeconds) {
+        long now = System.currentTimeMillis() / 1000L;
+        String payload = userId + ":" + role + ":" + now + ":" + (now + ttlSeconds);
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+
+        return ENCODER.encodeToString(payloadBytes) + '.' + ENCODER.encodeToString(sign(payloadBytes));
+    }
+
+    /**
+     * Verify a token
+     * @return Claims, or null if the token is malformed, forged or expired
+     */
+    public static Claims verify(String token) {
+        if (token == null) {
+            return null;
+        }
+
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) {
+            return null;
+        }
+
+        try {
+            byte[] payloadBytes = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+
+            // Constant-time comparison
+            if (!MessageDigest.isEqual(sign(payloadBytes), signature)) {
+                return null;
+            }
+
+            String[] fields = new String(payloadBytes, StandardCharsets.UTF_8).split(":");
+            if (fields.length != 4) {
+                return null;
+            }
+
+            Claims claims = new Claims(Integer.parseInt(fields[0]), fields[1],
+                    Long.parseLong(fields[2]), Long.parseLong(fields[3]));
+
+            return claims.getExpiresAt() > System.currentTimeMillis() / 1000L ? claims : null;
+
+        } catch (IllegalArgumentException e) {
+            return null; // Bad base64 or number (NumberFormatException is a subclass)
+        }
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    private static byte[] sign(byte[] payload) {
+        // doFinal resets the Mac, so the thread's instance is ready for the next call
+        return MAC.get().doFinal(payload);
+    }
+
+    private static SecretKeySpec loadKey() {
+        String secret = System.getProperty("foodhub.session.secret");
+        byte[] keyBytes = null;
+
+        if (secret != null && !secret.isEmpty()) {
+            try {
+                keyBytes = Base64.getDecoder().decode(secret.trim());
+            } catch (IllegalArgumentException e) {
+                LOG.warn("foodhub.session.secret is not valid base64");
+            }
+            if (keyBytes != null && keyBytes.length < MIN_SECRET_BYTES) {
+                LOG.warn("foodhub.session.secret is too short", "minBytes", MIN_SECRET_BYTES);
+                keyBytes = null;
+            }
+        }
+
+        if (keyBytes == null) {
+            LOG.warn("No session token secret configured - using a random per-JVM key "
+                    + "(tokens will not verify on other nodes or after a restart)");
+            keyBytes = new byte[MIN_SECRET_BYTES];
+            new SecureRandom().nextBytes(keyBytes);
+        }
+
+        return new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    // ================================
+    // Claims
+    // ================================
+
+    /**
+     * Verified contents of a token
+     */
+    public static class Claims {
+        private final int userId;
+        private final String role;
+        private final long issuedAt;
+        private final long expiresAt;
+
+        Claims(int userId, String role, long issuedAt, long expiresAt) {
+            this.userId = userId;
+            this.role = role;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        public int getUserId() {
+            return userId;
+        }
+
+        public String getRole() {
+            return role;
+        }
+
+        /**
+         * Issue time (epoch seconds)
+         */
+        public long getIssuedAt() {
+            return issuedAt;
+        }
+
+        /**
+         * Expiry time (epoch seconds)
+         */
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
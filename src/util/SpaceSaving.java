@@ -0,0 +1,203 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving Summary
+ * Approximate top-k heaviest keys of a weighted stream in fixed memory
+ * (Metwally, Agrawal and El Abbadi, "Efficient Computation of Frequent and
+ * Top-k Elements in Data Streams")
+ *
+ * At most capacity keys are tracked. A key that arrives while the table is
+ * full takes over the counter with the smallest count and inherits that
+ * count as its error, so a reported count overestimates the key's true
+ * weight by at most its error, and every key whose true weight exceeds
+ * total / capacity is guaranteed to be tracked.
+ *
+ * Counters are kept ordered by count: offering a weight costs
+ * O(log capacity) and reading the top k costs O(k). Weights are doubles
+ * so callers can scale them (e.g. for time decay). Thread-safe.
+ */
+public class SpaceSaving {
+
+    // Ascending by count; ties broken by key so distinct counters never compare equal
+    private static final Comparator<Counter> BY_COUNT =
+            Comparator.comparingDouble((Counter counter) -> counter.count)
+                    .thenComparingInt(counter -> counter.key);
+
+    private final int capacity;
+    private final Map<Integer, Counter> counters;
+    private TreeSet<Counter> byCount = new TreeSet<>(BY_COUNT);
+    private double total;
+
+    /**
+     * @param capacity Maximum number of keys tracked
+     */
+    public SpaceSaving(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+    }
+
+    // ================================
+    // Updates
+    // ================================
+
+    /**
+     * Add weight to a key
+     * @param weight Positive weight (non-positive weights are ignored)
+     */
+    public synchronized void offer(int key, double weight) {
+        if (!(weight > 0)) {
+            return;
+        }
+
+        total += weight;
+
+        Counter counter = counters.get(key);
+
+        if (counter == null) {
+            if (counters.size() < capacity) {
+                counter = new Counter(key, 0.0, 0.0);
+            } else {
+                // Replace the smallest counter; its count becomes the newcomer's error
+                Counter smallest = byCount.pollFirst();
+                counters.remove(smallest.key);
+                counter = new Counter(key, smallest.count, smallest.count);
+            }
+            counters.put(key, counter);
+        } else {
+            byCount.remove(counter);
+        }
+
+        counter.count += weight;
+        byCount.add(counter);
+    }
+
+    /**
+     * Multiply every count, error and the total by a positive factor
+     * (relative order is kept; used to renormalize scaled weights)
+     */
+    public synchronized void scale(double factor) {
+        if (!(factor > 0)) {
+            throw new IllegalArgumentException("factor must be positive");
+        }
+
+        // Rounding may make distinct counts equal, so re-sort rather than scale in place
+        TreeSet<Counter> rescaled = new TreeSet<>(BY_COUNT);
+        for (Counter counter : counters.values()) {
+            counter.count *= factor;
+            counter.error *= factor;
+            rescaled.add(counter);
+        }
+
+        byCount = rescaled;
+        total *= factor;
+    }
+
+    /**
+     * Forget every key
+     */
+    public synchronized void clear() {
+        counters.clear();
+        byCount.clear();
+        total = 0.0;
+    }
+
+    // ================================
+    // Reads
+    // ================================
+
+    /**
+     * Get the heaviest keys, heaviest first
+     * @param limit Maximum number of entries
+     */
+    public synchronized List<Entry> top(int limit) {
+        List<Entry> entries = new ArrayList<>(Math.max(0, Math.min(limit, counters.size())));
+
+        Iterator<Counter> iterator = byCount.descendingIterator();
+        while (entries.size() < limit && iterator.hasNext()) {
+            Counter counter = iterator.next();
+            entries.add(new Entry(counter.key, counter.count, counter.error));
+        }
+
+        return entries;
+    }
+
+    /**
+     * Number of keys currently tracked
+     */
+    public synchronized int size() {
+        return counters.size();
+    }
+
+    /**
+     * Sum of every weight offered (after scaling)
+     */
+    public synchronized double getTotal() {
+        return total;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // ================================
+    // Counter and Entry
+    // ================================
+
+    private static final class Counter {
+        final int key;
+        double count;
+        double error;
+
+        Counter(int key, double count, double error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    /**
+     * One tracked key: count is an upper bound on its weight, and
+     * count - error a lower bound
+     */
+    public static final class Entry {
+        private final int key;
+        private final double count;
+        private final double error;
+
+        Entry(int key, double count, double error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public int getKey() {
+            return key;
+        }
+
+        public double getCount() {
+            return count;
+        }
+
+        public double getError() {
+            return error;
+        }
+
+        /**
+         * Same key with count and error multiplied by a factor
+         */
+        public Entry scaled(double factor) {
+            return new Entry(key, count * factor, error * factor);
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package util;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * SQL Trace
+ * Per-statement aggregates and the slow-query log, fed by
+ * {@link TracedStatement} for every statement executed on a pooled
+ * connection
+ *
+ * For each SQL text (whitespace collapsed, same name as its timer in the
+ * SQL family of the {@link MetricsRegistry}) the trace keeps executions,
+ * total and worst elapsed time, time spent fetching rows, rows returned or
+ * updated, estimated fetch round trips, slow executions and the bind
+ * parameter shapes it was executed with, e.g. "(int,string,null)".
+ * Shapes carry types only; bound values are never recorded.
+ *
+ * Elapsed time runs from execute until the last row has been read (or the
+ * result set is closed). An execution slower than the threshold is logged
+ * as a WARN "Slow query" event and kept in a bounded list of recent slow
+ * queries.
+ *
+ * Configuration (system properties):
+ * - foodhub.sql.slowThresholdMs: Slow-query threshold (default 250)
+ * - foodhub.sql.slowLogSize: Recent slow queries kept (default 100)
+ */
+public final class SqlTrace {
+
+    private static final AppLogger LOG = AppLogger.getLogger(SqlTrace.class);
+
+    private static final long SLOW_THRESHOLD_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(Long.getLong("foodhub.sql.slowThresholdMs", 250L));
+
+    private static final int SLOW_LOG_SIZE = Math.max(1, Integer.getInteger("foodhub.sql.slowLogSize", 100));
+
+    // Longest SQL text used as a statement name
+    private static final int MAX_NAME_LENGTH = 200;
+
+    // Distinct bind shapes counted per statement; further shapes share one entry
+    private static final int MAX_SHAPES = 8;
+    private static final String OTHER_SHAPE = "other";
+
+    // Aggregate per raw SQL text, so repeated prepares skip normalizing the text
+    private static final int MAX_CACHED_STATEMENTS = 1000;
+    private static final ConcurrentHashMap<String, Aggregate> BY_SQL = new ConcurrentHashMap<>();
+
+    // Aggregate per statement name (one per timer)
+    private static final ConcurrentHashMap<String, Aggregate> BY_NAME = new ConcurrentHashMap<>();
+
+    private static final ArrayDeque<SlowQuery> SLOW_QUERIES = new ArrayDeque<>(SLOW_LOG_SIZE);
+    private static final LongAdder SLOW_TOTAL = new LongAdder();
+
+    private SqlTrace() {
+    }
+
+    // ================================
+    // Recording
+    // ================================
+
+    /**
+     * Get (or create) the aggregate for a SQL text
+     */
+    static Aggregate statement(String sql) {
+        Aggregate aggregate = BY_SQL.get(sql);
+
+        if (aggregate == null) {
+            MetricsRegistry.Timer timer =
+                    MetricsRegistry.getInstance().timer(MetricsRegistry.Family.SQL, statementName(sql));
+            aggregate = BY_NAME.computeIfAbsent(timer.getName(), name -> new Aggregate(timer));
+            if (BY_SQL.size() < MAX_CACHED_STATEMENTS) {
+                BY_SQL.put(sql, aggregate);
+            }
+        }
+
+        return aggregate;
+    }
+
+    /**
+     * Record one finished execution
+     * @param aggregate Statement it ran
+     * @param shape Bind parameter shape
+     * @param executeNanos Time in the execute call
+     * @param fetchNanos Time reading rows afterwards
+     * @param rows Rows read, or rows updated
+     * @param roundTrips Estimated round trips (execute plus fetches)
+     * @param fetchSize Fetch size in effect, 0 for updates
+     * @param failed Whether the execute call failed
+     */
+    static void record(Aggregate aggregate, String shape, long executeNanos, long fetchNanos,
+                       long rows, long roundTrips, int fetchSize, boolean failed) {
+        long elapsed = executeNanos + fetchNanos;
+        boolean slow = elapsed >= SLOW_THRESHOLD_NANOS;
+
+        aggregate.record(shape, elapsed, fetchNanos, rows, roundTrips, slow);
+
+        if (!slow) {
+            return;
+        }
+
+        SLOW_TOTAL.increment();
+
+        SlowQuery query = new SlowQuery(System.currentTimeMillis(), aggregate.timer.getName(), shape,
+                toMillis(elapsed), toMillis(executeNanos), rows, roundTrips, fetchSize, failed,
+                Thread.currentThread().getName());
+
+        synchronized (SLOW_QUERIES) {
+            if (SLOW_QUERIES.size() >= SLOW_LOG_SIZE) {
+                SLOW_QUERIES.removeFirst();
+            }
+            SLOW_QUERIES.addLast(query);
+        }
+
+        LOG.warn("Slow query", "elapsedMs", query.elapsedMillis, "executeMs", query.executeMillis,
+                "rows", rows, "roundTrips", roundTrips, "fetchSize", fetchSize, "failed", failed,
+                "binds", shape, "sql", query.sql);
+    }
+
+    // ================================
+    // Reports
+    // ================================
+
+    /**
+     * Aggregates of every statement executed so far
+     */
+    public static List<StatementStatistics> getStatements() {
+        List<StatementStatistics> statements = new ArrayList<>(BY_NAME.size());
+        for (Aggregate aggregate : BY_NAME.values()) {
+            statements.add(aggregate.snapshot());
+        }
+        return statements;
+    }
+
+    /**
+     * Recent slow executions, newest first
+     */
+    public static List<SlowQuery> getSlowQueries() {
+        List<SlowQuery> queries;
+        synchronized (SLOW_QUERIES) {
+            queries = new ArrayList<>(SLOW_QUERIES);
+        }
+        Collections.reverse(queries);
+        return queries;
+    }
+
+    /**
+     * Slow executions since startup
+     */
+    public static long getSlowCount() {
+        return SLOW_TOTAL.sum();
+    }
+
+    public static long getSlowThresholdMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(SLOW_THRESHOLD_NANOS);
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    /**
+     * SQL text with whitespace collapsed, cut to MAX_NAME_LENGTH
+     */
+    static String statementName(String sql) {
+        String collapsed = sql.trim().replaceAll("\\s+", " ");
+        return collapsed.length() > MAX_NAME_LENGTH
+                ? collapsed.substring(0, MAX_NAME_LENGTH - 3) + "..."
+                : collapsed;
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+
+    // ================================
+    // Aggregate
+    // ================================
+
+    /**
+     * Live counters for one statement name
+     * Execute latency and failures live in the statement's timer.
+     */
+    static final class Aggregate {
+        final MetricsRegistry.Timer timer;
+
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder elapsedNanos = new LongAdder();
+        private final LongAdder fetchNanos = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder roundTrips = new LongAdder();
+        private final LongAdder slow = new LongAdder();
+        private final AtomicLong maxElapsedNanos = new AtomicLong();
+        private final AtomicLong maxRows = new AtomicLong();
+        private final ConcurrentHashMap<String, LongAdder> shapes = new ConcurrentHashMap<>();
+
+        Aggregate(MetricsRegistry.Timer timer) {
+            this.timer = timer;
+        }
+
+        void record(String shape, long elapsed, long fetch, long rowCount, long trips, boolean wasSlow) {
+            executions.increment();
+            elapsedNanos.add(elapsed);
+            fetchNanos.add(fetch);
+            rows.add(rowCount);
+            roundTrips.add(trips);
+            if (wasSlow) {
+                slow.increment();
+            }
+            maxElapsedNanos.accumulateAndGet(elapsed, Math::max);
+            maxRows.accumulateAndGet(rowCount, Math::max);
+
+            LongAdder shapeCount = shapes.get(shape);
+            if (shapeCount == null) {
+                shapeCount = shapes.computeIfAbsent(
+                        shapes.size() < MAX_SHAPES ? shape : OTHER_SHAPE, key -> new LongAdder());
+            }
+            shapeCount.increment();
+        }
+
+        StatementStatistics snapshot() {
+            LatencyHistogram.Snapshot execute = timer.getSnapshot();
+
+            Map<String, Long> shapeCounts = new LinkedHashMap<>();
+            shapes.entrySet().stream()
+                    .sorted((a, b) -> Long.compare(b.getValue().sum(), a.getValue().sum()))
+                    .forEach(entry -> shapeCounts.put(entry.getKey(), entry.getValue().sum()));
+
+            return new StatementStatistics(timer.getName(), executions.sum(), timer.getErrors(),
+                    elapsedNanos.sum(), maxElapsedNanos.get(), fetchNanos.sum(),
+                    execute.getValueAtQuantile(0.99), rows.sum(), maxRows.get(), roundTrips.sum(),
+                    slow.sum(), shapeCounts);
+        }
+    }
+
+    // ================================
+    // Statistics
+    // ================================
+
+    /**
+     * Point-in-time aggregates for one statement
+     */
+    public static class StatementStatistics {
+        private final String sql;
+        private final long executions;
+        private final long errors;
+        private final long elapsedNanos;
+        private final long maxElapsedNanos;
+        private final long fetchNanos;
+        private final long executeP99Nanos;
+        private final long rows;
+        private final long maxRows;
+        private final long roundTrips;
+        private final long slow;
+        private final Map<String, Long> bindShapes;
+
+        StatementStatistics(String sql, long executions, long errors, long elapsedNanos,
+                            long maxElapsedNanos, long fetchNanos, long executeP99Nanos, long rows,
+                            long maxRows, long roundTrips, long slow, Map<String, Long> bindShapes) {
+            this.sql = sql;
+            this.executions = executions;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.maxElapsedNanos = maxElapsedNanos;
+            this.fetchNanos = fetchNanos;
+            this.executeP99Nanos = executeP99Nanos;
+            this.rows = rows;
+            this.maxRows = maxRows;
+            this.roundTrips = roundTrips;
+            this.slow = slow;
+            this.bindShapes = bindShapes;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getExecutions() {
+            return executions;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        /**
+         * Total elapsed time (execute plus fetch) in milliseconds
+         */
+        public double getTotalMillis() {
+            return toMillis(elapsedNanos);
+        }
+
+        public double getMeanMillis() {
+            return executions == 0 ? 0.0 : toMillis(elapsedNanos / executions);
+        }
+
+        public double getMaxMillis() {
+            return toMillis(maxElapsedNanos);
+        }
+
+        /**
+         * Total time spent reading rows after execute, in milliseconds
+         */
+        public double getFetchMillis() {
+            return toMillis(fetchNanos);
+        }
+
+        /**
+         * 99th percentile of the execute call alone, in milliseconds
+         */
+        public double getExecuteP99Millis() {
+            return toMillis(executeP99Nanos);
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getMaxRows() {
+            return maxRows;
+        }
+
+        public long getRoundTrips() {
+            return roundTrips;
+        }
+
+        /**
+         * Average round trips per execution
+         */
+        public double getRoundTripsPerExecution() {
+            return executions == 0 ? 0.0 : (double) roundTrips / executions;
+        }
+
+        public long getSlow() {
+            return slow;
+        }
+
+        /**
+         * Executions per bind shape, most frequent first
+         */
+        public Map<String, Long> getBindShapes() {
+            return bindShapes;
+        }
+    }
+
+    /**
+     * One execution over the slow-query threshold
+     */
+    public static class SlowQuery {
+        private final long timeMillis;
+        private final String sql;
+        private final String bindShape;
+        private final double elapsedMillis;
+        private final double executeMillis;
+        private final long rows;
+        private final long roundTrips;
+        private final int fetchSize;
+        private final boolean failed;
+        private final String thread;
+
+        SlowQuery(long timeMillis, String sql, String bindShape, double elapsedMillis,
+                  double executeMillis, long rows, long roundTrips, int fetchSize,
+                  boolean failed, String thread) {
+            this.timeMillis = timeMillis;
+            this.sql = sql;
+            this.bindShape = bindShape;
+            this.elapsedMillis = elapsedMillis;
+            this.executeMillis = executeMillis;
+            this.rows = rows;
+            this.roundTrips = roundTrips;
+            this.fetchSize = fetchSize;
+            this.failed = failed;
+            this.thread = thread;
+        }
+
+        /**
+         * When the execution finished (ISO-8601 instant)
+         */
+        public String getTime() {
+            return Instant.ofEpochMilli(timeMillis).toString();
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public String getBindShape() {
+            return bindShape;
+        }
+
+        public double getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public double getExecuteMillis() {
+            return executeMillis;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getRoundTrips() {
+            return roundTrips;
+        }
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public boolean isFailed() {
+            return failed;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+    }
+}
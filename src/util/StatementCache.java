@@ -0,0 +1,213 @@
+package util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prepared Statement Cache
+ * LRU cache of parsed statements, one per pooled connection
+ *
+ * DAO methods prepare the same constant SQL strings over and over;
+ * with this cache a repeated prepareStatement(sql) on the same session
+ * returns the already-parsed statement and skips the parse round trip.
+ * Closing a cached statement only clears its parameters and makes it
+ * available again - the cursor stays open until the entry is evicted
+ * or the physical connection is closed.
+ *
+ * Not thread-safe: a connection is used by one borrower at a time.
+ */
+class StatementCache {
+
+    private static final AppLogger LOG = AppLogger.getLogger(StatementCache.class);
+
+    private final int maxSize;
+    private final ConnectionPool pool;
+
+    // Access-ordered map gives LRU iteration order
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    StatementCache(ConnectionPool pool, int maxSize) {
+        this.pool = pool;
+        this.maxSize = maxSize;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Prepare a statement through the cache
+     * @param connection Physical connection
+     * @param sql SQL text
+     * @param columnNames Generated key columns, or null
+     * @return Cached statement proxy, or a plain statement if the cached one is already in use
+     */
+    PreparedStatement prepare(Connection connection, String sql, String[] columnNames) throws SQLException {
+        if (maxSize <= 0) {
+            return prepareUncached(connection, sql, columnNames);
+        }
+
+        String key = columnNames == null ? sql : sql + '\u0000' + String.join(",", columnNames);
+        CachedStatement cached = statements.get(key);
+
+        if (cached != null) {
+            if (cached.inUse) {
+                // Same SQL opened twice on one connection - do not share the cursor
+                pool.recordStatementCacheMiss();
+                return prepareUncached(connection, sql, columnNames);
+            }
+            pool.recordStatementCacheHit();
+            cached.inUse = true;
+            return cached.proxy;
+        }
+
+        pool.recordStatementCacheMiss();
+        cached = new CachedStatement(prepareUncached(connection, sql, columnNames));
+        cached.inUse = true;
+        statements.put(key, cached);
+        evictOverflow();
+        return cached.proxy;
+    }
+
+    /**
+     * Make every statement available again (connection returned to the pool)
+     * Covers DAO code paths that forgot to close a statement
+     */
+    void releaseAll() {
+        for (CachedStatement cached : new ArrayList<>(statements.values())) {
+            if (cached.inUse) {
+                cached.release();
+            }
+        }
+    }
+
+    /**
+     * Close every cached statement (physical connection is being closed)
+     */
+    void closeAll() {
+        List<CachedStatement> all = new ArrayList<>(statements.values());
+        statements.clear();
+        for (CachedStatement cached : all) {
+            cached.closePhysical();
+        }
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    private PreparedStatement prepareUncached(Connection connection, String sql, String[] columnNames)
+            throws SQLException {
+        return columnNames == null
+                ? connection.prepareStatement(sql)
+                : connection.prepareStatement(sql, columnNames);
+    }
+
+    /**
+     * Drop least recently used entries above maxSize
+     * Entries still in use are closed when their borrower closes them
+     */
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, CachedStatement>> iterator = statements.entrySet().iterator();
+        while (statements.size() > maxSize && iterator.hasNext()) {
+            CachedStatement eldest = iterator.next().getValue();
+            iterator.remove();
+            eldest.evicted = true;
+            if (!eldest.inUse) {
+                eldest.closePhysical();
+            }
+        }
+    }
+
+    // ================================
+    // Cached Statement
+    // ================================
+
+    /**
+     * One cached statement and the proxy handed to DAO code
+     */
+    private class CachedStatement implements InvocationHandler {
+
+        private final PreparedStatement statement;
+        private final PreparedStatement proxy;
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (inUse) {
+                        release();
+                    }
+                    return null;
+                case "isClosed":
+                    return !inUse || statement.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "CachedStatement[" + statement + "]";
+                default:
+                    break;
+            }
+
+            if (!inUse) {
+                throw new SQLException("Statement has already been closed");
+            }
+
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * Return the statement to the cache, ready for the next execution
+         */
+        void release() {
+            inUse = false;
+
+            if (evicted) {
+                closePhysical();
+                return;
+            }
+
+            try {
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+            } catch (SQLException e) {
+                // Statement is unusable - drop it from the cache
+                statements.values().remove(this);
+                evicted = true;
+                closePhysical();
+            }
+        }
+
+        void closePhysical() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                LOG.warn("Failed to close cached statement", "error", e.getMessage());
+            }
+        }
+    }
+}
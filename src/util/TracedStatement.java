@@ -0,0 +1,352 @@
+package util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * Traced Statement
+ * Wraps a statement handed out by a pooled connection and traces every
+ * execute call (execute, executeQuery, executeUpdate, executeBatch, ...)
+ *
+ * - The execute round trip is recorded in the SQL family of the
+ *   {@link MetricsRegistry}, one timer per SQL text
+ * - Bind calls (setInt, setString, setNull, ...) are noted by type only,
+ *   giving the execution's bind shape, e.g. "(int,string)" or
+ *   "(int,int) x25" for a batch of 25
+ * - Result sets from executeQuery are wrapped to count rows and time
+ *   spent in next(); round trips are estimated from the fetch size
+ * - When the execution is finished (last row read, result set or
+ *   statement closed, or the statement executed again) it is recorded
+ *   in {@link SqlTrace}, which keeps per-statement aggregates and the
+ *   slow-query log
+ *
+ * Everything else is passed through unchanged. A statement and its result
+ * set are used by one thread at a time, so the trace state is unsynchronized.
+ */
+final class TracedStatement implements InvocationHandler {
+
+    private static final String[] NO_BINDS = new String[0];
+
+    private final Statement statement;
+    private final SqlTrace.Aggregate aggregate;
+
+    // Bind type per parameter index (1-based index at position index - 1)
+    private String[] binds = NO_BINDS;
+    private int batchSize;
+    private String batchShape;
+
+    // Query whose rows are still being read
+    private Execution pending;
+
+    private TracedStatement(Statement statement, SqlTrace.Aggregate aggregate) {
+        this.statement = statement;
+        this.aggregate = aggregate;
+    }
+
+    /**
+     * Wrap a prepared statement
+     * @param sql SQL text it was prepared with
+     */
+    static PreparedStatement wrap(PreparedStatement statement, String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class},
+                new TracedStatement(statement, SqlTrace.statement(sql)));
+    }
+
+    /**
+     * Wrap a plain statement (SQL text comes with each execute call)
+     */
+    static Statement wrap(Statement statement) {
+        return (Statement) Proxy.newProxyInstance(
+                Statement.class.getClassLoader(),
+                new Class<?>[]{Statement.class},
+                new TracedStatement(statement, null));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        String name = method.getName();
+
+        switch (name) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "TracedStatement[" + statement + "]";
+            case "close":
+                finishPending();
+                return forward(method, args);
+            case "clearParameters":
+                binds = NO_BINDS;
+                return forward(method, args);
+            case "addBatch":
+                if (batchSize++ == 0) {
+                    batchShape = currentShape();
+                }
+                return forward(method, args);
+            case "clearBatch":
+                clearBatch();
+                return forward(method, args);
+            case "getResultSet":
+                if (pending == null) {
+                    return forward(method, args);
+                }
+                return pending.wrapped != null
+                        ? pending.wrapped
+                        : pending.wrap(proxy, (ResultSet) forward(method, args));
+            default:
+                break;
+        }
+
+        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+            noteBind((Integer) args[0], name, args[1]);
+            return forward(method, args);
+        }
+
+        if (!name.startsWith("execute")) {
+            return forward(method, args);
+        }
+
+        return execute(proxy, method, args, name);
+    }
+
+    // ================================
+    // Execution
+    // ================================
+
+    private Object execute(Object proxy, Method method, Object[] args, String name) throws Throwable {
+        finishPending();
+
+        SqlTrace.Aggregate target = aggregate != null ? aggregate
+                : SqlTrace.statement(args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : "batch");
+
+        boolean batch = "executeBatch".equals(name) || "executeLargeBatch".equals(name);
+        String shape = batch
+                ? (batchShape != null ? batchShape : "()") + " x" + batchSize
+                : currentShape();
+        if (batch) {
+            clearBatch();
+        }
+
+        long start = System.nanoTime();
+        Object result;
+
+        try {
+            result = forward(method, args);
+        } catch (Throwable e) {
+            long elapsed = System.nanoTime() - start;
+            target.timer.record(elapsed, true);
+            SqlTrace.record(target, shape, elapsed, 0L, 0L, 1L, 0, true);
+            throw e;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        target.timer.record(elapsed, false);
+
+        if (result instanceof ResultSet) {
+            pending = new Execution(target, shape, elapsed, fetchSize());
+            return pending.wrap(proxy, (ResultSet) result);
+        }
+
+        if (Boolean.TRUE.equals(result)) {
+            // execute() produced a result set; its rows are traced if it is fetched
+            pending = new Execution(target, shape, elapsed, fetchSize());
+            return result;
+        }
+
+        SqlTrace.record(target, shape, elapsed, 0L, updateCount(result), 1L, 0, false);
+        return result;
+    }
+
+    private void finishPending() {
+        if (pending != null) {
+            pending.finish();
+            pending = null;
+        }
+    }
+
+    /**
+     * Trace of one query from execute until its rows have been read
+     */
+    private final class Execution implements InvocationHandler {
+        private final SqlTrace.Aggregate target;
+        private final String shape;
+        private final long executeNanos;
+        private final int fetchSize;
+
+        private ResultSet resultSet;
+        private ResultSet wrapped;
+        private Object statementProxy;
+        private long fetchNanos;
+        private long rows;
+        private boolean finished;
+
+        Execution(SqlTrace.Aggregate target, String shape, long executeNanos, int fetchSize) {
+            this.target = target;
+            this.shape = shape;
+            this.executeNanos = executeNanos;
+            this.fetchSize = fetchSize;
+        }
+
+        ResultSet wrap(Object statementProxy, ResultSet resultSet) {
+            if (resultSet == null) {
+                return null;
+            }
+            this.statementProxy = statementProxy;
+            this.resultSet = resultSet;
+            this.wrapped = (ResultSet) Proxy.newProxyInstance(
+                    ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class},
+                    this);
+            return wrapped;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next":
+                    return next();
+                case "close":
+                    finish();
+                    return forward(resultSet, method, args);
+                case "getStatement":
+                    return statementProxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "TracedResultSet[" + resultSet + "]";
+                default:
+                    return forward(resultSet, method, args);
+            }
+        }
+
+        private boolean next() throws SQLException {
+            long start = System.nanoTime();
+            boolean hasRow = resultSet.next();
+            fetchNanos += System.nanoTime() - start;
+
+            if (hasRow) {
+                rows++;
+            } else {
+                finish();
+            }
+            return hasRow;
+        }
+
+        void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            if (pending == this) {
+                pending = null;
+            }
+
+            // The driver needs one fetch per full batch, plus the one that sees the end
+            long roundTrips = 1L + rows / Math.max(fetchSize, 1);
+            SqlTrace.record(target, shape, executeNanos, fetchNanos, rows, roundTrips, fetchSize, false);
+        }
+    }
+
+    // ================================
+    // Helper Methods
+    // ================================
+
+    private Object forward(Method method, Object[] args) throws Throwable {
+        return forward(statement, method, args);
+    }
+
+    private static Object forward(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Note the type bound at a parameter index, e.g. setTimestamp -> "timestamp"
+     */
+    private void noteBind(int index, String setter, Object value) {
+        if (index < 1 || index > 1000) {
+            return;
+        }
+        if (index > binds.length) {
+            binds = Arrays.copyOf(binds, Math.max(index, binds.length * 2));
+        }
+
+        String type;
+        if (value == null || "setNull".equals(setter)) {
+            type = "null";
+        } else if ("setObject".equals(setter)) {
+            type = value.getClass().getSimpleName().toLowerCase();
+        } else {
+            type = Character.toLowerCase(setter.charAt(3)) + setter.substring(4);
+        }
+        binds[index - 1] = type;
+    }
+
+    /**
+     * Bind types in parameter order, e.g. "(int,string)"; unset parameters show as "?"
+     */
+    private String currentShape() {
+        int count = binds.length;
+        while (count > 0 && binds[count - 1] == null) {
+            count--;
+        }
+
+        StringBuilder shape = new StringBuilder(2 + count * 8).append('(');
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                shape.append(',');
+            }
+            shape.append(binds[i] != null ? binds[i] : "?");
+        }
+        return shape.append(')').toString();
+    }
+
+    private void clearBatch() {
+        batchSize = 0;
+        batchShape = null;
+    }
+
+    private int fetchSize() {
+        try {
+            return statement.getFetchSize();
+        } catch (SQLException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Rows updated according to an executeUpdate or executeBatch result
+     */
+    private static long updateCount(Object result) {
+        if (result instanceof Number) {
+            return Math.max(0L, ((Number) result).longValue());
+        }
+
+        long total = 0;
+        if (result instanceof int[]) {
+            for (int count : (int[]) result) {
+                total += Math.max(0, count);
+            }
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) {
+                total += Math.max(0L, count);
+            }
+        }
+        return total;
+    }
+}
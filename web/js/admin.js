@@ -41,18 +41,28 @@ document.getElementById('logoutBtn').addEventListener('click', () => {
 // Load Dashboard Statistics
 // ================================
 function loadStatistics() {
-  // Update last update time
-  const now = new Date();
-  document.getElementById('lastUpdate').textContent = now.toLocaleTimeString();
+  // Totals are kept on the server, so a refresh is one small request
+  fetch('/201Project/AdminServlet?action=stats')
+    .then(res => res.json())
+    .then(data => {
+      if (!data.success) {
+        console.error('Error loading statistics:', data.message);
+        return;
+      }
 
-  // Load products count
-  loadProducts();
-  
-  // Load orders count
-  loadOrders();
-  
-  // Load users count
-  loadUsers();
+      const stats = data.stats;
+      document.getElementById('totalProducts').textContent = stats.totalProducts;
+      document.getElementById('totalOrders').textContent = stats.totalOrders;
+      document.getElementById('totalRevenue').textContent = '$' + parseFloat(stats.totalRevenue).toFixed(2);
+      document.getElementById('totalUsers').textContent = stats.totalUsers;
+
+      // Update last update time
+      const now = new Date();
+      document.getElementById('lastUpdate').textContent = now.toLocaleTimeString();
+    })
+    .catch(error => {
+      console.error('Error loading statistics:', error);
+    });
 }
 
 // ================================
@@ -65,7 +75,6 @@ function loadProducts() {
     .then(res => res.json())
     .then(data => {
       currentProducts = data.products || [];
-      document.getElementById('totalProducts').textContent = currentProducts.length;
       renderProductsTable(currentProducts);
     })
     .catch(error => {
@@ -157,6 +166,7 @@ function deleteProduct(productId) {
       if (data.success) {
         showToast('Product deleted successfully', 'success');
         loadProducts();
+        loadStatistics();
       } else {
         showToast(data.message || 'Failed to delete product', 'error');
       }
@@ -199,6 +209,7 @@ document.getElementById('productForm').addEventListener('submit', (e) => {
         showToast(productId ? 'Product updated successfully' : 'Product added successfully', 'success');
         document.getElementById('productModal').classList.remove('active');
         loadProducts();
+        loadStatistics();
       } else {
         showToast(data.message || 'Failed to save product', 'error');
       }
@@ -220,14 +231,6 @@ function loadOrders() {
     .then(res => res.json())
     .then(data => {
       currentOrders = data.orders || [];
-      document.getElementById('totalOrders').textContent = currentOrders.length;
-      
-      // Calculate revenue
-      const revenue = currentOrders.reduce((sum, order) => 
-        sum + parseFloat(order.totalAmount || 0), 0
-      );
-      document.getElementById('totalRevenue').textContent = '$' + revenue.toFixed(2);
-      
       filterOrders(orderFilter);
     })
     .catch(error => {
@@ -351,7 +354,6 @@ function loadUsers() {
     .then(res => res.json())
     .then(data => {
       currentUsers = data.users || [];
-      document.getElementById('totalUsers').textContent = currentUsers.length;
       renderUsersTable(currentUsers);
     })
     .catch(error => {
@@ -493,7 +495,12 @@ document.addEventListener('DOMContentLoaded', () => {
   checkAuthentication();
   loadStatistics();
   
-  // Refresh data every 30 seconds
+  // Tables load once here and again after each edit
+  loadProducts();
+  loadOrders();
+  loadUsers();
+  
+  // Refresh statistics every 30 seconds
   setInterval(() => {
     loadStatistics();
   }, 30000);